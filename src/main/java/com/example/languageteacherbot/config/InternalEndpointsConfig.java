@@ -0,0 +1,49 @@
+package com.example.languageteacherbot.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Guards the /internal endpoints (stats, catalog reload), which share the public port with the
+ * webhook. Requests must carry {@code telegram.internal.token} in {@value #TOKEN_HEADER}; with no
+ * token configured the endpoints are closed.
+ */
+@Configuration
+public class InternalEndpointsConfig implements WebMvcConfigurer {
+
+    static final String TOKEN_HEADER = "X-Internal-Token";
+
+    @Value("${telegram.internal.token:}")
+    private String token;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new TokenCheck()).addPathPatterns("/internal/**");
+    }
+
+    private final class TokenCheck implements HandlerInterceptor {
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            String presented = request.getHeader(TOKEN_HEADER);
+            if (token == null || token.isBlank()) {
+                response.setStatus(HttpStatus.FORBIDDEN.value());
+                return false;
+            }
+            if (presented == null || !MessageDigest.isEqual(
+                    token.getBytes(StandardCharsets.UTF_8), presented.getBytes(StandardCharsets.UTF_8))) {
+                response.setStatus(HttpStatus.UNAUTHORIZED.value());
+                return false;
+            }
+            return true;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.languageteacherbot.config;
 
+import com.example.languageteacherbot.service.SessionSnapshotter;
 import com.example.languageteacherbot.service.TelegramService;
+import com.example.languageteacherbot.service.UserWordWriteBuffer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.event.ContextClosedEvent;
@@ -12,8 +14,16 @@ public class ShutdownConfig implements ApplicationListener<ContextClosedEvent> {
     @Autowired
     private TelegramService telegramService;
 
+    @Autowired
+    private UserWordWriteBuffer userWordWriteBuffer;
+
+    @Autowired
+    private SessionSnapshotter sessionSnapshotter;
+
     @Override
     public void onApplicationEvent(ContextClosedEvent event) {
         telegramService.stopPolling();
+        userWordWriteBuffer.flush();
+        sessionSnapshotter.snapshot();
     }
 }
\ No newline at end of file
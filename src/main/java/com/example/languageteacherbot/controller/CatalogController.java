@@ -0,0 +1,26 @@
+package com.example.languageteacherbot.controller;
+
+import com.example.languageteacherbot.service.CatalogReloader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/internal")
+public class CatalogController {
+
+    @Autowired
+    private CatalogReloader catalogReloader;
+
+    @PostMapping("/catalog/reload")
+    public ResponseEntity<Map<String, Object>> reload(@RequestParam(defaultValue = "false") boolean force) {
+        catalogReloader.requestReload(force);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(catalogReloader.stats());
+    }
+}
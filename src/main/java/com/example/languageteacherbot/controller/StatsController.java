@@ -0,0 +1,28 @@
+package com.example.languageteacherbot.controller;
+
+import com.example.languageteacherbot.service.StatsSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/internal")
+public class StatsController {
+
+    @Autowired
+    private List<StatsSource> statsSources;
+
+    @GetMapping("/stats")
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (StatsSource source : statsSources) {
+            result.put(source.statsName(), source.stats());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.languageteacherbot.controller;
+
+import com.example.languageteacherbot.service.TelegramService;
+import com.example.languageteacherbot.telegram.TelegramUpdate;
+import com.example.languageteacherbot.telegram.TelegramUpdateDecoder;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+@RestController
+@ConditionalOnProperty(name = "telegram.bot.mode", havingValue = "webhook")
+public class WebhookController {
+
+    private static final String SECRET_HEADER = "X-Telegram-Bot-Api-Secret-Token";
+
+    @Autowired
+    private TelegramService telegramService;
+
+    @Value("${telegram.webhook.secret:}")
+    private String secret;
+
+    @PostConstruct
+    public void checkSecret() {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("telegram.webhook.secret must be set when telegram.bot.mode=webhook");
+        }
+    }
+
+    @PostMapping("${telegram.webhook.path:/telegram/webhook}")
+    public ResponseEntity<Void> receiveUpdate(@RequestHeader(value = SECRET_HEADER, required = false) String token,
+                                              @RequestBody byte[] body) {
+        if (token == null || !MessageDigest.isEqual(
+                secret.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        TelegramUpdate update;
+        try {
+            update = TelegramUpdateDecoder.readUpdate(body);
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!telegramService.offerUpdate(update)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok().build();
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.languageteacherbot.entity;
+
+/**
+ * CEFR levels in teaching order. {@link #rank()} is stored next to the level string as
+ * {@code level_rank} so "up to B1" becomes an indexable range instead of a list of strings.
+ */
+public enum CefrLevel {
+    A1, A2, B1, B2, C1, C2;
+
+    public int rank() {
+        return ordinal() + 1;
+    }
+
+    public static CefrLevel fromCode(String code) {
+        if (code == null) return null;
+        for (CefrLevel level : values()) {
+            if (level.name().equals(code)) return level;
+        }
+        return null;
+    }
+
+    public static Integer rankOf(String code) {
+        CefrLevel level = fromCode(code);
+        return level == null ? null : level.rank();
+    }
+}
@@ -3,7 +3,10 @@ package com.example.languageteacherbot.entity;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "sentence")
+@Table(name = "sentence",
+    uniqueConstraints = @UniqueConstraint(name = "uk_sentence_language_correct_sentence",
+        columnNames = {"language", "correct_sentence"}),
+    indexes = @Index(name = "idx_sentence_language_level_rank", columnList = "language, level_rank"))
 public class Sentence {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -18,6 +21,9 @@ public class Sentence {
     private String level;
     private String language;
 
+    @Column(name = "level_rank")
+    private Integer levelRank;
+
     public Sentence() {}
 
     public Sentence(String words, String correctSentence, String level, String language) {
@@ -37,4 +43,11 @@ public class Sentence {
     public void setLevel(String level) { this.level = level; }
     public String getLanguage() { return language; }
     public void setLanguage(String language) { this.language = language; }
-}
\ No newline at end of file
+    public Integer getLevelRank() { return levelRank; }
+
+    @PrePersist
+    @PreUpdate
+    void syncLevelRank() {
+        levelRank = CefrLevel.rankOf(level);
+    }
+}
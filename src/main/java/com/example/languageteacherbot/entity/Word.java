@@ -7,7 +7,8 @@ import lombok.AllArgsConstructor;
 
 @Entity
 @Table(name = "words",
-    uniqueConstraints = @UniqueConstraint(columnNames = {"word", "lang"}))
+    uniqueConstraints = @UniqueConstraint(columnNames = {"word", "lang"}),
+    indexes = @Index(name = "idx_words_lang_level_rank", columnList = "lang, level_rank"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -30,4 +31,13 @@ public class Word {
 
     @Column(name = "transcription", nullable = true)
     private String transcription;
+
+    @Column(name = "level_rank")
+    private Integer levelRank;
+
+    @PrePersist
+    @PreUpdate
+    void syncLevelRank() {
+        levelRank = CefrLevel.rankOf(level);
+    }
 }
\ No newline at end of file
@@ -1,10 +1,12 @@
 package com.example.languageteacherbot.repository;
 
+import com.example.languageteacherbot.entity.CefrLevel;
 import com.example.languageteacherbot.entity.Sentence;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -13,13 +15,21 @@ public interface SentenceRepository extends JpaRepository<Sentence, Long> {
     
     List<Sentence> findByLevelAndLanguage(String level, String language);
 
-    @Query("SELECT s FROM Sentence s WHERE s.language = :language AND " +
-           "CASE WHEN :level = 'A1' THEN s.level = 'A1' " +
-           "WHEN :level = 'A2' THEN s.level IN ('A1', 'A2') " +
-           "WHEN :level = 'B1' THEN s.level IN ('A1', 'A2', 'B1') " +
-           "WHEN :level = 'B2' THEN s.level IN ('A1', 'A2', 'B1', 'B2') " +
-           "WHEN :level = 'C1' THEN s.level IN ('A1', 'A2', 'B1', 'B2', 'C1') " +
-           "WHEN :level = 'C2' THEN s.level IN ('A1', 'A2', 'B1', 'B2', 'C1', 'C2') " +
-           "ELSE s.level = 'A1' END")
-    List<Sentence> findByLevelUpToAndLanguage(@Param("level") String level, @Param("language") String language);
-}
\ No newline at end of file
+    List<Sentence> findByLanguageAndLevelRankBetweenOrderById(String language, int fromRank, int toRank);
+
+    default List<Sentence> findUpToLevel(String language, CefrLevel level) {
+        return findByLanguageAndLevelRankBetweenOrderById(language, CefrLevel.A1.rank(), level.rank());
+    }
+
+    default List<Sentence> findBetweenLevels(String language, CefrLevel from, CefrLevel to) {
+        return findByLanguageAndLevelRankBetweenOrderById(language, from.rank(), to.rank());
+    }
+
+    // Rows inserted before level_rank existed, or written around JPA.
+    @Modifying
+    @Transactional
+    @Query("UPDATE Sentence s SET s.levelRank = CASE s.level WHEN 'A1' THEN 1 WHEN 'A2' THEN 2 WHEN 'B1' THEN 3 "
+            + "WHEN 'B2' THEN 4 WHEN 'C1' THEN 5 WHEN 'C2' THEN 6 END "
+            + "WHERE s.levelRank IS NULL AND s.level IN ('A1', 'A2', 'B1', 'B2', 'C1', 'C2')")
+    int backfillLevelRanks();
+}
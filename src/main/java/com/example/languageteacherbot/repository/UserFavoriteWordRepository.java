@@ -2,9 +2,12 @@ package com.example.languageteacherbot.repository;
 
 import com.example.languageteacherbot.entity.UserFavoriteWord;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,4 +19,37 @@ public interface UserFavoriteWordRepository extends JpaRepository<UserFavoriteWo
     
     Optional<UserFavoriteWord> findByUserChatIdAndWordId(Long userChatId, Long wordId);
     void deleteByUserChatIdAndWordId(Long userChatId, Long wordId);
-}
\ No newline at end of file
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM UserFavoriteWord fw WHERE fw.userChatId = :chatId")
+    int deleteAllByUser(@Param("chatId") Long chatId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM UserFavoriteWord fw WHERE fw.userChatId = :chatId AND fw.word.id IN :wordIds")
+    int deleteByUserAndWordIds(@Param("chatId") Long chatId, @Param("wordIds") Collection<Long> wordIds);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM UserFavoriteWord fw WHERE fw.userChatId = :chatId "
+            + "AND fw.word.id IN (SELECT w.id FROM Word w WHERE w.level = :level)")
+    int deleteByUserAndLevel(@Param("chatId") Long chatId, @Param("level") String level);
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO user_words (user_chat_id, word_id, marked_as_unknown) "
+            + "SELECT user_chat_id, word_id, true FROM user_favorite_words WHERE user_chat_id = :chatId AND word_id IN (:wordIds) "
+            + "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int copyToUnknown(@Param("chatId") Long chatId, @Param("wordIds") Collection<Long> wordIds);
+
+    /**
+     * Moves the given words from favorites to the "don't know" list; returns how many left favorites.
+     */
+    @Transactional
+    default int moveToUnknown(Long chatId, Collection<Long> wordIds) {
+        if (wordIds.isEmpty()) return 0;
+        copyToUnknown(chatId, wordIds);
+        return deleteByUserAndWordIds(chatId, wordIds);
+    }
+}
@@ -1,12 +1,35 @@
 package com.example.languageteacherbot.repository;
 
+import com.example.languageteacherbot.entity.CefrLevel;
 import com.example.languageteacherbot.entity.Word;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
 import java.util.List;
 
 @Repository
 public interface WordRepository extends JpaRepository<Word, Long> {
     List<Word> findByLevelAndLang(String level, String lang);
     List<Word> findByLang(String lang);
-}
\ No newline at end of file
+
+    List<Word> findByLangAndLevelRankBetweenOrderById(String lang, int fromRank, int toRank);
+
+    default List<Word> findUpToLevel(String lang, CefrLevel level) {
+        return findByLangAndLevelRankBetweenOrderById(lang, CefrLevel.A1.rank(), level.rank());
+    }
+
+    default List<Word> findBetweenLevels(String lang, CefrLevel from, CefrLevel to) {
+        return findByLangAndLevelRankBetweenOrderById(lang, from.rank(), to.rank());
+    }
+
+    // Rows inserted before level_rank existed, or written around JPA.
+    @Modifying
+    @Transactional
+    @Query("UPDATE Word w SET w.levelRank = CASE w.level WHEN 'A1' THEN 1 WHEN 'A2' THEN 2 WHEN 'B1' THEN 3 "
+            + "WHEN 'B2' THEN 4 WHEN 'C1' THEN 5 WHEN 'C2' THEN 6 END "
+            + "WHERE w.levelRank IS NULL AND w.level IN ('A1', 'A2', 'B1', 'B2', 'C1', 'C2')")
+    int backfillLevelRanks();
+}
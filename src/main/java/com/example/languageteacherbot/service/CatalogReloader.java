@@ -0,0 +1,112 @@
+package com.example.languageteacherbot.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reloads the word and sentence catalogs at runtime, without a restart. A reload re-runs the CSV
+ * import (only changed files are written) and, if anything changed or the reload was forced,
+ * rebuilds both catalogs on a background thread; each catalog publishes its new snapshot with one
+ * reference swap. Running games keep the snapshot they started with, and caches keyed on the
+ * catalog version stop matching on their own.
+ */
+@Component
+public class CatalogReloader implements StatsSource {
+
+    @Autowired
+    private VocabularyImporter importer;
+
+    @Autowired
+    private WordCatalog wordCatalog;
+
+    @Autowired
+    private SentenceCatalog sentenceCatalog;
+
+    private final AtomicBoolean queued = new AtomicBoolean();
+    private final AtomicBoolean forceQueued = new AtomicBoolean();
+    private final AtomicLong reloads = new AtomicLong();
+    private final AtomicLong checks = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile long lastReloadMs;
+    private volatile long lastReloadAt;
+    private ExecutorService worker;
+
+    @PostConstruct
+    public void init() {
+        worker = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "catalog-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        worker.shutdownNow();
+    }
+
+    /**
+     * Queues a reload. With {@code force} the catalogs are rebuilt even if no file changed, e.g.
+     * after rows were edited directly in the database. Returns false if one is already queued.
+     */
+    public boolean requestReload(boolean force) {
+        if (force) forceQueued.set(true);
+        if (!queued.compareAndSet(false, true)) return false;
+        worker.execute(this::reload);
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${telegram.catalog.reload-check-ms:60000}",
+            initialDelayString = "${telegram.catalog.reload-check-ms:60000}")
+    public void checkForChanges() {
+        requestReload(false);
+    }
+
+    private void reload() {
+        queued.set(false);
+        boolean force = forceQueued.getAndSet(false);
+        long started = System.currentTimeMillis();
+        try {
+            checks.incrementAndGet();
+            boolean changed = importer.importAll();
+            if (!changed && !force) return;
+            wordCatalog.load();
+            sentenceCatalog.load();
+            reloads.incrementAndGet();
+            lastReloadAt = System.currentTimeMillis();
+            lastReloadMs = lastReloadAt - started;
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            System.err.println("Catalog reload failed, keeping the current version: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public String statsName() {
+        return "catalogReload";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("wordVersion", wordCatalog.version());
+        stats.put("sentenceVersion", sentenceCatalog.version());
+        stats.put("queued", queued.get());
+        stats.put("checks", checks.get());
+        stats.put("reloads", reloads.get());
+        stats.put("failures", failures.get());
+        stats.put("lastReloadAt", lastReloadAt);
+        stats.put("lastReloadMs", lastReloadMs);
+        return stats;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.languageteacherbot.service;
+
+import java.util.Map;
+
+/**
+ * Everything the bot remembers about one chat between updates, in a single compact record:
+ * conversation state as an ordinal, paging position, selected section and level, and the running
+ * game if any. Guarded by the {@link ChatSessionStore} stripe that owns the chat.
+ */
+public final class ChatContext {
+
+    private static final ConversationState[] STATES = ConversationState.values();
+    private static final int NO_PAGE = -1;
+
+    private byte state = -1;
+    private int dictionaryPage = NO_PAGE;
+    private String myWordsSection;
+    private String dictionaryLevel;
+    private Object game;
+    private Map<String, Long> wordDeleteMap;
+    long lastAccess;
+    int weight;
+    // Set on every slot write, cleared when the snapshotter has encoded the context.
+    boolean dirty = true;
+
+    public ConversationState state() {
+        return state < 0 ? null : STATES[state];
+    }
+
+    public void state(ConversationState value) {
+        state = value == null ? -1 : (byte) value.ordinal();
+    }
+
+    public Integer dictionaryPage() {
+        return dictionaryPage == NO_PAGE ? null : dictionaryPage;
+    }
+
+    public void dictionaryPage(Integer value) {
+        dictionaryPage = value == null ? NO_PAGE : value;
+    }
+
+    public String myWordsSection() {
+        return myWordsSection;
+    }
+
+    public void myWordsSection(String value) {
+        myWordsSection = value;
+    }
+
+    public String dictionaryLevel() {
+        return dictionaryLevel;
+    }
+
+    public void dictionaryLevel(String value) {
+        dictionaryLevel = value;
+    }
+
+    public Object game() {
+        return game;
+    }
+
+    public void game(Object value) {
+        game = value;
+    }
+
+    public Map<String, Long> wordDeleteMap() {
+        return wordDeleteMap;
+    }
+
+    public void wordDeleteMap(Map<String, Long> value) {
+        wordDeleteMap = value;
+    }
+
+    boolean isEmpty() {
+        return state < 0 && dictionaryPage == NO_PAGE && myWordsSection == null && dictionaryLevel == null
+                && game == null && wordDeleteMap == null;
+    }
+
+    int computeWeight() {
+        int total = 1;
+        if (game instanceof ChatSessionStore.Weighted weighted) total += weighted.weight();
+        if (wordDeleteMap != null) total += wordDeleteMap.size();
+        return total;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.languageteacherbot.service;
+
+/**
+ * Open-addressing hash table from a primitive chat id to its {@link ChatContext}: linear probing
+ * over parallel key/value arrays, backward-shift deletion, no boxing. Not thread-safe; each
+ * {@link ChatSessionStore} stripe owns one.
+ */
+final class ChatContextTable {
+
+    interface Visitor {
+        void visit(long chatId, ChatContext context);
+    }
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private ChatContext[] values;
+    private int size;
+    private int mask;
+    private int resizeAt;
+
+    ChatContextTable() {
+        allocate(MIN_CAPACITY);
+    }
+
+    ChatContext get(long chatId) {
+        for (int i = slot(chatId); ; i = (i + 1) & mask) {
+            ChatContext value = values[i];
+            if (value == null) return null;
+            if (keys[i] == chatId) return value;
+        }
+    }
+
+    ChatContext put(long chatId, ChatContext context) {
+        int i = slot(chatId);
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == chatId) {
+                ChatContext previous = values[i];
+                values[i] = context;
+                return previous;
+            }
+        }
+        keys[i] = chatId;
+        values[i] = context;
+        if (++size > resizeAt) {
+            resize(values.length << 1);
+        }
+        return null;
+    }
+
+    ChatContext remove(long chatId) {
+        int i = slot(chatId);
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == chatId) break;
+        }
+        ChatContext removed = values[i];
+        if (removed == null) return null;
+
+        // Shift later entries of the probe chain back so lookups never stop at the hole.
+        int hole = i;
+        for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            boolean movable = hole <= j ? (home <= hole || home > j) : (home <= hole && home > j);
+            if (movable) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        values[hole] = null;
+        size--;
+        return removed;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(Visitor visitor) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) visitor.visit(keys[i], values[i]);
+        }
+    }
+
+    private int slot(long chatId) {
+        long h = chatId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new ChatContext[capacity];
+        mask = capacity - 1;
+        resizeAt = capacity * 3 / 4;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        ChatContext[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) put(oldKeys[i], oldValues[i]);
+        }
+    }
+}
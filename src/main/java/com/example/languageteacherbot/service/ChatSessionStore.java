@@ -0,0 +1,268 @@
+package com.example.languageteacherbot.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Per-chat conversation state (menu state, running games, paging positions). Each chat has one
+ * {@link ChatContext} in a primitive-keyed {@link ChatContextTable}; the chat id picks one of
+ * {@value #STRIPES} stripes, each owning its own table and lock. Each field of the context is
+ * exposed as a {@link Slot} with a map-like API. Contexts idle for
+ * {@code telegram.sessions.idle-ttl-minutes} are dropped, and the least recently used ones are
+ * evicted when the store exceeds its session count or total weight.
+ */
+@Component
+public class ChatSessionStore implements StatsSource {
+
+    /**
+     * Values that hold more than a few fields, e.g. a game with its word list, report their size
+     * so eviction can bound memory rather than just the number of chats.
+     */
+    public interface Weighted {
+        int weight();
+    }
+
+    private static final int STRIPES = 64;
+
+    @Value("${telegram.sessions.idle-ttl-minutes:60}")
+    private long idleTtlMinutes;
+
+    @Value("${telegram.sessions.max-sessions:50000}")
+    private int maxSessions;
+
+    @Value("${telegram.sessions.max-weight:2000000}")
+    private long maxWeight;
+
+    private final ChatContextTable[] tables = new ChatContextTable[STRIPES];
+    private final AtomicLong liveSessions = new AtomicLong();
+    private final AtomicLong totalWeight = new AtomicLong();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong evictedForSize = new AtomicLong();
+
+    public ChatSessionStore() {
+        for (int i = 0; i < STRIPES; i++) {
+            tables[i] = new ChatContextTable();
+        }
+    }
+
+    public <V> Slot<V> slot(Function<ChatContext, V> getter, BiConsumer<ChatContext, V> setter) {
+        return new Slot<>(getter, setter);
+    }
+
+    /**
+     * Visits every context, one stripe at a time with that stripe locked.
+     */
+    void forEachContext(ChatContextTable.Visitor visitor) {
+        for (ChatContextTable table : tables) {
+            synchronized (table) {
+                table.forEach(visitor);
+            }
+        }
+    }
+
+    void restore(long chatId, ChatContext context) {
+        ChatContextTable table = table(chatId);
+        synchronized (table) {
+            context.lastAccess = System.nanoTime();
+            context.weight = context.computeWeight();
+            ChatContext previous = table.put(chatId, context);
+            if (previous == null) {
+                liveSessions.incrementAndGet();
+            } else {
+                totalWeight.addAndGet(-previous.weight);
+            }
+            totalWeight.addAndGet(context.weight);
+        }
+    }
+
+    public int liveSessions() {
+        return (int) liveSessions.get();
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdle() {
+        long deadline = System.nanoTime() - TimeUnit.MINUTES.toNanos(idleTtlMinutes);
+        for (ChatContextTable table : tables) {
+            synchronized (table) {
+                long[] idle = collect(table, deadline);
+                for (long chatId : idle) {
+                    drop(table, chatId);
+                    expired.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private ChatContextTable table(long chatId) {
+        int h = Long.hashCode(chatId);
+        return tables[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    // Chat ids in the table whose context was last touched before the given time.
+    private static long[] collect(ChatContextTable table, long before) {
+        long[] ids = new long[table.size()];
+        int[] count = new int[1];
+        table.forEach((chatId, context) -> {
+            if (context.lastAccess - before < 0) ids[count[0]++] = chatId;
+        });
+        return Arrays.copyOf(ids, count[0]);
+    }
+
+    private void drop(ChatContextTable table, long chatId) {
+        ChatContext removed = table.remove(chatId);
+        if (removed != null) {
+            liveSessions.decrementAndGet();
+            totalWeight.addAndGet(-removed.weight);
+        }
+    }
+
+    private void evictOverflow() {
+        if (!evicting.compareAndSet(false, true)) return;
+        try {
+            List<long[]> byAge = new ArrayList<>();
+            for (ChatContextTable table : tables) {
+                synchronized (table) {
+                    table.forEach((chatId, context) -> byAge.add(new long[]{context.lastAccess, context.weight}));
+                }
+            }
+            byAge.sort(Comparator.comparingLong(entry -> entry[0]));
+
+            // Find the access time that brings both counts back under 95% of their limits.
+            long sessionsLeft = liveSessions.get();
+            long weightLeft = totalWeight.get();
+            long cutoff = Long.MIN_VALUE;
+            for (long[] entry : byAge) {
+                if (sessionsLeft <= maxSessions - maxSessions / 20 && weightLeft <= maxWeight - maxWeight / 20) break;
+                sessionsLeft--;
+                weightLeft -= entry[1];
+                cutoff = entry[0] + 1;
+            }
+            if (cutoff == Long.MIN_VALUE) return;
+
+            for (ChatContextTable table : tables) {
+                synchronized (table) {
+                    for (long chatId : collect(table, cutoff)) {
+                        drop(table, chatId);
+                        evictedForSize.incrementAndGet();
+                    }
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    @Override
+    public String statsName() {
+        return "sessions";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("live", liveSessions.get());
+        stats.put("maxSessions", maxSessions);
+        stats.put("weight", totalWeight.get());
+        stats.put("maxWeight", maxWeight);
+        stats.put("created", created.get());
+        stats.put("expired", expired.get());
+        stats.put("evictedForSize", evictedForSize.get());
+        return stats;
+    }
+
+    /**
+     * One field of the chat context. Reads and writes touch the context, resetting its idle timer.
+     */
+    public final class Slot<V> {
+        private final Function<ChatContext, V> getter;
+        private final BiConsumer<ChatContext, V> setter;
+
+        private Slot(Function<ChatContext, V> getter, BiConsumer<ChatContext, V> setter) {
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        public V get(long chatId) {
+            ChatContextTable table = table(chatId);
+            synchronized (table) {
+                ChatContext context = table.get(chatId);
+                if (context == null) return null;
+                context.lastAccess = System.nanoTime();
+                return getter.apply(context);
+            }
+        }
+
+        public V getOrDefault(long chatId, V defaultValue) {
+            V value = get(chatId);
+            return value != null ? value : defaultValue;
+        }
+
+        public boolean containsKey(long chatId) {
+            return get(chatId) != null;
+        }
+
+        public V put(long chatId, V value) {
+            if (value == null) return remove(chatId);
+            boolean inserted = false;
+            V previous;
+            ChatContextTable table = table(chatId);
+            synchronized (table) {
+                ChatContext context = table.get(chatId);
+                if (context == null) {
+                    context = new ChatContext();
+                    table.put(chatId, context);
+                    liveSessions.incrementAndGet();
+                    created.incrementAndGet();
+                    inserted = true;
+                }
+                previous = getter.apply(context);
+                setter.accept(context, value);
+                reweigh(context);
+                context.dirty = true;
+                context.lastAccess = System.nanoTime();
+            }
+            if ((inserted && liveSessions.get() > maxSessions) || totalWeight.get() > maxWeight) {
+                evictOverflow();
+            }
+            return previous;
+        }
+
+        public V remove(long chatId) {
+            ChatContextTable table = table(chatId);
+            synchronized (table) {
+                ChatContext context = table.get(chatId);
+                if (context == null) return null;
+                V previous = getter.apply(context);
+                if (previous == null) return null;
+                setter.accept(context, null);
+                reweigh(context);
+                context.dirty = true;
+                if (context.isEmpty()) {
+                    drop(table, chatId);
+                }
+                return previous;
+            }
+        }
+
+        private void reweigh(ChatContext context) {
+            int weight = context.computeWeight();
+            totalWeight.addAndGet(weight - context.weight);
+            context.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.languageteacherbot.service;
+
+public enum ConversationState {
+    START, AWAITING_NATIVE_LANG, AWAITING_TARGET_LANG, AWAITING_LEVEL,
+    IN_MENU, IN_MY_WORDS, IN_SENTENCE_GAME, IN_SETTINGS, IN_DICTIONARY,
+    AWAITING_NEW_NATIVE_LANG, AWAITING_NEW_TARGET_LANG, AWAITING_NEW_LEVEL
+}
@@ -0,0 +1,161 @@
+package com.example.languageteacherbot.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Text commands per {@link ConversationState}, declared once and compiled into one
+ * {@code label -> command} table per state and locale. Labels that are declared twice for the
+ * same state and locale can never fire; they are reported at compile time and in the stats
+ * together with commands that have not been used since startup.
+ */
+@Component
+public class ConversationStateMachine implements StatsSource {
+
+    private static final String[] LOCALES = {"ru", "zh"};
+
+    @FunctionalInterface
+    public interface Action {
+        void run(Long chatId, String text);
+    }
+
+    private final List<Command> commands = new ArrayList<>();
+    private final Map<ConversationState, Command> fallbacks = new EnumMap<>(ConversationState.class);
+    private final List<String> shadowed = new ArrayList<>();
+    private final AtomicLong unmatched = new AtomicLong();
+    private volatile Map<ConversationState, Map<String, Command>[]> tables = new EnumMap<>(ConversationState.class);
+
+    public StateBuilder in(ConversationState state) {
+        return new StateBuilder(state);
+    }
+
+    public synchronized void compile() {
+        Map<ConversationState, Map<String, Command>[]> compiled = new EnumMap<>(ConversationState.class);
+        shadowed.clear();
+        for (Command command : commands) {
+            Map<String, Command>[] byLocale = compiled.computeIfAbsent(command.state, s -> newTables());
+            for (int locale = 0; locale < LOCALES.length; locale++) {
+                for (String label : command.labels[locale]) {
+                    Command existing = byLocale[locale].putIfAbsent(label, command);
+                    if (existing != null && existing != command) {
+                        shadowed.add(command.state + "/" + LOCALES[locale] + " '" + label + "': "
+                                + command.name + " is shadowed by " + existing.name);
+                    }
+                }
+            }
+        }
+        tables = compiled;
+        for (String line : shadowed) {
+            System.err.println("Unreachable command " + line);
+        }
+        System.out.println("Compiled " + commands.size() + " commands for " + compiled.size() + " conversation states");
+    }
+
+    /**
+     * @return false if the state has neither a matching command nor a fallback
+     */
+    public boolean dispatch(ConversationState state, String nativeLang, Long chatId, String text) {
+        Map<String, Command>[] byLocale = tables.get(state);
+        Command command = byLocale == null ? null : byLocale[localeIndex(nativeLang)].get(text);
+        if (command == null) {
+            command = fallbacks.get(state);
+            unmatched.incrementAndGet();
+            if (command == null) return false;
+        }
+        command.hits.incrementAndGet();
+        command.action.run(chatId, text);
+        return true;
+    }
+
+    private static int localeIndex(String nativeLang) {
+        return "ru".equals(nativeLang) ? 0 : 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Command>[] newTables() {
+        Map<String, Command>[] byLocale = new Map[LOCALES.length];
+        for (int i = 0; i < byLocale.length; i++) {
+            byLocale[i] = new HashMap<>();
+        }
+        return byLocale;
+    }
+
+    @Override
+    public String statsName() {
+        return "conversation";
+    }
+
+    @Override
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> hits = new LinkedHashMap<>();
+        List<String> neverUsed = new ArrayList<>();
+        List<Command> all = new ArrayList<>(commands);
+        all.addAll(fallbacks.values());
+        for (Command command : all) {
+            String key = command.state + "/" + command.name;
+            long count = command.hits.get();
+            hits.put(key, count);
+            if (count == 0) neverUsed.add(key);
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("commands", commands.size());
+        stats.put("unmatched", unmatched.get());
+        stats.put("shadowed", new ArrayList<>(shadowed));
+        stats.put("neverUsed", neverUsed);
+        stats.put("hits", hits);
+        return stats;
+    }
+
+    public final class StateBuilder {
+        private final ConversationState state;
+
+        private StateBuilder(ConversationState state) {
+            this.state = state;
+        }
+
+        public StateBuilder on(String name, String ruLabel, String zhLabel, Action action) {
+            add(new Command(state, name, new String[][]{{ruLabel}, {zhLabel}}, action));
+            return this;
+        }
+
+        public StateBuilder onAny(String name, Action action, String... labels) {
+            add(new Command(state, name, new String[][]{labels, labels}, action));
+            return this;
+        }
+
+        public StateBuilder otherwise(Action action) {
+            synchronized (ConversationStateMachine.this) {
+                fallbacks.put(state, new Command(state, "otherwise", new String[][]{{}, {}}, action));
+            }
+            return this;
+        }
+
+        private void add(Command command) {
+            synchronized (ConversationStateMachine.this) {
+                commands.add(command);
+            }
+        }
+    }
+
+    private static final class Command {
+        private final ConversationState state;
+        private final String name;
+        private final String[][] labels;
+        private final Action action;
+        private final AtomicLong hits = new AtomicLong();
+
+        Command(ConversationState state, String name, String[][] labels, Action action) {
+            this.state = state;
+            this.name = name;
+            this.labels = labels;
+            this.action = action;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.languageteacherbot.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hashed timer wheel for delayed bot actions (next game round, retries, reminders). One thread
+ * advances the wheel every {@code telegram.timers.tick-ms}; pending tasks cost one small object
+ * each, however many there are. Chat tasks are handed to that chat's dispatcher lane when due and
+ * can be cancelled per chat.
+ */
+@Component
+public class DelayedTaskScheduler implements StatsSource {
+
+    private static final long NO_CHAT = Long.MIN_VALUE;
+
+    @Autowired
+    private ObjectProvider<UpdateDispatcher> updateDispatcher;
+
+    @Autowired
+    private ObjectProvider<ReactiveUpdatePipeline> reactivePipeline;
+
+    @Value("${telegram.timers.tick-ms:100}")
+    private long tickMillis;
+
+    @Value("${telegram.timers.wheel-size:512}")
+    private int wheelSize;
+
+    @Value("${telegram.timers.max-pending:500000}")
+    private int maxPending;
+
+    private final Queue<Timeout> incoming = new ConcurrentLinkedQueue<>();
+    private final Map<Long, Set<Timeout>> byChat = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong scheduled = new AtomicLong();
+    private final AtomicLong fired = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong deferred = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile long maxLateMillis;
+    private List<Timeout>[] wheel;
+    private int mask;
+    private long tickNanos;
+    private long startNanos;
+    private volatile boolean running;
+    private Thread worker;
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    public void start() {
+        int size = Integer.highestOneBit(Math.max(2, wheelSize) * 2 - 1);
+        wheel = new List[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ArrayList<>();
+        }
+        mask = size - 1;
+        tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, tickMillis));
+        startNanos = System.nanoTime();
+        running = true;
+        worker = new Thread(this::run, "timer-wheel");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    /**
+     * Runs the task on the chat's dispatcher lane after the delay, ordered with that chat's updates.
+     */
+    public Timeout schedule(long chatId, long delayMillis, Runnable task) {
+        return add(new Timeout(chatId, deadline(delayMillis), task));
+    }
+
+    /**
+     * Runs the task on the timer thread itself after the delay; it must only hand work off.
+     */
+    public Timeout schedule(long delayMillis, Runnable task) {
+        return add(new Timeout(NO_CHAT, deadline(delayMillis), task));
+    }
+
+    /**
+     * Cancels every pending task of the chat, e.g. when the user leaves a game.
+     */
+    public int cancel(long chatId) {
+        Set<Timeout> timeouts = byChat.remove(chatId);
+        if (timeouts == null) return 0;
+        int count = 0;
+        for (Timeout timeout : timeouts) {
+            if (timeout.cancel()) count++;
+        }
+        return count;
+    }
+
+    private long deadline(long delayMillis) {
+        return System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+    }
+
+    private Timeout add(Timeout timeout) {
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            rejected.incrementAndGet();
+            timeout.state.set(Timeout.CANCELLED);
+            System.err.println("Timer wheel full, dropping delayed task for chat " + timeout.chatId);
+            return timeout;
+        }
+        scheduled.incrementAndGet();
+        if (timeout.chatId != NO_CHAT) {
+            byChat.compute(timeout.chatId, (chatId, timeouts) -> {
+                Set<Timeout> chatTimeouts = timeouts != null ? timeouts : ConcurrentHashMap.newKeySet();
+                chatTimeouts.add(timeout);
+                return chatTimeouts;
+            });
+        }
+        incoming.add(timeout);
+        return timeout;
+    }
+
+    private void run() {
+        long tick = 0;
+        while (running) {
+            long deadline = tickNanos * (tick + 1);
+            long sleepNanos = deadline - (System.nanoTime() - startNanos);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) return;
+                }
+            }
+            transferIncoming(tick);
+            expire(wheel[(int) (tick & mask)], deadline);
+            tick++;
+        }
+    }
+
+    private void transferIncoming(long tick) {
+        // Bounded per tick so a burst of schedules cannot starve expiry.
+        for (int i = 0; i < 100_000; i++) {
+            Timeout timeout = incoming.poll();
+            if (timeout == null) return;
+            if (timeout.isCancelled()) continue;
+            long dueTick = Math.max(timeout.deadline / tickNanos, tick);
+            timeout.remainingRounds = (dueTick - tick) / wheel.length;
+            wheel[(int) (dueTick & mask)].add(timeout);
+        }
+    }
+
+    private void expire(List<Timeout> bucket, long now) {
+        List<Timeout> retry = null;
+        Iterator<Timeout> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+            if (timeout.isCancelled()) {
+                iterator.remove();
+            } else if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+            } else {
+                iterator.remove();
+                if (!fire(timeout, now)) {
+                    if (retry == null) retry = new ArrayList<>();
+                    retry.add(timeout);
+                }
+            }
+        }
+        if (retry != null) {
+            // The chat's lane is full; try again on the next tick.
+            for (Timeout timeout : retry) {
+                timeout.deadline = now + tickNanos;
+                incoming.add(timeout);
+            }
+            deferred.addAndGet(retry.size());
+        }
+    }
+
+    private boolean fire(Timeout timeout, long now) {
+        if (timeout.chatId != NO_CHAT) {
+            ReactiveUpdatePipeline pipeline = reactivePipeline.getIfAvailable();
+            boolean accepted = pipeline != null
+                    ? pipeline.submit(timeout.chatId, timeout::run)
+                    : updateDispatcher.getObject().tryDispatch(timeout.chatId, timeout::run);
+            if (!accepted) return false;
+        } else {
+            timeout.run();
+        }
+        long late = TimeUnit.NANOSECONDS.toMillis(now - timeout.deadline);
+        if (late > maxLateMillis) maxLateMillis = late;
+        return true;
+    }
+
+    @Override
+    public String statsName() {
+        return "timers";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", pending.get());
+        stats.put("chats", byChat.size());
+        stats.put("scheduled", scheduled.get());
+        stats.put("fired", fired.get());
+        stats.put("cancelled", cancelled.get());
+        stats.put("deferred", deferred.get());
+        stats.put("rejected", rejected.get());
+        stats.put("maxLateMs", maxLateMillis);
+        return stats;
+    }
+
+    /**
+     * Handle of a scheduled task.
+     */
+    public final class Timeout {
+        private static final int WAITING = 0;
+        private static final int DONE = 1;
+        private static final int CANCELLED = 2;
+
+        private final long chatId;
+        private final Runnable task;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private volatile long deadline;
+        private long remainingRounds;
+
+        private Timeout(long chatId, long deadline, Runnable task) {
+            this.chatId = chatId;
+            this.deadline = deadline;
+            this.task = task;
+        }
+
+        public boolean cancel() {
+            if (!state.compareAndSet(WAITING, CANCELLED)) return false;
+            finished();
+            cancelled.incrementAndGet();
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        // Cancellation is checked again when the task reaches the front of the chat's lane.
+        private void run() {
+            if (!state.compareAndSet(WAITING, DONE)) return;
+            finished();
+            fired.incrementAndGet();
+            try {
+                task.run();
+            } catch (Exception e) {
+                System.err.println("Delayed task failed" + (chatId == NO_CHAT ? "" : " for chat " + chatId)
+                        + ": " + e.getMessage());
+            }
+        }
+
+        private void finished() {
+            pending.decrementAndGet();
+            if (chatId != NO_CHAT) {
+                byChat.computeIfPresent(chatId, (key, timeouts) -> {
+                    timeouts.remove(this);
+                    return timeouts.isEmpty() ? null : timeouts;
+                });
+            }
+        }
+    }
+}
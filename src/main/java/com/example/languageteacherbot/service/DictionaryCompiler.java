@@ -0,0 +1,222 @@
+package com.example.languageteacherbot.service;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compiles word rows into the binary format read by {@link MappedDictionary}. At runtime the
+ * catalog exports the words table through {@link #compile(List, String, Path)}, so every record
+ * carries its database id and the file reflects the rows as they are now. From a CSV (word,
+ * translation, transcription, level, lang) rows are deduplicated on (word, lang) with the last
+ * row winning, like the database upsert, rows missing a required column are skipped, and ids are
+ * left at 0; that form is for checking a language pack offline:
+ *
+ *   java -cp target/classes com.example.languageteacherbot.service.DictionaryCompiler word.csv dictionary.bin
+ */
+public final class DictionaryCompiler {
+
+    private DictionaryCompiler() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: DictionaryCompiler <words.csv> <dictionary.bin>");
+            System.exit(2);
+        }
+        long started = System.currentTimeMillis();
+        int words = compile(Path.of(args[0]), Path.of(args[1]));
+        System.out.println("Compiled " + words + " words into " + args[1] + " (" + Files.size(Path.of(args[1]))
+                + " bytes) in " + (System.currentTimeMillis() - started) + " ms");
+    }
+
+    /**
+     * One word row. {@code id} is the database id, or 0 for rows read from a CSV.
+     */
+    public record Entry(long id, String word, String translation, String transcription, String level, String lang) {
+    }
+
+    /**
+     * Compiles the CSV and atomically replaces the target. Returns the number of words written.
+     */
+    public static int compile(Path csv, Path target) throws IOException {
+        return write(read(csv), null, target);
+    }
+
+    /**
+     * Compiles database rows, in id order, and atomically replaces the target. {@code stamp} is
+     * stored in the header so a later start can tell whether the file still matches the database.
+     */
+    public static int compile(List<Entry> entries, String stamp, Path target) throws IOException {
+        List<Entry> rows = new ArrayList<>(entries);
+        rows.sort(Comparator.comparingLong(Entry::id));
+        return write(rows, stamp, target);
+    }
+
+    private static int write(List<Entry> rows, String stamp, Path target) throws IOException {
+
+        Pool pool = new Pool();
+        Map<String, Integer> symbolIds = new HashMap<>();
+        List<Integer> symbolOffsets = new ArrayList<>();
+        int[][] records = new int[rows.size()][];
+        for (int ordinal = 0; ordinal < rows.size(); ordinal++) {
+            Entry row = rows.get(ordinal);
+            records[ordinal] = new int[]{pool.add(row.word()), pool.add(row.translation()),
+                    row.transcription() == null ? MappedDictionary.NO_STRING : pool.add(row.transcription()),
+                    symbol(row.level(), pool, symbolIds, symbolOffsets), symbol(row.lang(), pool, symbolIds, symbolOffsets)};
+        }
+        int stampOffset = stamp == null ? MappedDictionary.NO_STRING : pool.add(stamp);
+
+        Integer[] keys = new Integer[rows.size()];
+        byte[][] wordBytes = new byte[rows.size()][];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i;
+            wordBytes[i] = rows.get(i).word().getBytes(StandardCharsets.UTF_8);
+        }
+        Arrays.sort(keys, (a, b) -> {
+            int cmp = Integer.compare(records[a][4], records[b][4]);
+            return cmp != 0 ? cmp : Arrays.compareUnsigned(wordBytes[a], wordBytes[b]);
+        });
+
+        // (lang symbol, level symbol) -> ordinals in file order
+        Map<Integer, List<Integer>> slices = new TreeMap<>();
+        for (int ordinal = 0; ordinal < records.length; ordinal++) {
+            slices.computeIfAbsent(records[ordinal][4] << 8 | records[ordinal][3], k -> new ArrayList<>()).add(ordinal);
+        }
+
+        int symbolsOffset = MappedDictionary.HEADER_BYTES;
+        int recordsOffset = symbolsOffset + symbolOffsets.size() * 4;
+        int keysOffset = recordsOffset + records.length * MappedDictionary.RECORD_BYTES;
+        int slicesOffset = keysOffset + keys.length * 4;
+        int poolOffset = slicesOffset + 4 + slices.size() * MappedDictionary.SLICE_BYTES + records.length * 4;
+        if ((long) poolOffset + pool.size() > Integer.MAX_VALUE) throw new IOException("dictionary exceeds 2 GB");
+
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        if (target.getParent() != null) Files.createDirectories(target.getParent());
+        try (OutputStream file = Files.newOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(MappedDictionary.MAGIC);
+            out.writeInt(MappedDictionary.FORMAT_VERSION);
+            out.writeInt(records.length);
+            out.writeInt(symbolOffsets.size());
+            out.writeInt(symbolsOffset);
+            out.writeInt(recordsOffset);
+            out.writeInt(keysOffset);
+            out.writeInt(slicesOffset);
+            out.writeInt(poolOffset);
+            out.writeInt(pool.size());
+            out.writeInt(stampOffset);
+            out.writeInt(0);
+
+            for (int offset : symbolOffsets) out.writeInt(offset);
+            for (int ordinal = 0; ordinal < records.length; ordinal++) {
+                int[] record = records[ordinal];
+                out.writeInt(record[0]);
+                out.writeInt(record[1]);
+                out.writeInt(record[2]);
+                out.writeByte(record[3]);
+                out.writeByte(record[4]);
+                out.writeShort(0);
+                out.writeLong(rows.get(ordinal).id());
+            }
+            for (int ordinal : keys) out.writeInt(ordinal);
+
+            out.writeInt(slices.size());
+            int start = 0;
+            for (Map.Entry<Integer, List<Integer>> slice : slices.entrySet()) {
+                out.writeByte(slice.getKey() >>> 8);
+                out.writeByte(slice.getKey() & 0xFF);
+                out.writeShort(0);
+                out.writeInt(start);
+                out.writeInt(slice.getValue().size());
+                start += slice.getValue().size();
+            }
+            for (List<Integer> ordinals : slices.values()) {
+                for (int ordinal : ordinals) out.writeInt(ordinal);
+            }
+            pool.writeTo(out);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return records.length;
+    }
+
+    private static List<Entry> read(Path csv) throws IOException {
+        Map<String, Entry> rows = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            CsvRecordReader records = new CsvRecordReader(reader);
+            List<String> header = records.next();
+            if (header == null) return new ArrayList<>();
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).replace("\uFEFF", "").trim().toLowerCase(), i);
+            }
+            String[] names = {"word", "translation", "transcription", "level", "lang"};
+            List<String> record;
+            while ((record = records.next()) != null) {
+                String[] row = new String[names.length];
+                for (int i = 0; i < names.length; i++) {
+                    Integer index = columns.get(names[i]);
+                    String value = index == null || index >= record.size() ? "" : record.get(index).trim();
+                    row[i] = value.isEmpty() ? null : value;
+                }
+                if (row[0] == null || row[1] == null || row[3] == null || row[4] == null) continue;
+                String key = row[4] + '\u0000' + row[0];
+                rows.remove(key);
+                rows.put(key, new Entry(0, row[0], row[1], row[2], row[3], row[4]));
+            }
+        }
+        return new ArrayList<>(rows.values());
+    }
+
+    private static int symbol(String value, Pool pool, Map<String, Integer> ids, List<Integer> offsets) throws IOException {
+        Integer id = ids.get(value);
+        if (id != null) return id;
+        if (offsets.size() == 256) throw new IOException("more than 256 distinct level / language values");
+        ids.put(value, offsets.size());
+        offsets.add(pool.add(value));
+        return offsets.size() - 1;
+    }
+
+    // Deduplicating UTF-8 string pool; every entry is a u16 length and the bytes.
+    private static final class Pool {
+        private final Map<String, Integer> offsets = new HashMap<>();
+        private final List<byte[]> entries = new ArrayList<>();
+        private int size;
+
+        int add(String value) throws IOException {
+            Integer existing = offsets.get(value);
+            if (existing != null) return existing;
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xFFFF) throw new IOException("string longer than 65535 bytes: " + value.substring(0, 40));
+            int offset = size;
+            offsets.put(value, offset);
+            entries.add(bytes);
+            size += 2 + bytes.length;
+            return offset;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            for (byte[] bytes : entries) {
+                out.writeShort(bytes.length);
+                out.write(bytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.languageteacherbot.service;
+
+import com.example.languageteacherbot.entity.Word;
+import com.example.languageteacherbot.telegram.RawJson;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dictionary pages rendered once per (catalog version, languages, level, page): the message text
+ * and the already serialized inline keyboard. Bounded LRU. A catalog reload is not a flush: pages
+ * of older versions simply stop matching and age out, while pages of the current version stay.
+ */
+@Component
+public class DictionaryPageCache implements StatsSource {
+
+    public static final int PAGE_SIZE = 30;
+    private static final int WORDS_PER_ROW = 5;
+
+    @Autowired
+    private WordCatalog wordCatalog;
+
+    @Value("${telegram.dictionary.page-cache-size:512}")
+    private int maxPages;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Key, RenderedPage> pages = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, RenderedPage> eldest) {
+            if (size() > Math.max(1, maxPages)) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong staleRenders = new AtomicLong();
+
+    /**
+     * Returns the page with the given number, clamped to the pages that exist; an empty level
+     * renders as a single empty page.
+     */
+    public RenderedPage page(String targetLang, String nativeLang, String level, int page, boolean withLevelHeader) {
+        WordCatalog.Snapshot catalog = wordCatalog.current();
+        long version = catalog.version();
+        List<Word> words = wordCatalog.byLevel(catalog, targetLang, level);
+        int totalPages = Math.max(1, (words.size() + PAGE_SIZE - 1) / PAGE_SIZE);
+        int clamped = Math.max(0, Math.min(page, totalPages - 1));
+        Key key = new Key(version, targetLang, nativeLang, level, clamped, withLevelHeader);
+
+        synchronized (pages) {
+            RenderedPage cached = pages.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+        misses.incrementAndGet();
+        RenderedPage rendered = render(words, nativeLang, level, clamped, totalPages, withLevelHeader);
+        if (wordCatalog.version() != version) {
+            // A reload happened while rendering; nobody will ask for this version again.
+            staleRenders.incrementAndGet();
+            return rendered;
+        }
+        synchronized (pages) {
+            pages.put(key, rendered);
+        }
+        return rendered;
+    }
+
+    private RenderedPage render(List<Word> words, String nativeLang, String level, int page, int totalPages, boolean withLevelHeader) {
+        boolean ru = "ru".equals(nativeLang);
+        int fromIndex = Math.min(page * PAGE_SIZE, words.size());
+        List<Word> wordsOnPage = words.subList(fromIndex, Math.min(fromIndex + PAGE_SIZE, words.size()));
+
+        StringBuilder sb = new StringBuilder();
+        if (withLevelHeader) {
+            String levelDisplay = WordCatalog.ALL_LEVELS.equals(level) ? (ru ? "Все уровни" : "所有级别") : level;
+            sb.append(ru ? "📖 Словарь - Уровень *" : "📖 词典 - 级别 *").append(levelDisplay).append("* (");
+        } else {
+            sb.append(ru ? "📖 Словарь (" : "📖 词典 (");
+        }
+        sb.append(page + 1).append("/").append(totalPages).append("):\n\n");
+        sb.append(ru ? "Нажми на звезду ⭐ чтобы добавить слово в избранное\n\n" : "点击星星 ⭐ 将单词添加到收藏\n\n");
+
+        for (int i = 0; i < wordsOnPage.size(); i++) {
+            Word w = wordsOnPage.get(i);
+            sb.append(fromIndex + i + 1).append(". ").append(w.getWord());
+            if (w.getTranscription() != null && !w.getTranscription().isEmpty()) {
+                sb.append(" (").append(w.getTranscription()).append(")");
+            }
+            sb.append(" — ").append(w.getTranslation()).append("\n");
+        }
+
+        return new RenderedPage(sb.toString(), serialize(keyboard(wordsOnPage, fromIndex, page, totalPages, ru, level)),
+                page, totalPages);
+    }
+
+    private InlineKeyboardMarkup keyboard(List<Word> wordsOnPage, int fromIndex, int page, int totalPages, boolean ru, String level) {
+        List<List<InlineKeyboardButton>> rows = new ArrayList<>();
+        for (int i = 0; i < wordsOnPage.size(); i += WORDS_PER_ROW) {
+            List<InlineKeyboardButton> row = new ArrayList<>();
+            for (int j = i; j < Math.min(i + WORDS_PER_ROW, wordsOnPage.size()); j++) {
+                row.add(button("⭐ " + (fromIndex + j + 1), "dict_favorite:" + wordsOnPage.get(j).getId()));
+            }
+            rows.add(row);
+        }
+
+        List<InlineKeyboardButton> navRow = new ArrayList<>();
+        if (page > 0) {
+            navRow.add(button(ru ? "⬅️ Назад" : "⬅️ 上一页", "dict_prev:" + (page - 1) + ":" + level));
+        }
+        if (page < totalPages - 1) {
+            navRow.add(button(ru ? "Вперёд ➡️" : "下一页 ➡️", "dict_next:" + (page + 1) + ":" + level));
+        }
+        if (!navRow.isEmpty()) {
+            rows.add(navRow);
+        }
+        rows.add(List.of(button(ru ? "🔙 Главное меню" : "🔙 主菜单", "main_menu")));
+
+        InlineKeyboardMarkup keyboard = new InlineKeyboardMarkup();
+        keyboard.setKeyboard(rows);
+        return keyboard;
+    }
+
+    private InlineKeyboardButton button(String text, String callbackData) {
+        InlineKeyboardButton button = new InlineKeyboardButton();
+        button.setText(text);
+        button.setCallbackData(callbackData);
+        return button;
+    }
+
+    private RawJson serialize(InlineKeyboardMarkup keyboard) {
+        try {
+            return new RawJson(objectMapper.writeValueAsString(keyboard));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize dictionary keyboard", e);
+        }
+    }
+
+    @Override
+    public String statsName() {
+        return "dictionaryPages";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (pages) {
+            stats.put("size", pages.size());
+        }
+        stats.put("capacity", maxPages);
+        stats.put("hits", hitCount);
+        stats.put("misses", misses.get());
+        stats.put("hitRatePercent", total == 0 ? 100 : hitCount * 100 / total);
+        stats.put("evictions", evictions.get());
+        stats.put("staleRenders", staleRenders.get());
+        return stats;
+    }
+
+    public record RenderedPage(String text, RawJson keyboard, int page, int totalPages) {}
+
+    private record Key(long catalogVersion, String targetLang, String nativeLang, String level, int page,
+                       boolean withLevelHeader) {}
+}
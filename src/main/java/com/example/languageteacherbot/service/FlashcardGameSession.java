@@ -0,0 +1,61 @@
+package com.example.languageteacherbot.service;
+
+/**
+ * A running flashcard game. Only the picked word ids are kept; the words themselves are resolved
+ * when a card is shown, against the catalog snapshot the game started with, so a catalog reload
+ * never changes the words of a game in progress.
+ *
+ * Progress only moves through the synchronized advance methods, which score and move to the next
+ * card in one step; the session snapshotter reads the counters under the same monitor.
+ */
+class FlashcardGameSession implements ChatSessionStore.Weighted {
+    private final Long userId;
+    private final String gameType;
+    private final WordCatalog.Snapshot catalog;
+    private final long[] wordIds;
+    private int currentIndex;
+    private int correctCount = 0;
+    private int dontKnowCount = 0;
+    private final long startTime;
+    private final boolean useMyWordsOnly;
+    private final String gameLevel;
+
+    public FlashcardGameSession(Long userId, String gameType, WordCatalog.Snapshot catalog, long[] wordIds, int currentIndex, boolean useMyWordsOnly, String gameLevel) {
+        this(userId, gameType, catalog, wordIds, currentIndex, 0, 0, System.currentTimeMillis(), useMyWordsOnly, gameLevel);
+    }
+
+    // Used when a game is restored from a session snapshot.
+    FlashcardGameSession(Long userId, String gameType, WordCatalog.Snapshot catalog, long[] wordIds, int currentIndex,
+                         int correctCount, int dontKnowCount, long startTime, boolean useMyWordsOnly, String gameLevel) {
+        this.userId = userId;
+        this.gameType = gameType;
+        this.catalog = catalog;
+        this.wordIds = wordIds;
+        this.currentIndex = currentIndex;
+        this.correctCount = correctCount;
+        this.dontKnowCount = dontKnowCount;
+        this.startTime = startTime;
+        this.useMyWordsOnly = useMyWordsOnly;
+        this.gameLevel = gameLevel;
+    }
+
+    public Long getUserId() { return userId; }
+    public String getGameType() { return gameType; }
+    public String getGameLevel() { return gameLevel; }
+    public WordCatalog.Snapshot getCatalog() { return catalog; }
+    public int size() { return wordIds.length; }
+    public long wordIdAt(int index) { return wordIds[index]; }
+    public long currentWordId() { return wordIds[currentIndex]; }
+    public boolean isFinished() { return currentIndex >= wordIds.length; }
+    public int getCurrentIndex() { return currentIndex; }
+    public int getCorrectCount() { return correctCount; }
+    public int getDontKnowCount() { return dontKnowCount; }
+    public synchronized void advance() { currentIndex++; }
+    public synchronized void advanceCorrect() { correctCount++; currentIndex++; }
+    public synchronized void advanceDontKnow() { dontKnowCount++; currentIndex++; }
+    public long getStartTime() { return startTime; }
+    public boolean isUseMyWordsOnly() { return useMyWordsOnly; }
+
+    @Override
+    public int weight() { return wordIds.length; }
+}
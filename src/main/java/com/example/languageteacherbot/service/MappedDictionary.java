@@ -0,0 +1,213 @@
+package com.example.languageteacherbot.service;
+
+import com.example.languageteacherbot.entity.CefrLevel;
+import com.example.languageteacherbot.entity.Word;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only, memory-mapped view of a dictionary file written by {@link DictionaryCompiler}. Nothing
+ * but the handful of level / language symbols is copied onto the heap; strings are decoded from
+ * the mapping when a word is asked for.
+ *
+ * Layout (big-endian): a 48 byte header of section offsets and the pool offset of the export
+ * stamp, the symbol table (pool offsets of the deduplicated level and language strings), fixed
+ * 24 byte word records (three string offsets, level and language symbol, database id), the ordinals sorted by
+ * (language, word) for lookups, the (language, level) slices, and the UTF-8 string pool where
+ * every entry is an unsigned 16 bit length followed by its bytes.
+ */
+public final class MappedDictionary {
+
+    static final int MAGIC = 0x54474431; // "TGD1"
+    static final int FORMAT_VERSION = 2;
+    static final int HEADER_BYTES = 48;
+    static final int RECORD_BYTES = 24;
+    static final int SLICE_BYTES = 12;
+    static final int NO_STRING = -1;
+
+    private final Path path;
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int recordsOffset;
+    private final int keysOffset;
+    private final int slicesOffset;
+    private final int poolOffset;
+    private final String[] symbols;
+    private final String stamp;
+
+    private MappedDictionary(Path path, ByteBuffer buffer) throws IOException {
+        this.path = path;
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) throw new IOException(path + " is not a dictionary file");
+        if (buffer.getInt(4) != FORMAT_VERSION) throw new IOException(path + " has unsupported format " + buffer.getInt(4));
+        count = buffer.getInt(8);
+        int symbolCount = buffer.getInt(12);
+        int symbolsOffset = buffer.getInt(16);
+        recordsOffset = buffer.getInt(20);
+        keysOffset = buffer.getInt(24);
+        slicesOffset = buffer.getInt(28);
+        poolOffset = buffer.getInt(32);
+        if ((long) poolOffset + buffer.getInt(36) != buffer.limit()) throw new IOException(path + " is truncated");
+        symbols = new String[symbolCount];
+        for (int i = 0; i < symbolCount; i++) {
+            symbols[i] = string(buffer.getInt(symbolsOffset + i * 4)).intern();
+        }
+        stamp = string(buffer.getInt(40));
+    }
+
+    public static MappedDictionary open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new MappedDictionary(path, mapped);
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public long mappedBytes() {
+        return buffer.limit();
+    }
+
+    /**
+     * What the file was exported from, or null for a file compiled from a CSV.
+     */
+    public String stamp() {
+        return stamp;
+    }
+
+    /**
+     * Database id of the record; 0 in a file compiled from a CSV.
+     */
+    public long id(int ordinal) {
+        return buffer.getLong(record(ordinal) + 16);
+    }
+
+    public String word(int ordinal) {
+        return string(buffer.getInt(record(ordinal)));
+    }
+
+    public String translation(int ordinal) {
+        return string(buffer.getInt(record(ordinal) + 4));
+    }
+
+    public String transcription(int ordinal) {
+        return string(buffer.getInt(record(ordinal) + 8));
+    }
+
+    public String level(int ordinal) {
+        return symbols[buffer.get(record(ordinal) + 12) & 0xFF];
+    }
+
+    public String lang(int ordinal) {
+        return symbols[buffer.get(record(ordinal) + 13) & 0xFF];
+    }
+
+    /**
+     * A detached {@link Word} for the given record; nothing keeps a reference to it.
+     */
+    public Word toWord(int ordinal) {
+        return toWord(ordinal, id(ordinal));
+    }
+
+    public Word toWord(int ordinal, Long id) {
+        String level = level(ordinal);
+        return new Word(id, word(ordinal), translation(ordinal), level, lang(ordinal), transcription(ordinal),
+                CefrLevel.rankOf(level));
+    }
+
+    /**
+     * Ordinal of the (word, lang) record, or -1. Binary search over the key table, comparing the
+     * mapped UTF-8 bytes in place.
+     */
+    public int ordinalOf(String word, String lang) {
+        int langSymbol = symbol(lang);
+        if (langSymbol < 0) return -1;
+        byte[] key = word.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int ordinal = buffer.getInt(keysOffset + middle * 4);
+            int cmp = Integer.compare(buffer.get(record(ordinal) + 13) & 0xFF, langSymbol);
+            if (cmp == 0) cmp = comparePooled(buffer.getInt(record(ordinal)), key);
+            if (cmp < 0) {
+                low = middle + 1;
+            } else if (cmp > 0) {
+                high = middle - 1;
+            } else {
+                return ordinal;
+            }
+        }
+        return -1;
+    }
+
+    public int sliceCount() {
+        return buffer.getInt(slicesOffset);
+    }
+
+    public String sliceLang(int slice) {
+        return symbols[buffer.get(slice(slice)) & 0xFF];
+    }
+
+    public String sliceLevel(int slice) {
+        return symbols[buffer.get(slice(slice) + 1) & 0xFF];
+    }
+
+    public int sliceLength(int slice) {
+        return buffer.getInt(slice(slice) + 8);
+    }
+
+    /**
+     * Ordinal of the i-th word (in file order) of a (language, level) slice.
+     */
+    public int sliceOrdinal(int slice, int i) {
+        int ordinals = slicesOffset + 4 + sliceCount() * SLICE_BYTES;
+        return buffer.getInt(ordinals + (buffer.getInt(slice(slice) + 4) + i) * 4);
+    }
+
+    private int record(int ordinal) {
+        return recordsOffset + ordinal * RECORD_BYTES;
+    }
+
+    private int slice(int slice) {
+        return slicesOffset + 4 + slice * SLICE_BYTES;
+    }
+
+    private int symbol(String value) {
+        for (int i = 0; i < symbols.length; i++) {
+            if (symbols[i].equals(value)) return i;
+        }
+        return -1;
+    }
+
+    private String string(int offset) {
+        if (offset == NO_STRING) return null;
+        int position = poolOffset + offset;
+        byte[] bytes = new byte[buffer.getShort(position) & 0xFFFF];
+        buffer.get(position + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int comparePooled(int offset, byte[] key) {
+        int position = poolOffset + offset;
+        int length = buffer.getShort(position) & 0xFFFF;
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = Integer.compare(buffer.get(position + 2 + i) & 0xFF, key[i] & 0xFF);
+            if (cmp != 0) return cmp;
+        }
+        return Integer.compare(length, key.length);
+    }
+}
@@ -0,0 +1,329 @@
+package com.example.languageteacherbot.service;
+
+import com.example.languageteacherbot.telegram.TelegramApiClient;
+import com.example.languageteacherbot.telegram.TelegramApiException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class OutboundMessageScheduler implements StatsSource {
+
+    @Autowired
+    private TelegramApiClient telegramApiClient;
+
+    @Value("${telegram.outbound.global-rate:30}")
+    private double globalRate;
+
+    @Value("${telegram.outbound.per-chat-rate:1}")
+    private double perChatRate;
+
+    @Value("${telegram.outbound.per-chat-burst:3}")
+    private int perChatBurst;
+
+    @Value("${telegram.outbound.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${telegram.outbound.max-queued-per-chat:100}")
+    private int maxQueuedPerChat;
+
+    @Value("${telegram.outbound.max-in-flight:64}")
+    private int maxInFlight;
+
+    private final Map<Long, ChatQueue> chats = new ConcurrentHashMap<>();
+    private final Queue<CapacityWaiter> capacityWaiters = new ConcurrentLinkedQueue<>();
+    private final DelayQueue<ChatQueue> ready = new DelayQueue<>();
+    private TokenBucket globalBucket;
+    private Semaphore inFlight;
+    private Thread pacer;
+    private volatile boolean running;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong sendNanosTotal = new AtomicLong();
+    private final AtomicLong deliveryNanosTotal = new AtomicLong();
+    private final AtomicLong maxDeliveryNanos = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        globalBucket = new TokenBucket(globalRate, globalRate);
+        inFlight = new Semaphore(Math.max(1, maxInFlight));
+        running = true;
+        pacer = new Thread(this::runPacer, "outbound-pacer");
+        pacer.setDaemon(true);
+        pacer.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (queued.get() > 0 && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        running = false;
+        pacer.interrupt();
+    }
+
+    public CompletableFuture<Map<String, Object>> submit(Long chatId, String method, Map<String, Object> payload) {
+        OutboundMessage message = new OutboundMessage(method, payload, System.nanoTime());
+        while (true) {
+            ChatQueue queue = chats.computeIfAbsent(chatId, id -> new ChatQueue(id, new TokenBucket(perChatRate, perChatBurst)));
+            synchronized (queue) {
+                if (queue.retired) continue;
+                if (queue.pending.size() >= maxQueuedPerChat) {
+                    dropped.incrementAndGet();
+                    System.err.println("Dropping " + method + " for chat " + chatId + ": outbound queue full");
+                    message.result.completeExceptionally(new IllegalStateException("outbound queue full"));
+                    return message.result;
+                }
+                queue.pending.add(message);
+                queued.incrementAndGet();
+                if (!queue.scheduled) {
+                    queue.scheduled = true;
+                    queue.readyAt = System.nanoTime() + queue.bucket.nanosUntilAvailable();
+                    ready.add(queue);
+                }
+                return message.result;
+            }
+        }
+    }
+
+    public int queuedTotal() {
+        return queued.get();
+    }
+
+    /**
+     * Completes once no more than {@code watermark} messages are queued, so producers can hold
+     * back new work without polling {@link #queuedTotal()}.
+     */
+    public CompletableFuture<Void> whenQueuedAtMost(int watermark) {
+        if (queued.get() <= watermark) return CompletableFuture.completedFuture(null);
+        CapacityWaiter waiter = new CapacityWaiter(watermark, new CompletableFuture<>());
+        capacityWaiters.add(waiter);
+        // A message may have left the queue between the check and the registration.
+        signalCapacity();
+        return waiter.future();
+    }
+
+    private void signalCapacity() {
+        if (capacityWaiters.isEmpty()) return;
+        int current = queued.get();
+        capacityWaiters.removeIf(waiter -> {
+            if (current > waiter.watermark() && !waiter.future().isDone()) return false;
+            waiter.future().complete(null);
+            return true;
+        });
+    }
+
+    private void runPacer() {
+        while (running) {
+            ChatQueue queue;
+            OutboundMessage message;
+            try {
+                queue = ready.poll(500, TimeUnit.MILLISECONDS);
+                if (queue == null) continue;
+                // Only the pacer takes messages off a queue, so the head stays put until it is sent.
+                synchronized (queue) {
+                    message = queue.pending.peek();
+                    if (message == null) {
+                        queue.scheduled = false;
+                        continue;
+                    }
+                }
+                globalBucket.acquire();
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            queue.bucket.consume();
+            long started = System.nanoTime();
+            telegramApiClient.call(message.method, message.payload)
+                    .whenComplete((result, error) -> {
+                        inFlight.release();
+                        long retryDelay = error == null
+                                ? delivered(message, result, started)
+                                : failed(message, TelegramApiClient.unwrap(error));
+                        reschedule(queue, retryDelay);
+                        // Only now, so a caller woken by the result no longer sees it counted as queued.
+                        if (retryDelay < 0) message.finish();
+                    });
+        }
+    }
+
+    private long delivered(OutboundMessage message, Map<String, Object> result, long started) {
+        long finished = System.nanoTime();
+        sent.incrementAndGet();
+        sendNanosTotal.addAndGet(finished - started);
+        long delivery = finished - message.enqueuedAt;
+        deliveryNanosTotal.addAndGet(delivery);
+        maxDeliveryNanos.accumulateAndGet(delivery, Math::max);
+        message.response = result;
+        return -1;
+    }
+
+    private long failed(OutboundMessage message, Throwable error) {
+        if (error instanceof TelegramApiException apiError) {
+            if (apiError.isRateLimited()) {
+                long retryAfter = TimeUnit.SECONDS.toNanos(Math.max(1, apiError.getRetryAfterSeconds()));
+                // Flood limits apply to the whole bot, not just the chat that hit them.
+                globalBucket.pause(retryAfter);
+                rateLimited.incrementAndGet();
+                return retryOrDrop(message, retryAfter, error);
+            }
+            if (!apiError.isServerError()) {
+                dropped.incrementAndGet();
+                System.err.println("Dropping " + message.method + ": " + apiError.getMessage());
+                message.failure = error;
+                return -1;
+            }
+        }
+        return retryOrDrop(message, backoffNanos(message.attempts), error);
+    }
+
+    private void reschedule(ChatQueue queue, long retryDelay) {
+        synchronized (queue) {
+            if (retryDelay < 0) {
+                queue.pending.poll();
+                queued.decrementAndGet();
+            }
+            if (queue.pending.isEmpty()) {
+                queue.scheduled = false;
+            } else {
+                queue.readyAt = System.nanoTime() + Math.max(retryDelay, queue.bucket.nanosUntilAvailable());
+                ready.add(queue);
+            }
+        }
+        // Outside the queue lock: completing a waiter runs its continuation on this thread.
+        if (retryDelay < 0) signalCapacity();
+    }
+
+    private long retryOrDrop(OutboundMessage message, long delayNanos, Throwable error) {
+        message.attempts++;
+        if (message.attempts >= maxAttempts) {
+            dropped.incrementAndGet();
+            System.err.println("Dropping " + message.method + " after " + message.attempts + " attempts: " + error.getMessage());
+            message.failure = error;
+            return -1;
+        }
+        retries.incrementAndGet();
+        long jitter = ThreadLocalRandom.current().nextLong(TimeUnit.MILLISECONDS.toNanos(250));
+        return delayNanos + jitter;
+    }
+
+    private long backoffNanos(int attempts) {
+        return TimeUnit.MILLISECONDS.toNanos(500L << Math.min(attempts, 6));
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdleChats() {
+        for (ChatQueue queue : chats.values()) {
+            synchronized (queue) {
+                if (!queue.scheduled && queue.pending.isEmpty() && queue.bucket.isFull()) {
+                    queue.retired = true;
+                    chats.remove(queue.chatId, queue);
+                }
+            }
+        }
+    }
+
+    @Override
+    public String statsName() {
+        return "outbound";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        long sentCount = sent.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", queued.get());
+        stats.put("inFlight", maxInFlight - inFlight.availablePermits());
+        stats.put("activeChats", chats.size());
+        stats.put("sent", sentCount);
+        stats.put("dropped", dropped.get());
+        stats.put("retries", retries.get());
+        stats.put("rateLimited", rateLimited.get());
+        stats.put("avgSendMs", sentCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(sendNanosTotal.get() / sentCount));
+        stats.put("avgDeliveryMs", sentCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(deliveryNanosTotal.get() / sentCount));
+        stats.put("maxDeliveryMs", TimeUnit.NANOSECONDS.toMillis(maxDeliveryNanos.get()));
+        return stats;
+    }
+
+    private record CapacityWaiter(int watermark, CompletableFuture<Void> future) {}
+
+    private static final class OutboundMessage {
+        private final String method;
+        private final Map<String, Object> payload;
+        private final long enqueuedAt;
+        private final CompletableFuture<Map<String, Object>> result = new CompletableFuture<>();
+        private int attempts;
+        // Outcome of the last attempt, handed to the caller once the message has left the queue.
+        private Map<String, Object> response;
+        private Throwable failure;
+
+        OutboundMessage(String method, Map<String, Object> payload, long enqueuedAt) {
+            this.method = method;
+            this.payload = payload;
+            this.enqueuedAt = enqueuedAt;
+        }
+
+        void finish() {
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(response);
+            }
+        }
+    }
+
+    private static final class ChatQueue implements Delayed {
+        private final Long chatId;
+        private final TokenBucket bucket;
+        private final ArrayDeque<OutboundMessage> pending = new ArrayDeque<>();
+        private volatile long readyAt;
+        private boolean scheduled;
+        private boolean retired;
+
+        ChatQueue(Long chatId, TokenBucket bucket) {
+            this.chatId = chatId;
+            this.bucket = bucket;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(readyAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(readyAt, ((ChatQueue) other).readyAt);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.languageteacherbot.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Draws k distinct items in random order with a partial Fisher–Yates shuffle. Only the swapped
+ * positions are remembered, so picking 10 words out of a 5 000 word level costs about 10 steps
+ * instead of copying and shuffling the whole level.
+ */
+public final class RandomSampler {
+
+    private RandomSampler() {}
+
+    /**
+     * Random positions in [0, n), at most k of them, skipping positions the exclusion rejects.
+     * Fewer than k positions are returned only when the range runs out.
+     */
+    public static int[] samplePositions(int n, int k, IntPredicate excluded) {
+        int wanted = Math.max(0, Math.min(k, n));
+        int[] picked = new int[wanted];
+        if (wanted == 0) return picked;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Swaps swaps = wanted * 4 >= n ? new DenseSwaps(n) : new SparseSwaps(wanted);
+        int count = 0;
+        for (int i = 0; i < n && count < wanted; i++) {
+            int j = i + random.nextInt(n - i);
+            int value = swaps.get(j);
+            swaps.set(j, swaps.get(i));
+            if (excluded == null || !excluded.test(value)) {
+                picked[count++] = value;
+            }
+        }
+        return count == wanted ? picked : Arrays.copyOf(picked, count);
+    }
+
+    public static long[] sample(long[] ids, int k, LongPredicate excluded) {
+        int[] positions = samplePositions(ids.length, k, excluded == null ? null : p -> excluded.test(ids[p]));
+        long[] sampled = new long[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            sampled[i] = ids[positions[i]];
+        }
+        return sampled;
+    }
+
+    /**
+     * Same as {@link #sample(long[], int, LongPredicate)} for a random-access list, e.g. a
+     * {@link WordCatalog} slice.
+     */
+    public static <T> List<T> sample(List<T> items, int k, Predicate<T> excluded) {
+        int[] positions = samplePositions(items.size(), k, excluded == null ? null : p -> excluded.test(items.get(p)));
+        Object[] sampled = new Object[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            sampled[i] = items.get(positions[i]);
+        }
+        @SuppressWarnings("unchecked")
+        List<T> result = (List<T>) Arrays.asList(sampled);
+        return result;
+    }
+
+    private interface Swaps {
+        int get(int position);
+        void set(int position, int value);
+    }
+
+    private static final class DenseSwaps implements Swaps {
+        private final int[] values;
+
+        DenseSwaps(int n) {
+            values = new int[n];
+            for (int i = 0; i < n; i++) values[i] = i;
+        }
+
+        public int get(int position) { return values[position]; }
+        public void set(int position, int value) { values[position] = value; }
+    }
+
+    private static final class SparseSwaps implements Swaps {
+        private final Map<Integer, Integer> values;
+
+        SparseSwaps(int expected) {
+            values = new HashMap<>(Math.max(16, expected * 4));
+        }
+
+        public int get(int position) { return values.getOrDefault(position, position); }
+        public void set(int position, int value) { values.put(position, value); }
+    }
+}
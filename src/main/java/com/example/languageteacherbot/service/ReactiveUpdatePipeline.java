@@ -0,0 +1,317 @@
+package com.example.languageteacherbot.service;
+
+import com.example.languageteacherbot.telegram.TelegramApiException;
+import com.example.languageteacherbot.telegram.TelegramUpdate;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Alternative to {@link UpdatePoller} + {@link UpdateDispatcher}: getUpdates, decode, route and
+ * handle run as one Reactor pipeline with bounded buffers between stages. getUpdates is only
+ * called when the stages downstream request more work, and only once the outbound queue is back
+ * under its high watermark, so a slow database or a slow Telegram throttles intake instead of
+ * piling up updates.
+ *
+ * The update offset reported to {@link SessionSnapshotter} only moves past an update once its
+ * handler has run; updates still sitting in a buffer are fetched again after a crash.
+ */
+@Component
+@ConditionalOnProperty(name = "telegram.bot.engine", havingValue = "reactive")
+// Destroyed before the write buffer, so inserts made while draining are still flushed.
+@DependsOn("userWordWriteBuffer")
+public class ReactiveUpdatePipeline implements StatsSource {
+
+    private static final int MAX_LIMIT = 100;
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    @Autowired
+    private TelegramService telegramService;
+
+    @Autowired
+    private OutboundMessageScheduler outboundScheduler;
+
+    @Autowired
+    private SessionSnapshotter snapshotter;
+
+    @Value("${telegram.polling.timeout-seconds:30}")
+    private int timeoutSeconds;
+
+    @Value("${telegram.reactive.shards:8}")
+    private int shardCount;
+
+    @Value("${telegram.reactive.intake-buffer:256}")
+    private int intakeBuffer;
+
+    @Value("${telegram.reactive.stage-buffer:32}")
+    private int stageBuffer;
+
+    @Value("${telegram.reactive.outbound-high-watermark:1000}")
+    private int outboundHighWatermark;
+
+    // Offset getUpdates continues from, and the fetched updates whose handler has not finished.
+    private final AtomicLong fetchedUpdateId = new AtomicLong(0L);
+    private final ConcurrentSkipListSet<Long> unhandled = new ConcurrentSkipListSet<>();
+    private final Stage intake = new Stage();
+    private final Stage decode = new Stage();
+    private final Stage handle = new Stage();
+    private final AtomicLong pollErrors = new AtomicLong();
+    private final AtomicLong throttledNanos = new AtomicLong();
+    private Sinks.Many<Work> injected;
+    private Scheduler intakeScheduler;
+    private Scheduler handleScheduler;
+    private Disposable subscription;
+    private long backoff = 1000;
+
+    @PostConstruct
+    public void start() {
+        int shards = Math.max(1, shardCount);
+        fetchedUpdateId.set(snapshotter.restoredUpdateId());
+        injected = Sinks.many().unicast().onBackpressureBuffer(new ArrayBlockingQueue<>(Math.max(1, intakeBuffer)));
+        intakeScheduler = Schedulers.newSingle("reactive-intake");
+        handleScheduler = Schedulers.newBoundedElastic(shards, shards * Math.max(1, stageBuffer), "reactive-handle");
+
+        Flux<Work> source = telegramService.isWebhookMode()
+                ? injected.asFlux()
+                : Flux.merge(pollingSource(), injected.asFlux());
+
+        subscription = source
+                .groupBy(work -> shardIndex(work.chatId(), shards), stageBuffer)
+                .flatMap(group -> group
+                        .publishOn(handleScheduler, stageBuffer)
+                        .concatMap(this::handle), shards)
+                .subscribe(null, error -> System.err.println("Reactive pipeline terminated: " + error.getMessage()));
+        System.out.println("Reactive update pipeline started with " + shards + " shards");
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscription.dispose();
+        intakeScheduler.dispose();
+        handleScheduler.dispose();
+    }
+
+    public boolean offer(TelegramUpdate update) {
+        intake.received.incrementAndGet();
+        Work work = decode(update);
+        if (work == null) return true;
+        return emit(work);
+    }
+
+    public boolean submit(long chatId, Runnable task) {
+        return emit(new Work(chatId, null, task, System.nanoTime()));
+    }
+
+    /**
+     * Highest update id below which every fetched update has been handled.
+     */
+    public long getLastUpdateId() {
+        // Ids are added to unhandled before fetchedUpdateId moves, so reading in this order never overshoots.
+        long fetched = fetchedUpdateId.get();
+        Long oldest = unhandled.ceiling(Long.MIN_VALUE);
+        return oldest == null ? fetched : Math.min(fetched, oldest - 1);
+    }
+
+    private boolean emit(Work work) {
+        Sinks.EmitResult result;
+        synchronized (injected) {
+            result = injected.tryEmitNext(work);
+        }
+        if (result.isFailure()) {
+            handle.dropped.incrementAndGet();
+            return false;
+        }
+        handle.received.incrementAndGet();
+        return true;
+    }
+
+    private Flux<Work> pollingSource() {
+        return Flux.<List<TelegramUpdate>>generate(sink -> sink.next(fetchBatch()))
+                .subscribeOn(intakeScheduler)
+                .concatMapIterable(batch -> batch, Math.max(1, intakeBuffer / MAX_LIMIT))
+                .handle((update, sink) -> {
+                    Work work = decode(update);
+                    if (work != null) {
+                        handle.received.incrementAndGet();
+                        sink.next(work);
+                    } else {
+                        unhandled.remove(update.updateId());
+                    }
+                });
+    }
+
+    private List<TelegramUpdate> fetchBatch() {
+        if (!telegramService.isPollingActive()) {
+            sleepQuietly(200);
+            return Collections.emptyList();
+        }
+        if (!awaitOutboundCapacity()) return Collections.emptyList();
+        try {
+            List<TelegramUpdate> updates = telegramService.fetchUpdates(
+                    fetchedUpdateId.get() + 1, Math.min(MAX_LIMIT, Math.max(1, intakeBuffer)), timeoutSeconds);
+            if (!updates.isEmpty()) {
+                for (TelegramUpdate update : updates) unhandled.add(update.updateId());
+                fetchedUpdateId.set(updates.get(updates.size() - 1).updateId());
+            }
+            intake.received.addAndGet(updates.size());
+            backoff = 1000;
+            return updates;
+        } catch (Exception e) {
+            pollErrors.incrementAndGet();
+            System.err.println("Error polling updates: " + e.getMessage());
+            if (e instanceof TelegramApiException apiError && apiError.getStatusCode() == 409) {
+                telegramService.onPollingConflict();
+            }
+            sleepQuietly(backoff);
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+            return Collections.emptyList();
+        }
+    }
+
+    private Work decode(TelegramUpdate update) {
+        long started = System.nanoTime();
+        decode.received.incrementAndGet();
+        intake.completed.incrementAndGet();
+        if (!update.hasChat()) {
+            decode.failed.incrementAndGet();
+            return null;
+        }
+        decode.completed(started);
+        return new Work(update.chatId(), update, null, started);
+    }
+
+    private Mono<Void> handle(Work work) {
+        return Mono.fromRunnable(() -> {
+            long started = System.nanoTime();
+            handle.queueNanos.addAndGet(started - work.receivedAt());
+            try {
+                if (work.task() != null) {
+                    work.task().run();
+                } else {
+                    telegramService.processUpdate(work.update());
+                }
+                handle.completed(started);
+            } catch (Throwable e) {
+                // Errors too: anything that escapes here terminates the whole pipeline.
+                handle.failed.incrementAndGet();
+                System.err.println("Error processing update for chat " + work.chatId() + ": " + e);
+            } finally {
+                if (work.update() != null) unhandled.remove(work.update().updateId());
+            }
+        });
+    }
+
+    // Runs on the intake thread only: handlers keep draining the buffers while intake waits for
+    // the outbound scheduler to signal that its queue is back under the watermark.
+    private boolean awaitOutboundCapacity() {
+        CompletableFuture<Void> capacity = outboundScheduler.whenQueuedAtMost(outboundHighWatermark);
+        if (capacity.isDone()) return true;
+        long started = System.nanoTime();
+        try {
+            capacity.get(1, TimeUnit.SECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        } finally {
+            throttledNanos.addAndGet(System.nanoTime() - started);
+        }
+    }
+
+    private int shardIndex(long chatId, int shards) {
+        int h = Long.hashCode(chatId);
+        h ^= (h >>> 16);
+        return Math.floorMod(h * 0x9E3779B9, shards);
+    }
+
+    private boolean sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public String statsName() {
+        return "reactive";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Map<String, Object> intakeStats = intake.stats(intakeBuffer);
+        intakeStats.put("fetchedUpdateId", fetchedUpdateId.get());
+        intakeStats.put("committedUpdateId", getLastUpdateId());
+        intakeStats.put("unhandled", unhandled.size());
+        intakeStats.put("pollErrors", pollErrors.get());
+        stats.put("intake", intakeStats);
+        stats.put("decode", decode.stats(0));
+        stats.put("handle", handle.stats(Math.max(1, shardCount) * stageBuffer));
+        Map<String, Object> outboundStats = new LinkedHashMap<>();
+        outboundStats.put("buffered", outboundScheduler.queuedTotal());
+        outboundStats.put("capacity", outboundHighWatermark);
+        outboundStats.put("throttledMs", TimeUnit.NANOSECONDS.toMillis(throttledNanos.get()));
+        stats.put("outbound", outboundStats);
+        return stats;
+    }
+
+    private record Work(long chatId, TelegramUpdate update, Runnable task, long receivedAt) {}
+
+    private static final class Stage {
+        private final AtomicLong received = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong latencyNanos = new AtomicLong();
+        private final AtomicLong queueNanos = new AtomicLong();
+
+        void completed(long started) {
+            completed.incrementAndGet();
+            latencyNanos.addAndGet(System.nanoTime() - started);
+        }
+
+        Map<String, Object> stats(int capacity) {
+            long done = completed.get();
+            long buffered = Math.max(0, received.get() - done - failed.get() - dropped.get());
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("received", received.get());
+            stats.put("completed", done);
+            stats.put("failed", failed.get());
+            stats.put("dropped", dropped.get());
+            stats.put("buffered", buffered);
+            if (capacity > 0) stats.put("fillPercent", buffered * 100 / capacity);
+            stats.put("avgLatencyMs", done == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(latencyNanos.get() / done));
+            stats.put("avgQueueMs", done == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(queueNanos.get() / done));
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.languageteacherbot.service;
+
+import com.example.languageteacherbot.entity.CefrLevel;
+import com.example.languageteacherbot.entity.Sentence;
+import com.example.languageteacherbot.repository.SentenceRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-only view of the sentence game corpus, built like {@link WordCatalog}: sentences sorted by
+ * id, with per (language, level) id slices, so games only need to remember sentence ids. Reloads
+ * publish a new {@link Snapshot} with one reference swap.
+ */
+@Component
+@DependsOn("vocabularyImporter")
+public class SentenceCatalog implements StatsSource {
+
+    @Autowired
+    private SentenceRepository sentenceRepository;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @PostConstruct
+    public synchronized void load() {
+        long started = System.currentTimeMillis();
+        int backfilled = sentenceRepository.backfillLevelRanks();
+        if (backfilled > 0) System.out.println("Backfilled level_rank for " + backfilled + " sentences");
+        Snapshot next = Snapshot.build(sentenceRepository.findAll(), snapshot.version + 1);
+        snapshot = next;
+        System.out.println("Sentence catalog version " + next.version + " loaded: " + next.sentences.length
+                + " sentences in " + (System.currentTimeMillis() - started) + " ms");
+    }
+
+    public long version() {
+        return snapshot.version;
+    }
+
+    Snapshot current() {
+        return snapshot;
+    }
+
+    /**
+     * Ids of the sentences of the given level and every level below it. Unknown levels fall back
+     * to A1, the same as the former repository query. The returned array must not be modified.
+     */
+    public long[] idsUpToLevel(String lang, String level) {
+        return idsUpToLevel(snapshot, lang, level);
+    }
+
+    long[] idsUpToLevel(Snapshot current, String lang, String level) {
+        Map<String, long[]> byLevel = current.upToLevel.get(lang);
+        if (byLevel == null) return new long[0];
+        long[] ids = byLevel.get(CefrLevel.fromCode(level) != null ? level : CefrLevel.A1.name());
+        return ids == null ? new long[0] : ids;
+    }
+
+    public Optional<Sentence> findById(long id) {
+        Optional<Sentence> sentence = snapshot.find(id);
+        if (sentence.isPresent()) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return sentence;
+    }
+
+    @Override
+    public String statsName() {
+        return "sentenceCatalog";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Snapshot current = snapshot;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("version", current.version);
+        stats.put("sentences", current.sentences.length);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("indexBytes", current.indexBytes);
+        return stats;
+    }
+
+    static final class Snapshot {
+        private static final Snapshot EMPTY = build(Collections.emptyList(), 0);
+
+        private final long version;
+        private final Sentence[] sentences;
+        private final long[] ids;
+        private final Map<String, Map<String, long[]>> upToLevel = new HashMap<>();
+        private long indexBytes;
+
+        private Snapshot(Sentence[] sentences, long version) {
+            this.version = version;
+            this.sentences = sentences;
+            this.ids = new long[sentences.length];
+            for (int i = 0; i < sentences.length; i++) {
+                ids[i] = sentences[i].getId();
+            }
+        }
+
+        static Snapshot build(List<Sentence> source, long version) {
+            Sentence[] sentences = source.toArray(new Sentence[0]);
+            Arrays.sort(sentences, Comparator.comparing(Sentence::getId));
+            Snapshot snapshot = new Snapshot(sentences, version);
+
+            Map<String, Map<String, List<Long>>> byLevel = new HashMap<>();
+            for (Sentence sentence : sentences) {
+                byLevel.computeIfAbsent(sentence.getLanguage(), k -> new HashMap<>())
+                        .computeIfAbsent(sentence.getLevel(), k -> new ArrayList<>()).add(sentence.getId());
+            }
+            long bytes = snapshot.ids.length * 8L;
+            for (Map.Entry<String, Map<String, List<Long>>> entry : byLevel.entrySet()) {
+                Map<String, long[]> slices = new HashMap<>();
+                List<Long> cumulative = new ArrayList<>();
+                for (CefrLevel cefr : CefrLevel.values()) {
+                    String level = cefr.name();
+                    List<Long> ids = entry.getValue().get(level);
+                    if (ids != null) cumulative.addAll(ids);
+                    long[] slice = new long[cumulative.size()];
+                    for (int i = 0; i < slice.length; i++) slice[i] = cumulative.get(i);
+                    slices.put(level, slice);
+                    bytes += 16 + slice.length * 8L;
+                }
+                snapshot.upToLevel.put(entry.getKey(), slices);
+            }
+            snapshot.indexBytes = bytes;
+            return snapshot;
+        }
+
+        long version() {
+            return version;
+        }
+
+        Optional<Sentence> find(long id) {
+            int position = Arrays.binarySearch(ids, id);
+            return position >= 0 ? Optional.of(sentences[position]) : Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.languageteacherbot.service;
+
+/**
+ * A running sentence game. Holds the ids of the picked sentences, resolved round by round against
+ * the {@link SentenceCatalog} snapshot the game started with. Like {@link FlashcardGameSession},
+ * a round is scored and finished in one synchronized step.
+ */
+class SentenceGameSession implements ChatSessionStore.Weighted {
+    private final Long userId;
+    private final SentenceCatalog.Snapshot catalog;
+    private final long[] sentenceIds;
+    private int currentRound;
+    private int correctCount;
+    private int incorrectCount;
+    private final long startTime;
+
+    public SentenceGameSession(Long userId, SentenceCatalog.Snapshot catalog, long[] candidateIds, int totalRounds) {
+        this.userId = userId;
+        this.catalog = catalog;
+        this.sentenceIds = RandomSampler.sample(candidateIds, totalRounds, null);
+        this.currentRound = 0;
+        this.correctCount = 0;
+        this.incorrectCount = 0;
+        this.startTime = System.currentTimeMillis();
+    }
+
+    // Used when a game is restored from a session snapshot; the sentences are already picked.
+    SentenceGameSession(Long userId, SentenceCatalog.Snapshot catalog, long[] sentenceIds, int currentRound,
+                        int correctCount, int incorrectCount, long startTime) {
+        this.userId = userId;
+        this.catalog = catalog;
+        this.sentenceIds = sentenceIds;
+        this.currentRound = currentRound;
+        this.correctCount = correctCount;
+        this.incorrectCount = incorrectCount;
+        this.startTime = startTime;
+    }
+
+    public Long getUserId() { return userId; }
+    public SentenceCatalog.Snapshot getCatalog() { return catalog; }
+    public int size() { return sentenceIds.length; }
+    public long sentenceIdAt(int index) { return sentenceIds[index]; }
+    public long currentSentenceId() { return sentenceIds[currentRound]; }
+    public int getCurrentRound() { return currentRound; }
+    public int getCorrectCount() { return correctCount; }
+    public int getIncorrectCount() { return incorrectCount; }
+    public synchronized void advance() { currentRound++; }
+    public synchronized void advanceCorrect() { correctCount++; currentRound++; }
+    public synchronized void advanceIncorrect() { incorrectCount++; currentRound++; }
+    public long getStartTime() { return startTime; }
+    public boolean isFinished() { return currentRound >= sentenceIds.length; }
+
+    @Override
+    public int weight() { return sentenceIds.length; }
+}
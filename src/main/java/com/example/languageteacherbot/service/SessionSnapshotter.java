@@ -0,0 +1,336 @@
+package com.example.languageteacherbot.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Periodically writes every chat context (state, paging, running games) and the getUpdates offset
+ * to a compact binary file, and restores them on startup before polling begins. Only contexts
+ * changed since the previous snapshot, plus those with a running game, are re-encoded; the file
+ * is rewritten to a temporary file and atomically moved into place, and read back through a
+ * memory mapping.
+ */
+@Component
+public class SessionSnapshotter implements StatsSource {
+
+    private static final int MAGIC = 0x54475331; // "TGS1"
+    private static final byte NO_GAME = 0;
+    private static final byte FLASHCARD_GAME = 1;
+    private static final byte SENTENCE_GAME = 2;
+
+    @Autowired
+    private ChatSessionStore sessions;
+
+    @Autowired
+    private WordCatalog wordCatalog;
+
+    @Autowired
+    private SentenceCatalog sentenceCatalog;
+
+    @Autowired
+    private ObjectProvider<UpdatePoller> poller;
+
+    @Autowired
+    private ObjectProvider<ReactiveUpdatePipeline> reactivePipeline;
+
+    @Value("${telegram.sessions.snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${telegram.sessions.snapshot.path:data/sessions.snapshot}")
+    private String path;
+
+    private Map<Long, byte[]> encoded = new HashMap<>();
+    private long restoredUpdateId;
+    private List<Long> restoredSentenceGames = List.of();
+    private long lastWrittenUpdateId = -1;
+    private volatile long snapshots;
+    private volatile long lastSnapshotMs;
+    private volatile long lastReencoded;
+    private volatile long lastBytes;
+    private volatile long restoreMs;
+    private volatile int restoredChats;
+    private volatile long failures;
+
+    @PostConstruct
+    public void restore() {
+        Path file = Path.of(path);
+        if (!enabled || !Files.exists(file)) return;
+        long started = System.currentTimeMillis();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            restoredChats = read(buffer);
+            restoreMs = System.currentTimeMillis() - started;
+            System.out.println("Restored " + restoredChats + " chat sessions and update offset " + restoredUpdateId
+                    + " from " + file + " in " + restoreMs + " ms");
+        } catch (Exception e) {
+            failures++;
+            System.err.println("Ignoring unreadable session snapshot " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * The getUpdates offset stored in the snapshot, or 0 when nothing was restored.
+     */
+    public long restoredUpdateId() {
+        return restoredUpdateId;
+    }
+
+    /**
+     * Chats restored in the middle of a sentence game. The timer that shows the next sentence is
+     * not part of the snapshot, so their current sentence has to be sent again.
+     */
+    public List<Long> restoredSentenceGames() {
+        return restoredSentenceGames;
+    }
+
+    @Scheduled(fixedDelayString = "${telegram.sessions.snapshot.interval-ms:10000}")
+    public synchronized void snapshot() {
+        if (!enabled) return;
+        long started = System.currentTimeMillis();
+        long updateId = currentUpdateId();
+        Map<Long, byte[]> next = new HashMap<>(Math.max(16, encoded.size() * 4 / 3));
+        long[] reencoded = new long[1];
+        sessions.forEachContext((chatId, context) -> {
+            byte[] previous = encoded.get(chatId);
+            if (previous == null || context.dirty || context.game() != null) {
+                next.put(chatId, encode(context));
+                context.dirty = false;
+                reencoded[0]++;
+            } else {
+                next.put(chatId, previous);
+            }
+        });
+        if (reencoded[0] == 0 && next.size() == encoded.size() && updateId == lastWrittenUpdateId) {
+            return;
+        }
+
+        try {
+            lastBytes = write(next, updateId);
+            encoded = next;
+            lastWrittenUpdateId = updateId;
+            snapshots++;
+            lastReencoded = reencoded[0];
+            lastSnapshotMs = System.currentTimeMillis() - started;
+            if (lastSnapshotMs > 200) {
+                System.out.println("Slow session snapshot: " + next.size() + " chats (" + reencoded[0]
+                        + " re-encoded), " + lastBytes + " bytes in " + lastSnapshotMs + " ms");
+            }
+        } catch (IOException e) {
+            failures++;
+            // Contexts encoded this round must be written next time.
+            encoded = new HashMap<>();
+            System.err.println("Failed to write session snapshot: " + e.getMessage());
+        }
+    }
+
+    private long currentUpdateId() {
+        UpdatePoller updatePoller = poller.getIfAvailable();
+        if (updatePoller != null) return updatePoller.getLastUpdateId();
+        ReactiveUpdatePipeline pipeline = reactivePipeline.getIfAvailable();
+        if (pipeline != null) return pipeline.getLastUpdateId();
+        return 0;
+    }
+
+    private long write(Map<Long, byte[]> records, long updateId) throws IOException {
+        Path file = Path.of(path);
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        CRC32 crc = new CRC32();
+        long bytes;
+        try (OutputStream raw = Files.newOutputStream(tmp)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(raw, crc), 64 * 1024));
+            out.writeInt(MAGIC);
+            out.writeLong(System.currentTimeMillis());
+            out.writeLong(updateId);
+            out.writeInt(records.size());
+            for (Map.Entry<Long, byte[]> record : records.entrySet()) {
+                out.writeLong(record.getKey());
+                out.writeInt(record.getValue().length);
+                out.write(record.getValue());
+            }
+            out.flush();
+            bytes = out.size();
+            new DataOutputStream(raw).writeLong(crc.getValue());
+        }
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return bytes + Long.BYTES;
+    }
+
+    private static byte[] encode(ChatContext context) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            ConversationState state = context.state();
+            out.writeByte(state == null ? -1 : state.ordinal());
+            Integer page = context.dictionaryPage();
+            out.writeInt(page == null ? -1 : page);
+            writeString(out, context.myWordsSection());
+            writeString(out, context.dictionaryLevel());
+
+            // Dispatcher threads move games forward without the stripe lock; the game's own monitor
+            // makes the counters a consistent copy (see FlashcardGameSession).
+            if (context.game() instanceof FlashcardGameSession game) {
+                out.writeByte(FLASHCARD_GAME);
+                writeString(out, game.getGameType());
+                writeString(out, game.getGameLevel());
+                out.writeBoolean(game.isUseMyWordsOnly());
+                synchronized (game) {
+                    out.writeInt(game.getCurrentIndex());
+                    out.writeInt(game.getCorrectCount());
+                    out.writeInt(game.getDontKnowCount());
+                }
+                out.writeLong(game.getStartTime());
+                out.writeInt(game.size());
+                for (int w = 0; w < game.size(); w++) out.writeLong(game.wordIdAt(w));
+            } else if (context.game() instanceof SentenceGameSession game) {
+                out.writeByte(SENTENCE_GAME);
+                synchronized (game) {
+                    out.writeInt(game.getCurrentRound());
+                    out.writeInt(game.getCorrectCount());
+                    out.writeInt(game.getIncorrectCount());
+                }
+                out.writeLong(game.getStartTime());
+                out.writeInt(game.size());
+                for (int s = 0; s < game.size(); s++) out.writeLong(game.sentenceIdAt(s));
+            } else {
+                out.writeByte(NO_GAME);
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private int read(ByteBuffer buffer) throws IOException {
+        int contentLength = buffer.limit() - Long.BYTES;
+        if (contentLength < 24) throw new IOException("truncated");
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().limit(contentLength));
+        if (crc.getValue() != buffer.getLong(contentLength)) throw new IOException("checksum mismatch");
+        if (buffer.getInt() != MAGIC) throw new IOException("not a session snapshot");
+
+        buffer.getLong();
+        long updateId = buffer.getLong();
+        int count = buffer.getInt();
+        ConversationState[] states = ConversationState.values();
+        Map<Long, ChatContext> contexts = new HashMap<>(Math.max(16, count * 4 / 3));
+        List<Long> sentenceGames = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            long chatId = buffer.getLong();
+            int length = buffer.getInt();
+            int end = buffer.position() + length;
+            ChatContext context = new ChatContext();
+            byte state = buffer.get();
+            if (state >= 0 && state < states.length) context.state(states[state]);
+            int page = buffer.getInt();
+            if (page >= 0) context.dictionaryPage(page);
+            context.myWordsSection(readString(buffer));
+            context.dictionaryLevel(readString(buffer));
+
+            byte game = buffer.get();
+            if (game == FLASHCARD_GAME) {
+                String gameType = readString(buffer);
+                String gameLevel = readString(buffer);
+                boolean useMyWordsOnly = buffer.get() != 0;
+                int currentIndex = buffer.getInt();
+                int correct = buffer.getInt();
+                int dontKnow = buffer.getInt();
+                long startTime = buffer.getLong();
+                long[] wordIds = new long[buffer.getInt()];
+                for (int w = 0; w < wordIds.length; w++) wordIds[w] = buffer.getLong();
+                context.game(new FlashcardGameSession(chatId, gameType, wordCatalog.current(), wordIds, currentIndex,
+                        correct, dontKnow, startTime, useMyWordsOnly, gameLevel));
+            } else if (game == SENTENCE_GAME) {
+                int currentRound = buffer.getInt();
+                int correct = buffer.getInt();
+                int incorrect = buffer.getInt();
+                long startTime = buffer.getLong();
+                long[] sentenceIds = new long[buffer.getInt()];
+                for (int s = 0; s < sentenceIds.length; s++) sentenceIds[s] = buffer.getLong();
+                context.game(new SentenceGameSession(chatId, sentenceCatalog.current(), sentenceIds, currentRound,
+                        correct, incorrect, startTime));
+                sentenceGames.add(chatId);
+            }
+            buffer.position(end);
+            contexts.put(chatId, context);
+        }
+
+        int restored = 0;
+        for (Map.Entry<Long, ChatContext> entry : contexts.entrySet()) {
+            if (entry.getValue().isEmpty()) continue;
+            sessions.restore(entry.getKey(), entry.getValue());
+            restored++;
+        }
+        restoredUpdateId = updateId;
+        restoredSentenceGames = sentenceGames;
+        return restored;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String statsName() {
+        return "snapshot";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("snapshots", snapshots);
+        stats.put("lastSnapshotMs", lastSnapshotMs);
+        stats.put("lastReencoded", lastReencoded);
+        stats.put("lastBytes", lastBytes);
+        stats.put("restoredChats", restoredChats);
+        stats.put("restoreMs", restoreMs);
+        stats.put("failures", failures);
+        return stats;
+    }
+}
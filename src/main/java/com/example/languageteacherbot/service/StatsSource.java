@@ -0,0 +1,10 @@
+package com.example.languageteacherbot.service;
+
+import java.util.Map;
+
+public interface StatsSource {
+
+    String statsName();
+
+    Map<String, Object> stats();
+}
@@ -1,33 +1,33 @@
 package com.example.languageteacherbot.service;
 
+import com.example.languageteacherbot.entity.CefrLevel;
 import com.example.languageteacherbot.entity.User;
 import com.example.languageteacherbot.entity.UserFavoriteWord;
 import com.example.languageteacherbot.entity.Word;
 import com.example.languageteacherbot.entity.UserWord;
 import com.example.languageteacherbot.repository.UserFavoriteWordRepository;
-import com.example.languageteacherbot.repository.UserRepository;
-import com.example.languageteacherbot.repository.WordRepository;
 import com.example.languageteacherbot.repository.UserWordRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
-import org.springframework.http.ResponseEntity;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
 import com.example.languageteacherbot.entity.Sentence;
-import com.example.languageteacherbot.repository.SentenceRepository;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpMethod;
+import com.example.languageteacherbot.telegram.CallbackArgs;
+import com.example.languageteacherbot.telegram.CallbackRouter;
+import com.example.languageteacherbot.telegram.TelegramApiClient;
+import com.example.languageteacherbot.telegram.TelegramUpdate;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 @Service
@@ -37,13 +37,23 @@ public class TelegramService {
     @Value("${telegram.bot.token}")
     private String botToken;
 
-    private final String SEND_MESSAGE_URL = "https://api.telegram.org/bot";
+    @Value("${telegram.bot.mode:polling}")
+    private String botMode;
 
-    @Autowired
-    private UserRepository userRepository;
+    @Value("${telegram.webhook.url:}")
+    private String webhookUrl;
+
+    @Value("${telegram.webhook.secret:}")
+    private String webhookSecret;
+
+    @Value("${telegram.webhook.max-connections:40}")
+    private int webhookMaxConnections;
+
+    @Value("${telegram.polling.allowed-updates:[\"message\",\"callback_query\"]}")
+    private String allowedUpdates;
 
     @Autowired
-    private WordRepository wordRepository;
+    private UserProfileCache userProfiles;
 
     @Autowired
     private UserWordRepository userWordRepository;
@@ -52,25 +62,56 @@ public class TelegramService {
     private UserFavoriteWordRepository userFavoriteWordRepository;
 
     @Autowired
-    private SentenceRepository sentenceRepository;
-
-    private final Map<Long, ConversationState> userStates = new HashMap<>();
-    private final Map<Long, FlashcardGameSession> activeFlashcardGames = new HashMap<>();
-    private final Map<Long, SentenceGameSession> activeSentenceGames = new HashMap<>();
-    private final Map<Long, Map<String, Long>> userWordDeleteMap = new HashMap<>();
-    private final Map<Long, Integer> userDictionaryPage = new ConcurrentHashMap<>();
-    private final Map<Long, String> currentMyWordsSection = new ConcurrentHashMap<>();
-    private final Map<Long, String> userDictionaryLevel = new ConcurrentHashMap<>();
-
-    private final AtomicLong lastUpdateId = new AtomicLong(0L);
-    private final RestTemplate restTemplate;
+    private SentenceCatalog sentenceCatalog;
+
+    @Autowired
+    private WordCatalog wordCatalog;
+
+    @Autowired
+    private DictionaryPageCache dictionaryPages;
+
+    @Autowired
+    private UserWordWriteBuffer userWordWriteBuffer;
+
+    @Autowired
+    private ObjectProvider<UpdateDispatcher> updateDispatcher;
+
+    @Autowired
+    private DelayedTaskScheduler timers;
+
+    @Autowired
+    private OutboundMessageScheduler outboundScheduler;
+
+    @Autowired
+    private TelegramApiClient telegramApiClient;
+
+    @Autowired
+    private ObjectProvider<ReactiveUpdatePipeline> reactivePipeline;
+
+    @Autowired
+    private CallbackRouter callbackRouter;
+
+    @Autowired
+    private SessionSnapshotter snapshotter;
+
+    @Autowired
+    private ConversationStateMachine conversation;
+
+    @Autowired
+    private ChatSessionStore sessions;
+
+    private ChatSessionStore.Slot<ConversationState> userStates;
+    private ChatSessionStore.Slot<FlashcardGameSession> activeFlashcardGames;
+    private ChatSessionStore.Slot<SentenceGameSession> activeSentenceGames;
+    private ChatSessionStore.Slot<Map<String, Long>> userWordDeleteMap;
+    private ChatSessionStore.Slot<Integer> userDictionaryPage;
+    private ChatSessionStore.Slot<String> currentMyWordsSection;
+    private ChatSessionStore.Slot<String> userDictionaryLevel;
+
+    private volatile List<String> allowedUpdateTypes;
     private volatile boolean isRunning = false;
     private volatile boolean webhookDeleted = false;
 
-    public TelegramService() {
-        this.restTemplate = new RestTemplate();
-    }
-
     private void logSafe(String message) {
         String safeMessage = message.replace(botToken, "***");
         System.out.println(safeMessage);
@@ -81,76 +122,160 @@ public class TelegramService {
         System.err.println(safeMessage + ": " + e.getMessage());
     }
 
+    @PostConstruct
+    public void registerHandlers() {
+        userStates = sessions.slot(ChatContext::state, ChatContext::state);
+        activeFlashcardGames = sessions.slot(
+                context -> context.game() instanceof FlashcardGameSession game ? game : null, ChatContext::game);
+        activeSentenceGames = sessions.slot(
+                context -> context.game() instanceof SentenceGameSession game ? game : null, ChatContext::game);
+        userWordDeleteMap = sessions.slot(ChatContext::wordDeleteMap, ChatContext::wordDeleteMap);
+        userDictionaryPage = sessions.slot(ChatContext::dictionaryPage, ChatContext::dictionaryPage);
+        currentMyWordsSection = sessions.slot(ChatContext::myWordsSection, ChatContext::myWordsSection);
+        userDictionaryLevel = sessions.slot(ChatContext::dictionaryLevel, ChatContext::dictionaryLevel);
+        registerCallbacks();
+        registerCommands();
+    }
+
+    private void registerCallbacks() {
+        callbackRouter.register("dict_prev", (chatId, messageId, args) ->
+                turnDictionaryPage(chatId, messageId, args.intArg(0), args.stringArg(1)),
+                CallbackArgs.Type.INT, CallbackArgs.Type.STRING);
+        callbackRouter.register("dict_next", (chatId, messageId, args) ->
+                turnDictionaryPage(chatId, messageId, args.intArg(0), args.stringArg(1)),
+                CallbackArgs.Type.INT, CallbackArgs.Type.STRING);
+        callbackRouter.register("dict_favorite", (chatId, messageId, args) ->
+                addWordToFavoritesFromDictionary(chatId, args.longArg(0), messageId),
+                CallbackArgs.Type.LONG);
+        callbackRouter.register("mywords_prev", (chatId, messageId, args) ->
+                turnMyWordsPage(chatId, messageId, args.intArg(0), args.stringArg(1)),
+                CallbackArgs.Type.INT, CallbackArgs.Type.STRING);
+        callbackRouter.register("mywords_next", (chatId, messageId, args) ->
+                turnMyWordsPage(chatId, messageId, args.intArg(0), args.stringArg(1)),
+                CallbackArgs.Type.INT, CallbackArgs.Type.STRING);
+        callbackRouter.register("mywords_section", (chatId, messageId, args) ->
+                switchMyWordsSection(chatId, args.stringArg(0)),
+                CallbackArgs.Type.STRING);
+        callbackRouter.register("delete_unknown", (chatId, messageId, args) ->
+                deleteUnknownWord(chatId, args.longArg(0), messageId),
+                CallbackArgs.Type.LONG);
+        callbackRouter.register("delete_favorite", (chatId, messageId, args) ->
+                deleteFavoriteWord(chatId, args.longArg(0), messageId),
+                CallbackArgs.Type.LONG);
+        callbackRouter.register("sentence_amount", (chatId, messageId, args) ->
+                handleSentenceAmountSelection(chatId, args.intArg(0)),
+                CallbackArgs.Type.INT);
+        callbackRouter.register("main_menu", (chatId, messageId, args) -> showMainMenu(chatId));
+        callbackRouter.register("delete_all_unknown", (chatId, messageId, args) -> deleteAllUnknownWords(chatId, messageId));
+        callbackRouter.register("delete_all_favorites", (chatId, messageId, args) -> deleteAllFavoriteWords(chatId, messageId));
+    }
+
     @EventListener(ApplicationReadyEvent.class)
     public void initializeBot() {
-        deleteWebhook();
+        if (isWebhookMode()) {
+            setWebhook();
+        } else {
+            deleteWebhook();
+        }
+        resendRestoredSentences();
+    }
+
+    // A restart may have dropped the timer that shows the next sentence, so the learner would answer
+    // a sentence they never saw; showing the current one again is harmless if they did see it.
+    private void resendRestoredSentences() {
+        for (Long chatId : snapshotter.restoredSentenceGames()) {
+            runLater(chatId, 0, () -> {
+                SentenceGameSession session = activeSentenceGames.get(chatId);
+                if (session != null && !session.isFinished()) sendNextSentence(chatId, session);
+            });
+        }
+    }
+
+    public boolean isWebhookMode() {
+        return "webhook".equalsIgnoreCase(botMode);
+    }
+
+    private void setWebhook() {
+        Map<String, Object> request = new HashMap<>();
+        request.put("url", webhookUrl);
+        request.put("secret_token", webhookSecret);
+        request.put("max_connections", webhookMaxConnections);
+        request.put("allowed_updates", allowedUpdateTypes());
+
+        telegramApiClient.call("setWebhook", request).whenComplete((response, error) -> {
+            if (error == null) {
+                System.out.println("Webhook successfully set");
+            } else {
+                System.err.println("Error setting webhook: " + TelegramApiClient.unwrap(error).getMessage());
+                timers.schedule(5000, this::setWebhook);
+            }
+        });
     }
 
     private void deleteWebhook() {
-        try {
-            String url = SEND_MESSAGE_URL + botToken + "/deleteWebhook";
-            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
-                url, 
-                HttpMethod.GET, 
-                null, 
-                new ParameterizedTypeReference<Map<String, Object>>() {}
-            );
-            
-            if (response.getBody() != null && Boolean.TRUE.equals(response.getBody().get("ok"))) {
+        telegramApiClient.call("deleteWebhook", Map.of()).whenComplete((response, error) -> {
+            if (error == null) {
                 System.out.println("Webhook successfully deleted");
                 webhookDeleted = true;
                 startPolling();
             } else {
-                System.err.println("Failed to delete webhook: " + response.getBody());
+                System.err.println("Error deleting webhook: " + TelegramApiClient.unwrap(error).getMessage());
+                timers.schedule(5000, this::deleteWebhook);
             }
-        } catch (Exception e) {
-            System.err.println("Error deleting webhook: " + e.getMessage());
-            new Thread(() -> {
-                try {
-                    Thread.sleep(5000);
-                    deleteWebhook();
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                }
-            }).start();
-        }
+        });
     }
 
-    @Scheduled(fixedDelay = 1000)
-    public void pollUpdates() {
-        if (!isRunning || !webhookDeleted) return;
+    public List<TelegramUpdate> fetchUpdates(long offset, int limit, int timeoutSeconds) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("offset", offset);
+        request.put("limit", limit);
+        request.put("timeout", timeoutSeconds);
+        request.put("allowed_updates", allowedUpdateTypes());
 
+        Duration timeout = telegramApiClient.readTimeout().plusSeconds(timeoutSeconds);
         try {
-            String url = SEND_MESSAGE_URL + botToken + "/getUpdates?offset=" + (lastUpdateId.get() + 1) + "&timeout=30";
-            
-            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
-                url, 
-                HttpMethod.GET, 
-                null, 
-                new ParameterizedTypeReference<Map<String, Object>>() {}
-            );
-            
-            if (response.getBody() != null && response.getBody().containsKey("result")) {
-                @SuppressWarnings("unchecked")
-                List<Map<String, Object>> updates = (List<Map<String, Object>>) response.getBody().get("result");
-                
-                if (updates != null && !updates.isEmpty()) {
-                    for (Map<String, Object> update : updates) {
-                        Long updateId = ((Number) update.get("update_id")).longValue();
-                        lastUpdateId.set(updateId);
-
-                        processUpdate(update);
-                    }
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("Error polling updates: " + e.getMessage());
+            return telegramApiClient.getUpdates(request, timeout).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
 
-            if (e.getMessage() != null && e.getMessage().contains("409")) {
-                webhookDeleted = false;
-                deleteWebhook();
+    @SuppressWarnings("unchecked")
+    private List<String> allowedUpdateTypes() {
+        List<String> types = allowedUpdateTypes;
+        if (types == null) {
+            try {
+                types = new ObjectMapper().readValue(allowedUpdates, List.class);
+            } catch (Exception e) {
+                types = List.of("message", "callback_query");
             }
+            allowedUpdateTypes = types;
         }
+        return types;
+    }
+
+    public void enqueueUpdate(TelegramUpdate update) {
+        updateDispatcher.getObject().dispatch(update.chatId(), () -> processUpdate(update));
+    }
+
+    public boolean offerUpdate(TelegramUpdate update) {
+        ReactiveUpdatePipeline pipeline = reactivePipeline.getIfAvailable();
+        if (pipeline != null) return pipeline.offer(update);
+        return updateDispatcher.getObject().tryDispatch(update.chatId(), () -> processUpdate(update));
+    }
+
+    private void runLater(Long chatId, long delayMillis, Runnable task) {
+        timers.schedule(chatId, delayMillis, () -> userProfiles.inScope(task));
+    }
+
+    public boolean isPollingActive() {
+        return isRunning && webhookDeleted;
+    }
+
+    public void onPollingConflict() {
+        webhookDeleted = false;
+        deleteWebhook();
     }
 
     public void startPolling() {
@@ -168,124 +293,54 @@ public class TelegramService {
     }
 
     private void sendMessageWithButtons(Long chatId, String text, List<List<String>> buttons) {
-        try {
-            Map<String, Object> request = new HashMap<>();
-            request.put("chat_id", chatId);
-            request.put("text", text);
-            request.put("parse_mode", "Markdown");
-
-            if (buttons != null && !buttons.isEmpty()) {
-                List<List<Map<String, Object>>> keyboard = new ArrayList<>();
-                for (List<String> row : buttons) {
-                    List<Map<String, Object>> keyboardRow = new ArrayList<>();
-                    for (String buttonText : row) {
-                        Map<String, Object> button = new HashMap<>();
-                        button.put("text", buttonText);
-                        keyboardRow.add(button);
-                    }
-                    keyboard.add(keyboardRow);
+        Map<String, Object> request = new HashMap<>();
+        request.put("chat_id", chatId);
+        request.put("text", text);
+        request.put("parse_mode", "Markdown");
+
+        if (buttons != null && !buttons.isEmpty()) {
+            List<List<Map<String, Object>>> keyboard = new ArrayList<>();
+            for (List<String> row : buttons) {
+                List<Map<String, Object>> keyboardRow = new ArrayList<>();
+                for (String buttonText : row) {
+                    Map<String, Object> button = new HashMap<>();
+                    button.put("text", buttonText);
+                    keyboardRow.add(button);
                 }
-
-                Map<String, Object> replyMarkup = new HashMap<>();
-                replyMarkup.put("keyboard", keyboard);
-                replyMarkup.put("resize_keyboard", true);
-                replyMarkup.put("one_time_keyboard", false);
-                request.put("reply_markup", replyMarkup);
+                keyboard.add(keyboardRow);
             }
 
-            restTemplate.postForObject(SEND_MESSAGE_URL + botToken + "/sendMessage", request, String.class);
-        } catch (Exception e) {
-            e.printStackTrace();
+            Map<String, Object> replyMarkup = new HashMap<>();
+            replyMarkup.put("keyboard", keyboard);
+            replyMarkup.put("resize_keyboard", true);
+            replyMarkup.put("one_time_keyboard", false);
+            request.put("reply_markup", replyMarkup);
         }
+
+        outboundScheduler.submit(chatId, "sendMessage", request);
     }
 
-    @SuppressWarnings("unchecked")
-    public void processUpdate(Map<String, Object> update) {
+    public void processUpdate(TelegramUpdate update) {
+        userProfiles.inScope(() -> handleUpdate(update));
+    }
+
+    private void handleUpdate(TelegramUpdate update) {
         try {
-            if (update.containsKey("callback_query")) {
-                Map<String, Object> callbackQuery = (Map<String, Object>) update.get("callback_query");
-                String data = (String) callbackQuery.get("data");
-                Map<String, Object> message = (Map<String, Object>) callbackQuery.get("message");
-                Long chatId = ((Number) ((Map<String, Object>) message.get("chat")).get("id")).longValue();
-                Integer messageId = ((Number) message.get("message_id")).intValue();
-
-                if (data.startsWith("dict_prev:")) {
-                    String[] parts = data.split(":");
-                    int page = Integer.parseInt(parts[1]);
-                    String level = parts[2];
-                    userDictionaryPage.put(chatId, page);
-                    userDictionaryLevel.put(chatId, level);
-                    editMessageWithDictionary(chatId, messageId);
-                } else if (data.startsWith("dict_next:")) {
-                    String[] parts = data.split(":");
-                    int page = Integer.parseInt(parts[1]);
-                    String level = parts[2];
-                    userDictionaryPage.put(chatId, page);
-                    userDictionaryLevel.put(chatId, level);
-                    editMessageWithDictionary(chatId, messageId);
-                } else if (data.startsWith("mywords_prev:")) {
-                    int page = Integer.parseInt(data.split(":")[1]);
-                    userDictionaryPage.put(chatId, page);
-                    String section = data.split(":")[2];
-                    currentMyWordsSection.put(chatId, section);
-                    if ("unknown".equals(section)) {
-                        editMessageWithMyWords(chatId, messageId);
-                    } else {
-                        editMessageWithFavoriteWords(chatId, messageId);
-                    }
-                } else if (data.startsWith("mywords_next:")) {
-                    int page = Integer.parseInt(data.split(":")[1]);
-                    userDictionaryPage.put(chatId, page);
-                    String section = data.split(":")[2];
-                    currentMyWordsSection.put(chatId, section);
-                    if ("unknown".equals(section)) {
-                        editMessageWithMyWords(chatId, messageId);
-                    } else {
-                        editMessageWithFavoriteWords(chatId, messageId);
-                    }
-                } else if (data.startsWith("mywords_section:")) {
-                    String section = data.split(":")[1];
-                    currentMyWordsSection.put(chatId, section);
-                    userDictionaryPage.put(chatId, 0);
-                    if ("unknown".equals(section)) {
-                        showMyWords(chatId);
-                    } else {
-                        showFavoriteWords(chatId);
-                    }
-                } else if (data.startsWith("delete_unknown:")) {
-                    Long wordId = Long.parseLong(data.split(":")[1]);
-                    deleteUnknownWord(chatId, wordId, messageId);
-                } else if (data.startsWith("sentence_amount:")) {
-                    int amount = Integer.parseInt(data.split(":")[1]);
-                    handleSentenceAmountSelection(chatId, amount);
-                } else if (data.startsWith("delete_favorite:")) {
-                    Long wordId = Long.parseLong(data.split(":")[1]);
-                    deleteFavoriteWord(chatId, wordId, messageId);
-                } else if (data.equals("main_menu")) {
-                    showMainMenu(chatId);
-                } else if (data.equals("delete_all_unknown")) {
-                    deleteAllUnknownWords(chatId, messageId);
-                } else if (data.equals("delete_all_favorites")) {
-                    deleteAllFavoriteWords(chatId, messageId);
-                } else if (data.startsWith("dict_favorite:")) {
-                    Long wordId = Long.parseLong(data.split(":")[1]);
-                    addWordToFavoritesFromDictionary(chatId, wordId, messageId);
-                }
+            if (!update.hasChat()) return;
+
+            if (update.isCallback()) {
+                callbackRouter.route(update.chatId(), update.messageId(), update.callbackData());
                 return;
             }
 
-            Map<String, Object> message = (Map<String, Object>) update.get("message");
-            if (message == null) return;
-
-            Map<String, Object> chatMap = (Map<String, Object>) message.get("chat");
-            Long chatId = ((Number) chatMap.get("id")).longValue();
-            String text = (String) message.get("text");
+            Long chatId = update.chatId();
+            String text = update.text();
+            if (text == null) return;
 
-            Map<String, Object> fromMap = (Map<String, Object>) message.get("from");
-            String firstName = (String) fromMap.get("first_name");
-            String lastName = (String) fromMap.get("last_name");
+            String firstName = update.firstName();
+            String lastName = update.lastName();
 
-            Optional<User> userOpt = userRepository.findByChatId(chatId);
+            Optional<User> userOpt = userProfiles.findByChatId(chatId);
             String nativeLang = userOpt.map(User::getNativeLanguage).orElse("ru");
             String backToMenuCmd = nativeLang.equals("ru") ? "⬅️ Назад в меню" : "⬅️ 返回菜单";
             String backToMenuFlashcardCmd = nativeLang.equals("ru") ? "Вернуться в меню" : "返回菜单";
@@ -293,6 +348,7 @@ public class TelegramService {
             if (text.equals(backToMenuCmd) || text.equals(backToMenuFlashcardCmd)) {
                 activeFlashcardGames.remove(chatId);
                 activeSentenceGames.remove(chatId);
+                timers.cancel(chatId);
                 showMainMenu(chatId);
                 return;
             }
@@ -337,13 +393,39 @@ public class TelegramService {
         }
     }
 
+    private void turnDictionaryPage(Long chatId, Integer messageId, int page, String level) {
+        userDictionaryPage.put(chatId, page);
+        userDictionaryLevel.put(chatId, level);
+        editMessageWithDictionary(chatId, messageId);
+    }
+
+    private void turnMyWordsPage(Long chatId, Integer messageId, int page, String section) {
+        userDictionaryPage.put(chatId, page);
+        currentMyWordsSection.put(chatId, section);
+        if ("unknown".equals(section)) {
+            editMessageWithMyWords(chatId, messageId);
+        } else {
+            editMessageWithFavoriteWords(chatId, messageId);
+        }
+    }
+
+    private void switchMyWordsSection(Long chatId, String section) {
+        currentMyWordsSection.put(chatId, section);
+        userDictionaryPage.put(chatId, 0);
+        if ("unknown".equals(section)) {
+            showMyWords(chatId);
+        } else {
+            showFavoriteWords(chatId);
+        }
+    }
+
     private void addWordToFavoritesFromDictionary(Long chatId, Long wordId, Integer messageId) {
-        Optional<Word> wordOpt = wordRepository.findById(wordId);
+        Optional<Word> wordOpt = wordCatalog.findById(wordId);
         if (wordOpt.isPresent()) {
             Word word = wordOpt.get();
             addToFavoriteWords(chatId, word);
             
-            Optional<User> userOpt = userRepository.findByChatId(chatId);
+            Optional<User> userOpt = userProfiles.findByChatId(chatId);
             String nativeLang = userOpt.map(User::getNativeLanguage).orElse("ru");
             
             String successMessage = nativeLang.equals("ru") ? 
@@ -359,14 +441,14 @@ public class TelegramService {
     }
 
     private void showMyWords(Long chatId) {
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         if (userOpt.isEmpty()) {
             sendMessage(chatId, "Ошибка: пользователь не найден.");
             showMainMenu(chatId);
             return;
         }
 
-        List<UserWord> allUserWords = userWordRepository.findByUserChatIdWithWord(chatId);
+        List<UserWord> allUserWords = loadUnknownWords(chatId);
         
         if (allUserWords.isEmpty()) {
             String nativeLang = userOpt.get().getNativeLanguage();
@@ -433,7 +515,7 @@ public class TelegramService {
     }
 
     private void showFlashcardOptions(Long chatId) {
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         if (userOpt.isEmpty()) {
             sendMessage(chatId, "Ошибка: пользователь не найден.");
             return;
@@ -477,7 +559,7 @@ public class TelegramService {
     }
 
     private void showFlashcardLevelSettings(Long chatId) {
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         String nativeLang = userOpt.map(User::getNativeLanguage).orElse("ru");
 
         String text = nativeLang.equals("ru") ? 
@@ -507,10 +589,10 @@ public class TelegramService {
     }
 
     private void editMessageWithFavoriteWords(Long chatId, Integer messageId) {
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         if (userOpt.isEmpty()) return;
 
-        List<UserFavoriteWord> allUserFavorites = userFavoriteWordRepository.findByUserChatId(chatId);
+        List<UserFavoriteWord> allUserFavorites = loadFavoriteWords(chatId);
         int pageSize = 30;
         int totalPages = (int) Math.ceil((double) allUserFavorites.size() / pageSize);
 
@@ -547,23 +629,35 @@ public class TelegramService {
     }
 
     private void addToFavoriteWords(Long chatId, Word word) {
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         if (userOpt.isPresent()) {
-            Optional<UserFavoriteWord> existingFav = userFavoriteWordRepository.findByUserChatIdAndWordId(chatId, word.getId());
-            if (existingFav.isEmpty()) {
-                UserFavoriteWord fav = new UserFavoriteWord();
-                fav.setUserChatId(chatId);
-                fav.setWord(word);
-                userFavoriteWordRepository.save(fav);
-            }
+            userWordWriteBuffer.addFavorite(chatId, word);
+        }
+    }
+
+    private List<UserWord> loadUnknownWords(Long chatId) {
+        List<UserWord> userWords = new ArrayList<>(userWordRepository.findByUserChatIdWithWord(chatId));
+        Set<Long> stored = userWords.stream().map(uw -> uw.getWord().getId()).collect(Collectors.toSet());
+        for (UserWord pending : userWordWriteBuffer.pendingUnknown(chatId)) {
+            if (!stored.contains(pending.getWord().getId())) userWords.add(pending);
         }
-    }    
+        return userWords;
+    }
+
+    private List<UserFavoriteWord> loadFavoriteWords(Long chatId) {
+        List<UserFavoriteWord> favorites = new ArrayList<>(userFavoriteWordRepository.findByUserChatIdWithWord(chatId));
+        Set<Long> stored = favorites.stream().map(fw -> fw.getWord().getId()).collect(Collectors.toSet());
+        for (UserFavoriteWord pending : userWordWriteBuffer.pendingFavorites(chatId)) {
+            if (!stored.contains(pending.getWord().getId())) favorites.add(pending);
+        }
+        return favorites;
+    }
 
     private void editMessageWithMyWords(Long chatId, Integer messageId) {
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         if (userOpt.isEmpty()) return;
 
-        List<UserWord> allUserWords = userWordRepository.findByUserChatId(chatId);
+        List<UserWord> allUserWords = loadUnknownWords(chatId);
         int pageSize = 30;
         int totalPages = (int) Math.ceil((double) allUserWords.size() / pageSize);
 
@@ -600,12 +694,12 @@ public class TelegramService {
     }
 
     private void handleStart(Long chatId, String firstName, String lastName) {
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         User user;
         if (userOpt.isPresent()) {
             user = userOpt.get();
             user.setLastActivityAt(LocalDateTime.now());
-            userRepository.save(user);
+            userProfiles.save(user);
             String nativeLang = user.getNativeLanguage();
             String welcomeBackText = nativeLang.equals("ru") ? "С возвращением, " : "欢迎回来，";
             sendMessage(chatId, welcomeBackText + firstName + "! 👋");
@@ -618,7 +712,7 @@ public class TelegramService {
             user.setLastName(lastName);
             user.setRegisteredAt(LocalDateTime.now());
             user.setLastActivityAt(LocalDateTime.now());
-            userRepository.save(user);
+            userProfiles.save(user);
 
             String welcomeText = "你好，" + firstName + "! 👋\n" +
                     "我是你学习俄语和汉语的助手!\n" +
@@ -652,11 +746,11 @@ public class TelegramService {
             return;
         }
 
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         if (userOpt.isPresent()) {
             User user = userOpt.get();
             user.setNativeLanguage(nativeLangCode);
-            userRepository.save(user);
+            userProfiles.save(user);
 
             sendMessageWithButtons(chatId, targetLangText, targetLangButtons);
             userStates.put(chatId, ConversationState.AWAITING_TARGET_LANG);
@@ -671,7 +765,7 @@ public class TelegramService {
         String levelText;
         List<List<String>> levelButtons;
 
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         if (userOpt.isEmpty()) {
             sendMessage(chatId, "Ошибка. Пожалуйста, начни сначала с /start.");
             userStates.put(chatId, ConversationState.START);
@@ -694,7 +788,7 @@ public class TelegramService {
         }
 
         user.setTargetLanguage(targetLangCode);
-        userRepository.save(user);
+        userProfiles.save(user);
 
         if (nativeLang.equals("ru")) {
             levelText = "Выбери свой уровень знаний:";
@@ -717,19 +811,19 @@ public class TelegramService {
     }
 
     private void handleLevelSelection(Long chatId, String selectedLevel) {
-        if (!List.of("A1", "A2", "B1", "B2", "C1", "C2").contains(selectedLevel)) {
-            Optional<User> userOpt = userRepository.findByChatId(chatId);
+        if (CefrLevel.fromCode(selectedLevel) == null) {
+            Optional<User> userOpt = userProfiles.findByChatId(chatId);
             String nativeLang = userOpt.map(User::getNativeLanguage).orElse("ru");
             String errorMessage = nativeLang.equals("ru") ? "Пожалуйста, выбери уровень из предложенных вариантов." : "请选择提供的级别之一。";
             sendMessage(chatId, errorMessage);
             return;
         }
 
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         if (userOpt.isPresent()) {
             User user = userOpt.get();
             user.setLevel(selectedLevel);
-            userRepository.save(user);
+            userProfiles.save(user);
 
             String nativeLang = user.getNativeLanguage();
             String targetLangName = ("ru".equals(user.getTargetLanguage()) ? (nativeLang.equals("ru") ? "Русский" : "俄语") : (nativeLang.equals("ru") ? "Китайский" : "中文"));
@@ -750,7 +844,7 @@ public class TelegramService {
     }
 
     private void showMainMenu(Long chatId) {
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         String nativeLang = userOpt.map(User::getNativeLanguage).orElse("ru");
 
         String menuText;
@@ -776,103 +870,178 @@ public class TelegramService {
         userStates.put(chatId, ConversationState.IN_MENU);
     }
 
-    private void handleMenuCommand(Long chatId, String command) {
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
-        String nativeLang = userOpt.map(User::getNativeLanguage).orElse("ru");
+    private void registerCommands() {
+        conversation.in(ConversationState.IN_MENU)
+                .on("games", "🎮 Игры", "🎮 游戏", (chatId, text) -> showGamesMenu(chatId))
+                .on("dictionary", "📘 Словарь", "📘 词典", (chatId, text) -> {
+                    userDictionaryPage.put(chatId, 0);
+                    showDictionary(chatId);
+                })
+                .on("myWords", "🔁 Мои слова", "🔁 我的单词", (chatId, text) -> showMyWordsMenu(chatId))
+                .on("settings", "⚙️ Настройки", "⚙️ 设置", (chatId, text) -> showSettings(chatId))
+                .onAny("start", (chatId, text) -> {
+                    if (userProfiles.findByChatId(chatId).isPresent()) {
+                        showMainMenu(chatId);
+                    } else {
+                        handleStart(chatId, "User", "");
+                    }
+                }, "/start")
+                .on("unknownWords", "❌ Не знаю", "❌ 不认识", (chatId, text) -> openMyWordsSection(chatId, "unknown"))
+                .on("favoriteWords", "⭐ Избранное", "⭐ 收藏", (chatId, text) -> openMyWordsSection(chatId, "favorites"))
+                .on("flashcards", "Flash card (Карточки)", "Flash card (单词卡片)", (chatId, text) -> showFlashcardOptions(chatId))
+                .onAny("flashcards10", (chatId, text) -> startFlashcardGame(chatId, 10, false), "10 слов", "10 个词")
+                .onAny("flashcards20", (chatId, text) -> startFlashcardGame(chatId, 20, false), "20 слов", "20 个词")
+                .onAny("flashcards30", (chatId, text) -> startFlashcardGame(chatId, 30, false), "30 слов", "30 个词")
+                .onAny("flashcards45", (chatId, text) -> startFlashcardGame(chatId, 45, false), "45 слов", "45 个词")
+                .onAny("flashcards60", (chatId, text) -> startFlashcardGame(chatId, 60, false), "60 слов", "60 个词")
+                .onAny("flashcards90", (chatId, text) -> startFlashcardGame(chatId, 90, false), "90 слов", "90 个词")
+                .onAny("flashcardsAllWords", (chatId, text) -> startFlashcardGame(chatId, null, false), "Все слова", "全部单词")
+                .onAny("flashcardsMyWords", (chatId, text) -> startFlashcardGame(chatId, null, true), "Только мои слова", "仅我的单词")
+                .on("sentences", "Sentence (Составить предложение)", "Sentence (造句)", (chatId, text) -> startSentenceGame(chatId))
+                .on("dictionaryPrev", "⬅️ Назад", "⬅️ 上一页", (chatId, text) -> showPreviousDictionaryPage(chatId))
+                .on("dictionaryNext", "Вперёд ➡️", "下一页 ➡️", (chatId, text) -> showNextDictionaryPage(chatId))
+                .on("mainMenu", "🔙 Главное меню", "🔙 主菜单", (chatId, text) -> showMainMenu(chatId))
+                .on("flashcardLevelSettings", "🎛️ Настройки уровня", "🎛️ 级别设置", (chatId, text) -> showFlashcardLevelSettings(chatId))
+                .on("currentLevel", "📊 Текущий уровень", "📊 当前级别", (chatId, text) -> showCurrentLevel(chatId))
+                .on("backToFlashcards", "⬅️ Назад к игре", "⬅️ 返回游戏", (chatId, text) -> showFlashcardOptions(chatId))
+                .onAny("flashcardLevel", this::selectFlashcardLevel, "A1", "A2", "B1", "B2", "C1", "C2")
+                .on("dictionaryAllLevels", "📊 Все уровни", "📊 所有级别", (chatId, text) -> showDictionaryWithLevel(chatId, "ALL"))
+                .otherwise((chatId, text) -> {
+                    String message = "ru".equals(nativeLangOf(chatId)) ? "Неизвестная команда. Пожалуйста, используй меню." : "未知命令。请使用菜单。";
+                    sendMessage(chatId, message);
+                    showMainMenu(chatId);
+                });
 
-        String gamesCmd = nativeLang.equals("ru") ? "🎮 Игры" : "🎮 游戏";
-        String dictCmd = nativeLang.equals("ru") ? "📘 Словарь" : "📘 词典";
-        String myWordsCmd = nativeLang.equals("ru") ? "🔁 Мои слова" : "🔁 我的单词";
-        String settingsCmd = nativeLang.equals("ru") ? "⚙️ Настройки" : "⚙️ 设置";
-        String flashcardGameCmd = nativeLang.equals("ru") ? "Flash card (Карточки)" : "Flash card (单词卡片)";
-        String sentenceGameCmd = nativeLang.equals("ru") ? "Sentence (Составить предложение)" : "Sentence (造句)";
-
-        if (command.equals(gamesCmd)) {
-            showGamesMenu(chatId);
-        } else if (command.equals(dictCmd)) {
-            userDictionaryPage.put(chatId, 0);
-            showDictionary(chatId);
-        } else if (command.equals(myWordsCmd)) {
-            showMyWordsMenu(chatId);
-        } else if (command.equals(settingsCmd)) {
-            showSettings(chatId);
-        } else if (command.equals("/start")) {
-            if(userOpt.isPresent()) {
-                showMainMenu(chatId);
-            } else {
-                handleStart(chatId, "User", "");
-            }
-        } 
-        else if (command.equals(nativeLang.equals("ru") ? "❌ Не знаю" : "❌ 不认识")) {
-            currentMyWordsSection.put(chatId, "unknown");
-            userDictionaryPage.put(chatId, 0);
+        conversation.in(ConversationState.IN_DICTIONARY)
+                .on("dictionaryPrev", "⬅️ Назад", "⬅️ 上一页", (chatId, text) -> showPreviousDictionaryPage(chatId))
+                .on("dictionaryNext", "Вперёд ➡️", "下一页 ➡️", (chatId, text) -> showNextDictionaryPage(chatId))
+                .on("mainMenu", "🔙 Главное меню", "🔙 主菜单", (chatId, text) -> {
+                    userStates.put(chatId, ConversationState.IN_MENU);
+                    showMainMenu(chatId);
+                })
+                .otherwise((chatId, text) -> showDictionary(chatId));
+
+        conversation.in(ConversationState.IN_MY_WORDS)
+                .on("backToMenu", "⬅️ Назад в меню", "⬅️ 返回菜单", (chatId, text) -> {
+                    userStates.put(chatId, ConversationState.IN_MENU);
+                    showMainMenu(chatId);
+                    userWordDeleteMap.remove(chatId);
+                })
+                .on("unknownWords", "❌ Не знаю", "❌ 不认识", (chatId, text) -> openMyWordsSection(chatId, "unknown"))
+                .on("favoriteWords", "⭐ Избранное", "⭐ 收藏", (chatId, text) -> openMyWordsSection(chatId, "favorites"))
+                .otherwise((chatId, text) -> {
+                    String instruction = "ru".equals(nativeLangOf(chatId)) ? "Для взаимодействия с 'Моими словами' используй кнопки." : "要与“我的单词”互动，请使用按钮。";
+                    sendMessage(chatId, instruction);
+                    showMyWordsMenu(chatId);
+                });
+
+        conversation.in(ConversationState.IN_SETTINGS)
+                .onAny("changeNativeLanguage", (chatId, text) -> {
+                    String message = "ru".equals(nativeLangOf(chatId)) ? "Выбери свой новый родной язык:" : "选择你的新母语：";
+                    sendMessageWithButtons(chatId, message, List.of(List.of("🇷🇺 Русский", "🇨🇳 中文")));
+                    userStates.put(chatId, ConversationState.AWAITING_NEW_NATIVE_LANG);
+                }, "🔄 Изменить родной язык", "🔄 改变母语")
+                .onAny("changeTargetLanguage", (chatId, text) -> handleNewTargetLanguageRequest(chatId),
+                        "🔄 Изменить изучаемый язык", "🔄 改变学习语言")
+                .onAny("changeLevel", (chatId, text) -> {
+                    String message = "ru".equals(nativeLangOf(chatId)) ? "Выбери новый уровень знаний:" : "选择你的新级别：";
+                    sendMessageWithButtons(chatId, message, List.of(
+                            List.of("A1", "A2"),
+                            List.of("B1", "B2"),
+                            List.of("C1", "C2")
+                    ));
+                    userStates.put(chatId, ConversationState.AWAITING_NEW_LEVEL);
+                }, "🔄 Изменить уровень", "🔄 改变级别")
+                .onAny("sentenceAmount", (chatId, text) -> showSentenceAmountOptions(chatId),
+                        "📝 Кол-во предложений", "📝 句子数量")
+                .onAny("backToMenu", (chatId, text) -> {
+                    showMainMenu(chatId);
+                    userStates.put(chatId, ConversationState.IN_MENU);
+                }, "⬅️ Назад в меню", "⬅️ 返回菜单")
+                .otherwise((chatId, text) -> {
+                    if (isDigits(text)) {
+                        handleSentenceAmountSelection(chatId, Integer.parseInt(text));
+                        return;
+                    }
+                    String errorMessage = "ru".equals(nativeLangOf(chatId)) ?
+                        "Неизвестная команда. Пожалуйста, используй меню настроек." :
+                        "未知命令。请使用设置菜单。";
+                    sendMessage(chatId, errorMessage);
+                    showSettings(chatId);
+                });
+
+        conversation.compile();
+    }
+
+    private String nativeLangOf(Long chatId) {
+        return userProfiles.findByChatId(chatId).map(User::getNativeLanguage).orElse("ru");
+    }
+
+    private static boolean isDigits(String text) {
+        if (text.isEmpty() || text.length() > 9) return false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+
+    private void openMyWordsSection(Long chatId, String section) {
+        currentMyWordsSection.put(chatId, section);
+        userDictionaryPage.put(chatId, 0);
+        if ("unknown".equals(section)) {
             showMyWords(chatId);
-        } else if (command.equals(nativeLang.equals("ru") ? "⭐ Избранное" : "⭐ 收藏")) {
-            currentMyWordsSection.put(chatId, "favorites");
-            userDictionaryPage.put(chatId, 0);
-            showFavoriteWords(chatId);
-        } else if (command.equals(flashcardGameCmd)) {
-            showFlashcardOptions(chatId);
-        } else if (command.matches("^(10|20|30|45|60|90) (слов|个词)$")) {
-            int amount = Integer.parseInt(command.split(" ")[0]);
-            startFlashcardGame(chatId, amount, false);
-        } else if (command.contains("Все слова") || command.contains("全部单词")) {
-            startFlashcardGame(chatId, null, false);
-        } else if (command.contains("Только мои слова") || command.contains("仅我的单词")) {
-            startFlashcardGame(chatId, null, true);
-        } else if (command.equals(sentenceGameCmd)) {
-            startSentenceGame(chatId);
-        } else if (command.equals(nativeLang.equals("ru") ? "⬅️ Назад" : "⬅️ 上一页")) {
-            int currentPage = userDictionaryPage.getOrDefault(chatId, 0);
-            if (currentPage > 0) {
-                userDictionaryPage.put(chatId, currentPage - 1);
-            }
-            showDictionary(chatId);
-        } else if (command.equals(nativeLang.equals("ru") ? "Вперёд ➡️" : "下一页 ➡️")) {
-            int currentPage = userDictionaryPage.getOrDefault(chatId, 0);
-            int totalPages = (int) Math.ceil((double) wordRepository.findByLevelAndLang(
-                userOpt.get().getLevel(), userOpt.get().getTargetLanguage()).size() / 30.0);
-            if (currentPage < totalPages - 1) {
-                userDictionaryPage.put(chatId, currentPage + 1);
-            }
-            showDictionary(chatId);
-        } else if (command.equals(nativeLang.equals("ru") ? "🔙 Главное меню" : "🔙 主菜单")) {
-            showMainMenu(chatId);
-        } else if (command.equals(nativeLang.equals("ru") ? "🎛️ Настройки уровня" : "🎛️ 级别设置")) {
-            showFlashcardLevelSettings(chatId);
-        } else if (command.equals(nativeLang.equals("ru") ? "📊 Текущий уровень" : "📊 当前级别")) {
-            if (userOpt.isPresent()) {
-                String currentLevel = userOpt.get().getLevel();
-                String message = nativeLang.equals("ru") ? 
-                    "📊 Ваш текущий уровень: *" + currentLevel + "*" :
-                    "📊 您当前的级别: *" + currentLevel + "*";
-                sendMessage(chatId, message);
-            }
-            showFlashcardLevelSettings(chatId);
-        } else if (command.equals(nativeLang.equals("ru") ? "⬅️ Назад к игре" : "⬅️ 返回游戏")) {
-            showFlashcardOptions(chatId);
-        } else if (Arrays.asList("A1", "A2", "B1", "B2", "C1", "C2").contains(command)) {
-            userDictionaryLevel.put(chatId, command);
-            String message = nativeLang.equals("ru") ? 
-                "✅ Уровень слов для игры установлен: *" + command + "*" :
-                "✅ 游戏单词级别已设置: *" + command + "*";
-            sendMessage(chatId, message);
-            showFlashcardOptions(chatId);
-        } else if (command.equals(dictCmd)) {
-            showDictionaryLevelSelection(chatId);
-        } else if (Arrays.asList("A1", "A2", "B1", "B2", "C1", "C2").contains(command)) {
-            showDictionaryWithLevel(chatId, command);
-        } else if (command.equals(nativeLang.equals("ru") ? "📊 Все уровни" : "📊 所有级别")) {
-            showDictionaryWithLevel(chatId, "ALL");
         } else {
-            String message = nativeLang.equals("ru") ? "Неизвестная команда. Пожалуйста, используй меню." : "未知命令。请使用菜单。";
+            showFavoriteWords(chatId);
+        }
+    }
+
+    private void showPreviousDictionaryPage(Long chatId) {
+        int currentPage = userDictionaryPage.getOrDefault(chatId, 0);
+        if (currentPage > 0) {
+            userDictionaryPage.put(chatId, currentPage - 1);
+        }
+        showDictionary(chatId);
+    }
+
+    private void showNextDictionaryPage(Long chatId) {
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
+        int currentPage = userDictionaryPage.getOrDefault(chatId, 0);
+        int totalPages = (int) Math.ceil((double) wordCatalog.count(
+            userOpt.get().getTargetLanguage(), userOpt.get().getLevel()) / 30.0);
+        if (currentPage < totalPages - 1) {
+            userDictionaryPage.put(chatId, currentPage + 1);
+        }
+        showDictionary(chatId);
+    }
+
+    private void showCurrentLevel(Long chatId) {
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
+        if (userOpt.isPresent()) {
+            String currentLevel = userOpt.get().getLevel();
+            String message = "ru".equals(userOpt.get().getNativeLanguage()) ?
+                "📊 Ваш текущий уровень: *" + currentLevel + "*" :
+                "📊 您当前的级别: *" + currentLevel + "*";
             sendMessage(chatId, message);
-            showMainMenu(chatId);
         }
+        showFlashcardLevelSettings(chatId);
+    }
+
+    private void selectFlashcardLevel(Long chatId, String level) {
+        userDictionaryLevel.put(chatId, level);
+        String message = "ru".equals(nativeLangOf(chatId)) ?
+            "✅ Уровень слов для игры установлен: *" + level + "*" :
+            "✅ 游戏单词级别已设置: *" + level + "*";
+        sendMessage(chatId, message);
+        showFlashcardOptions(chatId);
+    }
+
+    private void handleMenuCommand(Long chatId, String command) {
+        conversation.dispatch(ConversationState.IN_MENU, nativeLangOf(chatId), chatId, command);
     }
 
     private void showGamesMenu(Long chatId) {
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         String nativeLang = userOpt.map(User::getNativeLanguage).orElse("ru");
 
         String gamesText;
@@ -896,7 +1065,7 @@ public class TelegramService {
     }
 
     private void startFlashcardGame(Long chatId, Integer amount, boolean useMyWordsOnly) {
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         if (userOpt.isEmpty()) {
             sendMessage(chatId, "Ошибка: пользователь не найден.");
             showMainMenu(chatId);
@@ -904,12 +1073,13 @@ public class TelegramService {
         }
 
         User user = userOpt.get();
+        WordCatalog.Snapshot catalog = wordCatalog.current();
         List<Word> words;
 
         String gameLevel = userDictionaryLevel.getOrDefault(chatId, user.getLevel());
 
         if (useMyWordsOnly) {
-            List<UserWord> userWords = userWordRepository.findByUserChatId(chatId);
+            List<UserWord> userWords = loadUnknownWords(chatId);
             words = userWords.stream().map(UserWord::getWord).collect(Collectors.toList());
             
             if (words.isEmpty()) {
@@ -920,7 +1090,7 @@ public class TelegramService {
                 return;
             }
         } else {
-            words = wordRepository.findByLevelAndLang(gameLevel, user.getTargetLanguage());
+            words = wordCatalog.byLevel(catalog, user.getTargetLanguage(), gameLevel);
         }
 
         if (words.isEmpty()) {
@@ -934,11 +1104,15 @@ public class TelegramService {
         }
 
         if (amount != null && amount < words.size()) {
-            Collections.shuffle(words);
-            words = words.subList(0, amount);
+            words = RandomSampler.sample(words, amount, null);
         }
 
-        FlashcardGameSession session = new FlashcardGameSession(chatId, "flashcard", words, 0, useMyWordsOnly, gameLevel);
+        long[] wordIds = new long[words.size()];
+        for (int i = 0; i < wordIds.length; i++) {
+            wordIds[i] = words.get(i).getId();
+        }
+
+        FlashcardGameSession session = new FlashcardGameSession(chatId, "flashcard", catalog, wordIds, 0, useMyWordsOnly, gameLevel);
         activeFlashcardGames.put(chatId, session);
 
         String nativeLang = user.getNativeLanguage();
@@ -951,17 +1125,13 @@ public class TelegramService {
     }
 
     private void sendFlashcard(Long chatId, FlashcardGameSession session) {
-        int index = session.getCurrentIndex();
-        List<Word> words = session.getWords();
-
-        if (index >= words.size()) {
+        Word currentWord = currentFlashcardWord(session);
+        if (currentWord == null) {
             finishFlashcardGame(chatId, session);
             return;
         }
 
-        Word currentWord = words.get(index);
-
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         String nativeLang = userOpt.map(User::getNativeLanguage).orElse("ru");
 
         String wordDisplay;
@@ -1001,7 +1171,7 @@ public class TelegramService {
             return;
         }
 
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         String nativeLang = userOpt.map(User::getNativeLanguage).orElse("ru");
         String backToMenuFlashcardCmd = nativeLang.equals("ru") ? "Вернуться в меню" : "返回菜单";
         String addToFavoritesButton = nativeLang.equals("ru") ? "⭐ В избранное" : "⭐ 添加到收藏";
@@ -1013,11 +1183,13 @@ public class TelegramService {
             return;
         }
 
+        Word currentWord = currentFlashcardWord(session);
+        if (currentWord == null) {
+            finishFlashcardGame(chatId, session);
+            return;
+        }
+
         if (userAnswer.equals(addToFavoritesButton)) {
-            List<Word> words = session.getWords();
-            int index = session.getCurrentIndex();
-            Word currentWord = words.get(index);
-            
             addToFavoriteWords(chatId, currentWord);
             
             String response = nativeLang.equals("ru") ? 
@@ -1027,10 +1199,10 @@ public class TelegramService {
                 "🔤 翻译: *" + currentWord.getTranslation() + "*";
             sendMessage(chatId, response);
 
-            session.setCurrentIndex(index + 1);
+            session.advance();
             activeFlashcardGames.put(chatId, session);
             
-            if (session.getCurrentIndex() >= words.size()) {
+            if (session.isFinished()) {
                 finishFlashcardGame(chatId, session);
             } else {
                 sendFlashcard(chatId, session);
@@ -1039,11 +1211,6 @@ public class TelegramService {
         }
 
         if (userAnswer.equals(dontKnowButton)) {
-            List<Word> words = session.getWords();
-            int index = session.getCurrentIndex();
-            Word currentWord = words.get(index);
-            
-            session.incrementDontKnowCount();
             String correctAnswer = currentWord.getTranslation();
             String response = nativeLang.equals("ru") ? 
                 "🔹 Правильный перевод: *" + correctAnswer + "*" : 
@@ -1052,10 +1219,10 @@ public class TelegramService {
             sendMessage(chatId, response);
             addToMyWords(chatId, currentWord);
 
-            session.setCurrentIndex(index + 1);
+            session.advanceDontKnow();
             activeFlashcardGames.put(chatId, session);
             
-            if (session.getCurrentIndex() >= words.size()) {
+            if (session.isFinished()) {
                 finishFlashcardGame(chatId, session);
             } else {
                 sendFlashcard(chatId, session);
@@ -1063,9 +1230,6 @@ public class TelegramService {
             return;
         }
 
-        List<Word> words = session.getWords();
-        int index = session.getCurrentIndex();
-        Word currentWord = words.get(index);
         String correctAnswer = currentWord.getTranslation();
 
         String response;
@@ -1080,14 +1244,12 @@ public class TelegramService {
         }
 
         if (isCorrect) {
-            session.incrementCorrectCount();
             response = nativeLang.equals("ru") ? "✅ Правильно!" : "✅ 正确！";
 
             if (session.isUseMyWordsOnly()) {
                 removeFromUnknownWords(chatId, currentWord);
             }
         } else {
-            session.incrementDontKnowCount();
             response = nativeLang.equals("ru") ? 
                 "❌ Неправильно. \nПравильный перевод: *" + correctAnswer + "*" : 
                 "❌ 错误。\n 正确翻译: *" + correctAnswer + "*";
@@ -1096,33 +1258,65 @@ public class TelegramService {
 
         sendMessage(chatId, response);
 
-        session.setCurrentIndex(index + 1);
+        if (isCorrect) {
+            session.advanceCorrect();
+        } else {
+            session.advanceDontKnow();
+        }
         activeFlashcardGames.put(chatId, session);
 
-        if (session.getCurrentIndex() >= words.size()) {
+        if (session.isFinished()) {
             finishFlashcardGame(chatId, session);
         } else {
             sendFlashcard(chatId, session);
         }
     }
 
-    private void removeFromUnknownWords(Long chatId, Word word) {
-        Optional<UserWord> userWordOpt = userWordRepository.findByUserChatIdAndWordId(chatId, word.getId());
-        if (userWordOpt.isPresent()) {
-            userWordRepository.delete(userWordOpt.get());
+    // Resolves against the snapshot the game started with; "my words" may come from outside it.
+    // Skips ids that cannot be found at all; null once the game has run out of words.
+    private Word currentFlashcardWord(FlashcardGameSession session) {
+        while (!session.isFinished()) {
+            Optional<Word> word = session.getCatalog().find(session.currentWordId());
+            if (word.isEmpty()) word = wordCatalog.findById(session.currentWordId());
+            if (word.isPresent()) return word.get();
+            session.advance();
         }
+        return null;
+    }
+
+    private Sentence currentSentence(SentenceGameSession session) {
+        while (!session.isFinished()) {
+            Optional<Sentence> sentence = session.getCatalog().find(session.currentSentenceId());
+            if (sentence.isPresent()) return sentence.get();
+            session.advance();
+        }
+        return null;
+    }
+
+    private void removeFromUnknownWords(Long chatId, Word word) {
+        removeUnknownWord(chatId, word.getId());
+    }
+
+    private boolean removeUnknownWord(Long chatId, Long wordId) {
+        boolean cancelled = userWordWriteBuffer.cancelUnknown(chatId, wordId);
+        return userWordRepository.deleteByUserAndWordIds(chatId, List.of(wordId)) > 0 || cancelled;
+    }
+
+    private boolean removeFavoriteWord(Long chatId, Long wordId) {
+        boolean cancelled = userWordWriteBuffer.cancelFavorite(chatId, wordId);
+        return userFavoriteWordRepository.deleteByUserAndWordIds(chatId, List.of(wordId)) > 0 || cancelled;
     }
 
     private void finishFlashcardGame(Long chatId, FlashcardGameSession session) {
         activeFlashcardGames.remove(chatId);
 
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         String nativeLang = userOpt.map(User::getNativeLanguage).orElse("ru");
 
         long timeSpent = (System.currentTimeMillis() - session.getStartTime()) / 1000;
         int correct = session.getCorrectCount();
         int dontKnow = session.getDontKnowCount();
-        int total = session.getWords().size();
+        int total = session.size();
         double percentage = total > 0 ? (correct * 100.0) / total : 0;
 
         String stats;
@@ -1164,7 +1358,7 @@ public class TelegramService {
     }
 
     private void startSentenceGame(Long chatId) {
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         if (userOpt.isEmpty()) {
             sendMessage(chatId, "Ошибка: пользователь не найден.");
             showMainMenu(chatId);
@@ -1173,9 +1367,10 @@ public class TelegramService {
 
         User user = userOpt.get();
 
-        List<Sentence> sentences = sentenceRepository.findByLevelUpToAndLanguage(user.getLevel(), user.getTargetLanguage());
+        SentenceCatalog.Snapshot catalog = sentenceCatalog.current();
+        long[] sentenceIds = sentenceCatalog.idsUpToLevel(catalog, user.getTargetLanguage(), user.getLevel());
 
-        if (sentences.isEmpty()) {
+        if (sentenceIds.length == 0) {
             String nativeLang = user.getNativeLanguage();
             String message = nativeLang.equals("ru") ? 
                 "😔 Нет предложений для твоего уровня. Попробуй другой уровень или язык." : 
@@ -1187,7 +1382,7 @@ public class TelegramService {
 
         int sentenceAmount = user.getSentenceGameAmount() != null ? user.getSentenceGameAmount() : 5;
 
-        SentenceGameSession session = new SentenceGameSession(chatId, sentences, sentenceAmount, user.getTargetLanguage());
+        SentenceGameSession session = new SentenceGameSession(chatId, catalog, sentenceIds, sentenceAmount);
         activeSentenceGames.put(chatId, session);
 
         sendNextSentence(chatId, session);
@@ -1196,13 +1391,13 @@ public class TelegramService {
     private void finishSentenceGame(Long chatId, SentenceGameSession session) {
         activeSentenceGames.remove(chatId);
 
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         String nativeLang = userOpt.map(User::getNativeLanguage).orElse("ru");
 
         long timeSpent = (System.currentTimeMillis() - session.getStartTime()) / 1000;
         int correct = session.getCorrectCount();
         int incorrect = session.getIncorrectCount();
-        int total = session.getSentences().size();
+        int total = session.size();
 
         String stats;
         if (nativeLang.equals("ru")) {
@@ -1231,24 +1426,23 @@ public class TelegramService {
     }
 
     private void sendNextSentence(Long chatId, SentenceGameSession session) {
-        if (session.isFinished()) {
+        Sentence currentSentence = currentSentence(session);
+        if (currentSentence == null) {
             finishSentenceGame(chatId, session);
             return;
         }
 
-        Sentence currentSentence = session.getCurrentSentence();
-
         List<String> words = Arrays.asList(currentSentence.getWords().split("\\s*,\\s*"));
         Collections.shuffle(words);
 
         StringBuilder sb = new StringBuilder();
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         String nativeLang = userOpt.map(User::getNativeLanguage).orElse("ru");
 
         if (nativeLang.equals("ru")) {
-            sb.append("✍️ *Составь предложение из этих слов* (").append(session.getCurrentRound() + 1).append("/").append(session.getSentences().size()).append("):\n\n");
+            sb.append("✍️ *Составь предложение из этих слов* (").append(session.getCurrentRound() + 1).append("/").append(session.size()).append("):\n\n");
         } else {
-            sb.append("✍️ *用这些词造句* (").append(session.getCurrentRound() + 1).append("/").append(session.getSentences().size()).append("):\n\n");
+            sb.append("✍️ *用这些词造句* (").append(session.getCurrentRound() + 1).append("/").append(session.size()).append("):\n\n");
         }
 
         sb.append(String.join(", ", words));
@@ -1263,7 +1457,7 @@ public class TelegramService {
     }
 
     private void showSentenceOptions(Long chatId) {
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         String nativeLang = userOpt.map(User::getNativeLanguage).orElse("ru");
 
         String text;
@@ -1302,7 +1496,7 @@ public class TelegramService {
     private void handleSentenceGameInput(Long chatId, String userSentence) {
         SentenceGameSession session = activeSentenceGames.get(chatId);
         if (session == null) {
-            Optional<User> userOpt = userRepository.findByChatId(chatId);
+            Optional<User> userOpt = userProfiles.findByChatId(chatId);
             String nativeLang = userOpt.map(User::getNativeLanguage).orElse("ru");
             String message = nativeLang.equals("ru") ? "Неизвестная команда. Пожалуйста, используй меню." : "未知命令。请使用菜单。";
             sendMessage(chatId, message);
@@ -1311,22 +1505,25 @@ public class TelegramService {
             return;
         }
 
-        Sentence currentSentence = session.getCurrentSentence();
+        Sentence currentSentence = currentSentence(session);
+        if (currentSentence == null) {
+            finishSentenceGame(chatId, session);
+            return;
+        }
         String correctSentence = currentSentence.getCorrectSentence();
 
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         String nativeLang = userOpt.map(User::getNativeLanguage).orElse("ru");
         
         String response;
-        if (userSentence.trim().equalsIgnoreCase(correctSentence.trim())) {
-            session.incrementCorrectCount();
+        boolean isCorrect = userSentence.trim().equalsIgnoreCase(correctSentence.trim());
+        if (isCorrect) {
             if (nativeLang.equals("ru")) {
                 response = "✅ Правильно! Отличное предложение!";
             } else {
                 response = "✅ 正确！好句子！";
             }
         } else {
-            session.incrementIncorrectCount();
             if (nativeLang.equals("ru")) {
                 response = "❌ Неправильно.\nПравильный вариант: *" + correctSentence + "*";
             } else {
@@ -1336,24 +1533,21 @@ public class TelegramService {
 
         sendMessage(chatId, response);
 
-        session.setCurrentRound(session.getCurrentRound() + 1);
+        if (isCorrect) {
+            session.advanceCorrect();
+        } else {
+            session.advanceIncorrect();
+        }
 
         if (session.isFinished()) {
             finishSentenceGame(chatId, session);
         } else {
-            new Thread(() -> {
-                try {
-                    Thread.sleep(2000);
-                    sendNextSentence(chatId, session);
-                } catch (InterruptedException e) {
-                    sendNextSentence(chatId, session);
-                }
-            }).start();
+            runLater(chatId, 2000, () -> sendNextSentence(chatId, session));
         }
     }
 
     private void showDictionaryLevelSelection(Long chatId) {
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         String nativeLang = userOpt.map(User::getNativeLanguage).orElse("ru");
 
         String text = nativeLang.equals("ru") ? 
@@ -1383,7 +1577,7 @@ public class TelegramService {
     }
 
     private void showDictionaryWithLevel(Long chatId, String level) {
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         if (userOpt.isEmpty()) {
             sendMessage(chatId, "Ошибка: пользователь не найден.");
             showMainMenu(chatId);
@@ -1393,12 +1587,7 @@ public class TelegramService {
         User user = userOpt.get();
         String targetLang = user.getTargetLanguage();
 
-        List<Word> allWords;
-        if ("ALL".equals(level)) {
-            allWords = wordRepository.findByLang(targetLang);
-        } else {
-            allWords = wordRepository.findByLevelAndLang(level, targetLang);
-        }
+        List<Word> allWords = wordCatalog.byLevel(targetLang, level);
 
         if (allWords.isEmpty()) {
             String nativeLang = user.getNativeLanguage();
@@ -1413,60 +1602,22 @@ public class TelegramService {
         userDictionaryPage.put(chatId, 0);
         userDictionaryLevel.put(chatId, level);
         
-        showDictionaryPage(chatId, level, allWords);
+        showDictionaryPage(chatId, level);
     }
 
-    private void showDictionaryPage(Long chatId, String level, List<Word> allWords) {
-        int currentPage = userDictionaryPage.getOrDefault(chatId, 0);
-        int pageSize = 30;
-        int totalPages = (int) Math.ceil((double) allWords.size() / pageSize);
-
-        if (currentPage >= totalPages) {
-            currentPage = Math.max(0, totalPages - 1);
-            userDictionaryPage.put(chatId, currentPage);
-        }
-        if (currentPage < 0) {
-            currentPage = 0;
-            userDictionaryPage.put(chatId, currentPage);
-        }
-
-        int fromIndex = currentPage * pageSize;
-        int toIndex = Math.min(fromIndex + pageSize, allWords.size());
-        List<Word> wordsOnPage = allWords.subList(fromIndex, toIndex);
-
-        StringBuilder sb = new StringBuilder();
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
-        String nativeLang = userOpt.get().getNativeLanguage();
-
-        String levelDisplay = "ALL".equals(level) ? 
-            (nativeLang.equals("ru") ? "Все уровни" : "所有级别") : level;
-
-        if (nativeLang.equals("ru")) {
-            sb.append("📖 Словарь - Уровень *").append(levelDisplay).append("* (").append(currentPage + 1).append("/").append(totalPages).append("):\n\n");
-            sb.append("Нажми на звезду ⭐ чтобы добавить слово в избранное\n\n");
-        } else {
-            sb.append("📖 词典 - 级别 *").append(levelDisplay).append("* (").append(currentPage + 1).append("/").append(totalPages).append("):\n\n");
-            sb.append("点击星星 ⭐ 将单词添加到收藏\n\n");
-        }
-
-        for (int i = 0; i < wordsOnPage.size(); i++) {
-            Word w = wordsOnPage.get(i);
-            int globalIndex = currentPage * pageSize + i + 1;
-            String wordLine;
-            if (w.getTranscription() != null && !w.getTranscription().isEmpty()) {
-                wordLine = globalIndex + ". " + w.getWord() + " (" + w.getTranscription() + ") — " + w.getTranslation();
-            } else {
-                wordLine = globalIndex + ". " + w.getWord() + " — " + w.getTranslation();
-            }
-            sb.append(wordLine).append("\n");
-        }
+    private void showDictionaryPage(Long chatId, String level) {
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
+        if (userOpt.isEmpty()) return;
+        User user = userOpt.get();
 
-        InlineKeyboardMarkup keyboard = createDictionaryInlineKeyboard(chatId, currentPage, totalPages, nativeLang, wordsOnPage, level);
-        sendMessageWithInlineKeyboard(chatId, sb.toString(), keyboard);
+        DictionaryPageCache.RenderedPage page = dictionaryPages.page(user.getTargetLanguage(), user.getNativeLanguage(),
+                level, userDictionaryPage.getOrDefault(chatId, 0), true);
+        userDictionaryPage.put(chatId, page.page());
+        sendMessageWithInlineKeyboard(chatId, page.text(), page.keyboard());
     }
 
     private void showDictionary(Long chatId) {
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         if (userOpt.isEmpty()) {
             sendMessage(chatId, "Ошибка: пользователь не найден.");
             showMainMenu(chatId);
@@ -1476,7 +1627,7 @@ public class TelegramService {
         String level = user.getLevel();
         String targetLang = user.getTargetLanguage();
 
-        List<Word> allWords = wordRepository.findByLevelAndLang(level, targetLang);
+        List<Word> allWords = wordCatalog.byLevel(targetLang, level);
 
         if (allWords.isEmpty()) {
             String nativeLang = user.getNativeLanguage();
@@ -1486,268 +1637,59 @@ public class TelegramService {
             return;
         }
 
-        int currentPage = userDictionaryPage.getOrDefault(chatId, 0);
-        int pageSize = 30;
-        int totalPages = (int) Math.ceil((double) allWords.size() / pageSize);
-
-        if (currentPage >= totalPages) {
-            currentPage = Math.max(0, totalPages - 1);
-            userDictionaryPage.put(chatId, currentPage);
-        }
-        if (currentPage < 0) {
-            currentPage = 0;
-            userDictionaryPage.put(chatId, currentPage);
-        }
-
-        int fromIndex = currentPage * pageSize;
-        int toIndex = Math.min(fromIndex + pageSize, allWords.size());
-        List<Word> wordsOnPage = allWords.subList(fromIndex, toIndex);
-
-        StringBuilder sb = new StringBuilder();
-        String nativeLang = user.getNativeLanguage();
-
-        if (nativeLang.equals("ru")) {
-            sb.append("📖 Словарь (").append(currentPage + 1).append("/").append(totalPages).append("):\n\n");
-            sb.append("Нажми на звезду ⭐ чтобы добавить слово в избранное\n\n");
-        } else {
-            sb.append("📖 词典 (").append(currentPage + 1).append("/").append(totalPages).append("):\n\n");
-            sb.append("点击星星 ⭐ 将单词添加到收藏\n\n");
-        }
-
-        for (int i = 0; i < wordsOnPage.size(); i++) {
-            Word w = wordsOnPage.get(i);
-            int globalIndex = currentPage * pageSize + i + 1;
-            String wordLine;
-            if (w.getTranscription() != null && !w.getTranscription().isEmpty()) {
-                wordLine = globalIndex + ". " + w.getWord() + " (" + w.getTranscription() + ") — " + w.getTranslation();
-            } else {
-                wordLine = globalIndex + ". " + w.getWord() + " — " + w.getTranslation();
-            }
-            sb.append(wordLine).append("\n");
-        }
-
-        InlineKeyboardMarkup keyboard = createDictionaryInlineKeyboard(chatId, currentPage, totalPages, nativeLang, wordsOnPage, level);
-        sendMessageWithInlineKeyboard(chatId, sb.toString(), keyboard);
+        DictionaryPageCache.RenderedPage page = dictionaryPages.page(targetLang, user.getNativeLanguage(),
+                level, userDictionaryPage.getOrDefault(chatId, 0), false);
+        userDictionaryPage.put(chatId, page.page());
+        sendMessageWithInlineKeyboard(chatId, page.text(), page.keyboard());
     }
 
-    private InlineKeyboardMarkup createDictionaryInlineKeyboard(Long chatId, int currentPage, int totalPages, String nativeLang, List<Word> wordsOnPage, String level) {
-        InlineKeyboardMarkup keyboard = new InlineKeyboardMarkup();
-        List<List<InlineKeyboardButton>> rows = new ArrayList<>();
-
-        int wordsPerRow = 5;
-        for (int i = 0; i < wordsOnPage.size(); i += wordsPerRow) {
-            List<InlineKeyboardButton> row = new ArrayList<>();
-            for (int j = i; j < Math.min(i + wordsPerRow, wordsOnPage.size()); j++) {
-                InlineKeyboardButton favoriteButton = new InlineKeyboardButton();
-                favoriteButton.setText("⭐ " + (currentPage * 30 + j + 1));
-                favoriteButton.setCallbackData("dict_favorite:" + wordsOnPage.get(j).getId());
-                row.add(favoriteButton);
-            }
-            rows.add(row);
-        }
-
-        List<InlineKeyboardButton> navRow = new ArrayList<>();
-        if (currentPage > 0) {
-            InlineKeyboardButton backButton = new InlineKeyboardButton();
-            backButton.setText(nativeLang.equals("ru") ? "⬅️ Назад" : "⬅️ 上一页");
-            backButton.setCallbackData("dict_prev:" + (currentPage - 1) + ":" + level);
-            navRow.add(backButton);
-        }
-        if (currentPage < totalPages - 1) {
-            InlineKeyboardButton nextButton = new InlineKeyboardButton();
-            nextButton.setText(nativeLang.equals("ru") ? "Вперёд ➡️" : "下一页 ➡️");
-            nextButton.setCallbackData("dict_next:" + (currentPage + 1) + ":" + level);
-            navRow.add(nextButton);
-        }
-
-        if (!navRow.isEmpty()) {
-            rows.add(navRow);
-        }
-
-        List<InlineKeyboardButton> menuRow = new ArrayList<>();
-        InlineKeyboardButton menuButton = new InlineKeyboardButton();
-        menuButton.setText(nativeLang.equals("ru") ? "🔙 Главное меню" : "🔙 主菜单");
-        menuButton.setCallbackData("main_menu");
-        menuRow.add(menuButton);
-        rows.add(menuRow);
-
-        keyboard.setKeyboard(rows);
-        return keyboard;
-    }
-
-    private void sendMessageWithInlineKeyboard(Long chatId, String text, InlineKeyboardMarkup keyboard) {
-        try {
-            Map<String, Object> request = new HashMap<>();
-            request.put("chat_id", chatId);
-            request.put("text", text);
-            request.put("parse_mode", "Markdown");
-            request.put("reply_markup", keyboard);
-
-            RestTemplate restTemplate = new RestTemplate();
-            restTemplate.postForObject(SEND_MESSAGE_URL + botToken + "/sendMessage", request, String.class);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-    }
-
-    private InlineKeyboardMarkup createDictionaryInlineKeyboard(Long chatId, int currentPage, int totalPages, String nativeLang) {
-        InlineKeyboardMarkup keyboard = new InlineKeyboardMarkup();
-        List<List<InlineKeyboardButton>> rows = new ArrayList<>();
-
-        List<InlineKeyboardButton> navRow = new ArrayList<>();
-        if (currentPage > 0) {
-            InlineKeyboardButton backButton = new InlineKeyboardButton();
-            backButton.setText(nativeLang.equals("ru") ? "⬅️ Назад" : "⬅️ 上一页");
-            backButton.setCallbackData("dict_prev:" + (currentPage - 1));
-            navRow.add(backButton);
-        }
-        if (currentPage < totalPages - 1) {
-            InlineKeyboardButton nextButton = new InlineKeyboardButton();
-            nextButton.setText(nativeLang.equals("ru") ? "Вперёд ➡️" : "下一页 ➡️");
-            nextButton.setCallbackData("dict_next:" + (currentPage + 1));
-            navRow.add(nextButton);
-        }
-
-        if (!navRow.isEmpty()) {
-            rows.add(navRow);
-        }
+    private void sendMessageWithInlineKeyboard(Long chatId, String text, Object keyboard) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("chat_id", chatId);
+        request.put("text", text);
+        request.put("parse_mode", "Markdown");
+        request.put("reply_markup", keyboard);
 
-        List<InlineKeyboardButton> menuRow = new ArrayList<>();
-        InlineKeyboardButton menuButton = new InlineKeyboardButton();
-        menuButton.setText(nativeLang.equals("ru") ? "🔙 Главное меню" : "🔙 主菜单");
-        menuButton.setCallbackData("main_menu");
-        menuRow.add(menuButton);
-        rows.add(menuRow);
-
-        keyboard.setKeyboard(rows);
-        return keyboard;
+        outboundScheduler.submit(chatId, "sendMessage", request);
     }
 
     private void editMessageWithDictionary(Long chatId, Integer messageId) {
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         if (userOpt.isEmpty()) return;
 
         User user = userOpt.get();
         String level = userDictionaryLevel.getOrDefault(chatId, user.getLevel());
-        String targetLang = user.getTargetLanguage();
-
-        List<Word> allWords;
-        if ("ALL".equals(level)) {
-            allWords = wordRepository.findByLang(targetLang);
-        } else {
-            allWords = wordRepository.findByLevelAndLang(level, targetLang);
-        }
-
-        int pageSize = 30;
-        int totalPages = (int) Math.ceil((double) allWords.size() / pageSize);
-
-        int currentPage = userDictionaryPage.getOrDefault(chatId, 0);
-
-        int fromIndex = currentPage * pageSize;
-        int toIndex = Math.min(fromIndex + pageSize, allWords.size());
-        List<Word> wordsOnPage = allWords.subList(fromIndex, toIndex);
-
-        StringBuilder sb = new StringBuilder();
-        String nativeLang = user.getNativeLanguage();
-
-        String levelDisplay = "ALL".equals(level) ? 
-            (nativeLang.equals("ru") ? "Все уровни" : "所有级别") : level;
 
-        if (nativeLang.equals("ru")) {
-            sb.append("📖 Словарь - Уровень *").append(levelDisplay).append("* (").append(currentPage + 1).append("/").append(totalPages).append("):\n\n");
-            sb.append("Нажми на звезду ⭐ чтобы добавить слово в избранное\n\n");
-        } else {
-            sb.append("📖 词典 - 级别 *").append(levelDisplay).append("* (").append(currentPage + 1).append("/").append(totalPages).append("):\n\n");
-            sb.append("点击星星 ⭐ 将单词添加到收藏\n\n");
-        }
-
-        for (int i = 0; i < wordsOnPage.size(); i++) {
-            Word w = wordsOnPage.get(i);
-            int globalIndex = currentPage * pageSize + i + 1;
-            String wordLine;
-            if (w.getTranscription() != null && !w.getTranscription().isEmpty()) {
-                wordLine = globalIndex + ". " + w.getWord() + " (" + w.getTranscription() + ") — " + w.getTranslation();
-            } else {
-                wordLine = globalIndex + ". " + w.getWord() + " — " + w.getTranslation();
-            }
-            sb.append(wordLine).append("\n");
-        }
-
-        InlineKeyboardMarkup keyboard = createDictionaryInlineKeyboard(chatId, currentPage, totalPages, nativeLang, wordsOnPage, level);
-        editMessageText(chatId, messageId, sb.toString(), keyboard);
+        DictionaryPageCache.RenderedPage page = dictionaryPages.page(user.getTargetLanguage(), user.getNativeLanguage(),
+                level, userDictionaryPage.getOrDefault(chatId, 0), true);
+        userDictionaryPage.put(chatId, page.page());
+        editMessageText(chatId, messageId, page.text(), page.keyboard());
     }
 
-    private void editMessageText(Long chatId, Integer messageId, String text, InlineKeyboardMarkup keyboard) {
-        try {
-            Map<String, Object> request = new HashMap<>();
-            request.put("chat_id", chatId);
-            request.put("message_id", messageId);
-            request.put("text", text);
-            request.put("parse_mode", "Markdown");
-            request.put("reply_markup", keyboard);
-
-            RestTemplate restTemplate = new RestTemplate();
-            restTemplate.postForObject(SEND_MESSAGE_URL + botToken + "/editMessageText", request, String.class);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+    private void editMessageText(Long chatId, Integer messageId, String text, Object keyboard) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("chat_id", chatId);
+        request.put("message_id", messageId);
+        request.put("text", text);
+        request.put("parse_mode", "Markdown");
+        request.put("reply_markup", keyboard);
+
+        outboundScheduler.submit(chatId, "editMessageText", request);
     }
 
     private void handleDictionaryCommand(Long chatId, String text) {
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         if (userOpt.isEmpty()) {
             sendMessage(chatId, "Ошибка: пользователь не найден.");
             showMainMenu(chatId);
             userStates.put(chatId, ConversationState.IN_MENU);
             return;
         }
-        String nativeLang = userOpt.map(User::getNativeLanguage).orElse("ru");
-
-        if (text.equals(nativeLang.equals("ru") ? "⬅️ Назад" : "⬅️ 上一页")) {
-            int currentPage = userDictionaryPage.getOrDefault(chatId, 0);
-            if (currentPage > 0) {
-                userDictionaryPage.put(chatId, currentPage - 1);
-            }
-            showDictionary(chatId);
-        } else if (text.equals(nativeLang.equals("ru") ? "Вперёд ➡️" : "下一页 ➡️")) {
-            int currentPage = userDictionaryPage.getOrDefault(chatId, 0);
-            int totalPages = (int) Math.ceil((double) wordRepository.findByLevelAndLang(
-                userOpt.get().getLevel(), userOpt.get().getTargetLanguage()).size() / 30.0);
-            if (currentPage < totalPages - 1) {
-                userDictionaryPage.put(chatId, currentPage + 1);
-            }
-            showDictionary(chatId);
-        } else if (text.equals(nativeLang.equals("ru") ? "🔙 Главное меню" : "🔙 主菜单")) {
-            userStates.put(chatId, ConversationState.IN_MENU);
-            showMainMenu(chatId);
-        } else {
-            showDictionary(chatId);
-        }
-    }
-
-    private void sendDictionaryPaginationKeyboard(Long chatId, int currentPage, int totalPages) {
-        String nativeLang = userRepository.findByChatId(chatId).map(User::getNativeLanguage).orElse("ru");
-
-        List<List<String>> buttons = new ArrayList<>();
-
-        List<String> navRow = new ArrayList<>();
-        if (currentPage > 0) {
-            navRow.add(nativeLang.equals("ru") ? "⬅️ Назад" : "⬅️ 上一页");
-        }
-        if (currentPage < totalPages - 1) {
-            navRow.add(nativeLang.equals("ru") ? "Вперёд ➡️" : "下一页 ➡️");
-        }
-        if (!navRow.isEmpty()) {
-            buttons.add(navRow);
-        }
-
-        buttons.add(List.of(nativeLang.equals("ru") ? "🔙 Главное меню" : "🔙 主菜单"));
-
-        sendMessageWithButtons(chatId, " ", buttons);
+        conversation.dispatch(ConversationState.IN_DICTIONARY, userOpt.get().getNativeLanguage(), chatId, text);
     }
 
     private void showMyWordsMenu(Long chatId) {
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         String nativeLang = userOpt.map(User::getNativeLanguage).orElse("ru");
 
         String menuText;
@@ -1904,42 +1846,18 @@ public class TelegramService {
     }
 
     private void handleMyWordsCommand(Long chatId, String command) {
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
-        String nativeLang = userOpt.map(User::getNativeLanguage).orElse("ru");
-
-        String backButtonText = nativeLang.equals("ru") ? "⬅️ Назад в меню" : "⬅️ 返回菜单";
-        String unknownWordsButton = nativeLang.equals("ru") ? "❌ Не знаю" : "❌ 不认识";
-        String favoritesButton = nativeLang.equals("ru") ? "⭐ Избранное" : "⭐ 收藏";
-
-        if (command.equals(backButtonText)) {
-            userStates.put(chatId, ConversationState.IN_MENU);
-            showMainMenu(chatId);
-            userWordDeleteMap.remove(chatId);
-            return;
-        } else if (command.equals(unknownWordsButton)) {
-            currentMyWordsSection.put(chatId, "unknown");
-            userDictionaryPage.put(chatId, 0);
-            showMyWords(chatId);
-        } else if (command.equals(favoritesButton)) {
-            currentMyWordsSection.put(chatId, "favorites");
-            userDictionaryPage.put(chatId, 0);
-            showFavoriteWords(chatId);
-        } else {
-            String instruction = nativeLang.equals("ru") ? "Для взаимодействия с 'Моими словами' используй кнопки." : "要与“我的单词”互动，请使用按钮。";
-            sendMessage(chatId, instruction);
-            showMyWordsMenu(chatId);
-        }
+        conversation.dispatch(ConversationState.IN_MY_WORDS, nativeLangOf(chatId), chatId, command);
     }
 
     private void showFavoriteWords(Long chatId) {
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         if (userOpt.isEmpty()) {
             sendMessage(chatId, "Ошибка: пользователь не найден.");
             showMainMenu(chatId);
             return;
         }
 
-        List<UserFavoriteWord> allUserFavorites = userFavoriteWordRepository.findByUserChatIdWithWord(chatId);
+        List<UserFavoriteWord> allUserFavorites = loadFavoriteWords(chatId);
         
         if (allUserFavorites.isEmpty()) {
             String nativeLang = userOpt.get().getNativeLanguage();
@@ -1995,7 +1913,7 @@ public class TelegramService {
     private void handleDeleteWord(Long chatId, String buttonCommand) {
         Map<String, Long> deleteMap = userWordDeleteMap.get(chatId);
         if (deleteMap == null || !deleteMap.containsKey(buttonCommand)) {
-            Optional<User> userOpt = userRepository.findByChatId(chatId);
+            Optional<User> userOpt = userProfiles.findByChatId(chatId);
             String nativeLang = userOpt.map(User::getNativeLanguage).orElse("ru");
             String errorMessage = nativeLang.equals("ru") ? "❌ Ошибка при удалении слова." : "❌ 删除单词时出错。";
             sendMessage(chatId, errorMessage);
@@ -2004,7 +1922,7 @@ public class TelegramService {
         }
 
         Long wordIdToDelete = deleteMap.get(buttonCommand);
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         if (userOpt.isEmpty()) {
             sendMessage(chatId, "Ошибка: пользователь не найден.");
             showMainMenu(chatId);
@@ -2012,10 +1930,8 @@ public class TelegramService {
             return;
         }
 
-        Optional<UserWord> userWordOpt = userWordRepository.findByUserChatIdAndWordId(chatId, wordIdToDelete);
-        if (userWordOpt.isPresent()) {
-            userWordRepository.delete(userWordOpt.get());
-            Optional<Word> wordOpt = wordRepository.findById(wordIdToDelete);
+        if (removeUnknownWord(chatId, wordIdToDelete)) {
+            Optional<Word> wordOpt = wordCatalog.findById(wordIdToDelete);
             String wordStr = wordOpt.map(Word::getWord).orElse("слово");
             String nativeLang = userOpt.get().getNativeLanguage();
             String successMessage;
@@ -2035,7 +1951,7 @@ public class TelegramService {
     }
 
     private void showSettings(Long chatId) {
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         if (userOpt.isPresent()) {
             User user = userOpt.get();
             String nativeLang = user.getNativeLanguage();
@@ -2080,74 +1996,22 @@ public class TelegramService {
         }
     }
 
-    private enum ConversationState {
-        START, AWAITING_NATIVE_LANG, AWAITING_TARGET_LANG, AWAITING_LEVEL,
-        IN_MENU, IN_MY_WORDS, IN_SENTENCE_GAME, IN_SETTINGS, IN_DICTIONARY,
-        AWAITING_NEW_NATIVE_LANG, AWAITING_NEW_TARGET_LANG, AWAITING_NEW_LEVEL
-    }
-
     private void handleSettingsCommand(Long chatId, String command) {
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         if (userOpt.isEmpty()) {
             sendMessage(chatId, "Ошибка: пользователь не найден.");
             showMainMenu(chatId);
             return;
         }
-        
-        User user = userOpt.get();
-        String nativeLang = user.getNativeLanguage();
-
-        String changeNativeCmdRu = "🔄 Изменить родной язык";
-        String changeTargetCmdRu = "🔄 Изменить изучаемый язык";
-        String changeLevelCmdRu = "🔄 Изменить уровень";
-        String sentenceAmountCmdRu = "📝 Кол-во предложений";
-        String backCmdRu = "⬅️ Назад в меню";
-        
-        String changeNativeCmdZh = "🔄 改变母语";
-        String changeTargetCmdZh = "🔄 改变学习语言";
-        String changeLevelCmdZh = "🔄 改变级别";
-        String sentenceAmountCmdZh = "📝 句子数量";
-        String backCmdZh = "⬅️ 返回菜单";
-
-        if (command.equals(changeNativeCmdRu) || command.equals(changeNativeCmdZh)) { 
-            String text = "ru".equals(nativeLang) ? "Выбери свой новый родной язык:" : "选择你的新母语：";
-            List<List<String>> languageButtons = List.of(List.of("🇷🇺 Русский", "🇨🇳 中文"));
-            sendMessageWithButtons(chatId, text, languageButtons);
-            userStates.put(chatId, ConversationState.AWAITING_NEW_NATIVE_LANG);
-        } else if (command.equals(changeTargetCmdRu) || command.equals(changeTargetCmdZh)) {
-            handleNewTargetLanguageRequest(chatId); 
-        } else if (command.equals(changeLevelCmdRu) || command.equals(changeLevelCmdZh)) {
-            String text = "ru".equals(nativeLang) ? "Выбери новый уровень знаний:" : "选择你的新级别：";
-            List<List<String>> levelButtons = List.of(
-                List.of("A1", "A2"),
-                List.of("B1", "B2"),
-                List.of("C1", "C2")
-            );
-            sendMessageWithButtons(chatId, text, levelButtons);
-            userStates.put(chatId, ConversationState.AWAITING_NEW_LEVEL);
-        } else if (command.equals(sentenceAmountCmdRu) || command.equals(sentenceAmountCmdZh)) {
-            showSentenceAmountOptions(chatId);
-        } else if (command.equals(backCmdRu) || command.equals(backCmdZh)) {
-            showMainMenu(chatId);
-            userStates.put(chatId, ConversationState.IN_MENU);
-        } else if (command.matches("\\d+")) {
-            int amount = Integer.parseInt(command);
-            handleSentenceAmountSelection(chatId, amount);
-        } else {
-            String errorMessage = "ru".equals(nativeLang) ? 
-                "Неизвестная команда. Пожалуйста, используй меню настроек." : 
-                "未知命令。请使用设置菜单。";
-            sendMessage(chatId, errorMessage);
-            showSettings(chatId);
-        }
+        conversation.dispatch(ConversationState.IN_SETTINGS, userOpt.get().getNativeLanguage(), chatId, command);
     }
 
     private void handleSentenceAmountSelection(Long chatId, int amount) {
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         if (userOpt.isPresent()) {
             User user = userOpt.get();
             user.setSentenceGameAmount(amount);
-            userRepository.save(user);
+            userProfiles.save(user);
 
             String nativeLang = user.getNativeLanguage();
             String confirmationText = nativeLang.equals("ru") ? 
@@ -2163,7 +2027,7 @@ public class TelegramService {
     }
 
     private void showSentenceAmountOptions(Long chatId) {
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         String nativeLang = userOpt.map(User::getNativeLanguage).orElse("ru");
 
         String text;
@@ -2191,7 +2055,7 @@ public class TelegramService {
     }
 
     private void handleNewTargetLanguageRequest(Long chatId) {
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         if (userOpt.isPresent()) {
             User user = userOpt.get();
             String nativeLang = user.getNativeLanguage();
@@ -2212,11 +2076,9 @@ public class TelegramService {
 
     private void deleteUnknownWord(Long chatId, Long wordId, Integer messageId) {
         try {
-            Optional<UserWord> userWordOpt = userWordRepository.findByUserChatIdAndWordId(chatId, wordId);
-            if (userWordOpt.isPresent()) {
-                userWordRepository.delete(userWordOpt.get());
+            if (removeUnknownWord(chatId, wordId)) {
                 
-                Optional<User> userOpt = userRepository.findByChatId(chatId);
+                Optional<User> userOpt = userProfiles.findByChatId(chatId);
                 String nativeLang = userOpt.map(User::getNativeLanguage).orElse("ru");
                 String successMessage = nativeLang.equals("ru") ? 
                     "✅ Слово удалено из списка 'Не знаю'!" : 
@@ -2237,11 +2099,9 @@ public class TelegramService {
 
     private void deleteFavoriteWord(Long chatId, Long wordId, Integer messageId) {
         try {
-            Optional<UserFavoriteWord> userFavoriteWordOpt = userFavoriteWordRepository.findByUserChatIdAndWordId(chatId, wordId);
-            if (userFavoriteWordOpt.isPresent()) {
-                userFavoriteWordRepository.delete(userFavoriteWordOpt.get());
+            if (removeFavoriteWord(chatId, wordId)) {
                 
-                Optional<User> userOpt = userRepository.findByChatId(chatId);
+                Optional<User> userOpt = userProfiles.findByChatId(chatId);
                 String nativeLang = userOpt.map(User::getNativeLanguage).orElse("ru");
                 String successMessage = nativeLang.equals("ru") ? 
                     "✅ Слово удалено из избранного!" : 
@@ -2271,11 +2131,11 @@ public class TelegramService {
             return;
         }
 
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         if (userOpt.isPresent()) {
             User user = userOpt.get();
             user.setNativeLanguage(nativeLangCode);
-            userRepository.save(user);
+            userProfiles.save(user);
 
             String confirmationText = "✅ Родной язык успешно изменён на *" +
                     ("ru".equals(nativeLangCode) ? "🇷🇺 Русский" : "🇨🇳 中文") + "*";
@@ -2283,7 +2143,7 @@ public class TelegramService {
 
             String newTargetLang = "ru".equals(nativeLangCode) ? "zh" : "ru";
             user.setTargetLanguage(newTargetLang);
-            userRepository.save(user);
+            userProfiles.save(user);
             
             String autoChangeText = "🔄 Изучаемый язык автоматически изменён на *" +
                     ("ru".equals(newTargetLang) ? "🇷🇺 Русский" : "🇨🇳 中文") + "*";
@@ -2308,11 +2168,11 @@ public class TelegramService {
             return;
         }
 
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         if (userOpt.isPresent()) {
             User user = userOpt.get();
             user.setTargetLanguage(targetLangCode);
-            userRepository.save(user);
+            userProfiles.save(user);
 
             String confirmationText = "✅ Изучаемый язык успешно изменён на *" +
                     ("ru".equals(targetLangCode) ? "🇷🇺 Русский" : "🇨🇳 中文") + "*";
@@ -2326,16 +2186,16 @@ public class TelegramService {
     }
 
     private void handleNewLevelSelection(Long chatId, String selectedLevel) {
-        if (!List.of("A1", "A2", "B1", "B2", "C1", "C2").contains(selectedLevel)) {
+        if (CefrLevel.fromCode(selectedLevel) == null) {
             sendMessage(chatId, "Пожалуйста, выбери уровень из предложенных вариантов.");
             return;
         }
 
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         if (userOpt.isPresent()) {
             User user = userOpt.get();
             user.setLevel(selectedLevel);
-            userRepository.save(user);
+            userProfiles.save(user);
 
             String confirmationText = "✅ Уровень знаний успешно изменён на *" + selectedLevel + "*";
             sendMessage(chatId, confirmationText);
@@ -2348,58 +2208,17 @@ public class TelegramService {
     }
 
     private void addToMyWords(Long chatId, Word word) {
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         if (userOpt.isPresent()) {
-            Optional<UserWord> existingUW = userWordRepository.findByUserChatIdAndWordId(chatId, word.getId());
-            if (existingUW.isEmpty()) {
-                UserWord uw = new UserWord();
-                uw.setUserChatId(chatId);
-                uw.setWord(word);
-                userWordRepository.save(uw);
-            }
+            userWordWriteBuffer.addUnknown(chatId, word);
         }
     }
 
-    private static class FlashcardGameSession {
-        private final Long userId;
-        private final String gameType;
-        private final List<Word> words;
-        private int currentIndex;
-        private int correctCount = 0;
-        private int dontKnowCount = 0;
-        private final long startTime;
-        private final boolean useMyWordsOnly;
-        private final String gameLevel;
-
-        public FlashcardGameSession(Long userId, String gameType, List<Word> words, int currentIndex, boolean useMyWordsOnly, String gameLevel) {
-            this.userId = userId;
-            this.gameType = gameType;
-            this.words = new ArrayList<>(words);
-            this.currentIndex = currentIndex;
-            this.startTime = System.currentTimeMillis();
-            this.useMyWordsOnly = useMyWordsOnly;
-            this.gameLevel = gameLevel;
-        }
-
-        public Long getUserId() { return userId; }
-        public String getGameType() { return gameType; }
-        public String getGameLevel() { return gameLevel; }
-        public List<Word> getWords() { return words; }
-        public int getCurrentIndex() { return currentIndex; }
-        public void setCurrentIndex(int currentIndex) { this.currentIndex = currentIndex; }
-        public int getCorrectCount() { return correctCount; }
-        public void incrementCorrectCount() { this.correctCount++; }
-        public int getDontKnowCount() { return dontKnowCount; }
-        public void incrementDontKnowCount() { this.dontKnowCount++; }
-        public long getStartTime() { return startTime; }
-        public boolean isUseMyWordsOnly() { return useMyWordsOnly; }
-    }
-
     private void deleteAllUnknownWords(Long chatId, Integer messageId) {
-        List<UserWord> userWords = userWordRepository.findByUserChatId(chatId);
-        userWordRepository.deleteAll(userWords);
+        userWordWriteBuffer.cancelAllUnknown(chatId);
+        userWordRepository.deleteAllByUser(chatId);
 
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         String nativeLang = userOpt.map(User::getNativeLanguage).orElse("ru");
         String successMessage = nativeLang.equals("ru") ? 
             "✅ Все слова удалены из списка 'Не знаю'!" : 
@@ -2410,10 +2229,10 @@ public class TelegramService {
     }
 
     private void deleteAllFavoriteWords(Long chatId, Integer messageId) {
-        List<UserFavoriteWord> userFavorites = userFavoriteWordRepository.findByUserChatId(chatId);
-        userFavoriteWordRepository.deleteAll(userFavorites);
+        userWordWriteBuffer.cancelAllFavorites(chatId);
+        userFavoriteWordRepository.deleteAllByUser(chatId);
 
-        Optional<User> userOpt = userRepository.findByChatId(chatId);
+        Optional<User> userOpt = userProfiles.findByChatId(chatId);
         String nativeLang = userOpt.map(User::getNativeLanguage).orElse("ru");
         String successMessage = nativeLang.equals("ru") ? 
             "✅ Все слова удалены из избранного!" : 
@@ -2423,38 +2242,4 @@ public class TelegramService {
         editMessageWithFavoriteWords(chatId, messageId);
     }
 
-    private static class SentenceGameSession {
-        private final Long userId;
-        private final List<Sentence> sentences;
-        private int currentRound;
-        private int correctCount;
-        private int incorrectCount;
-        private final long startTime;
-
-        public SentenceGameSession(Long userId, List<Sentence> sentences, int totalRounds, String targetLanguage) {
-            this.userId = userId;
-
-            Collections.shuffle(sentences);
-            this.sentences = sentences.subList(0, Math.min(totalRounds, sentences.size()));
-            this.currentRound = 0;
-            this.correctCount = 0;
-            this.incorrectCount = 0;
-            this.startTime = System.currentTimeMillis();
-        }
-
-        public Long getUserId() { return userId; }
-        public List<Sentence> getSentences() { return sentences; }
-        public int getCurrentRound() { return currentRound; }
-        public void setCurrentRound(int currentRound) { this.currentRound = currentRound; }
-        public int getCorrectCount() { return correctCount; }
-        public void incrementCorrectCount() { this.correctCount++; }
-        public int getIncorrectCount() { return incorrectCount; }
-        public void incrementIncorrectCount() { this.incorrectCount++; }
-        public long getStartTime() { return startTime; }
-        public boolean isFinished() { return currentRound >= sentences.size(); }
-        
-        public Sentence getCurrentSentence() { 
-            return sentences.get(currentRound); 
-        }
-    }
 }
\ No newline at end of file
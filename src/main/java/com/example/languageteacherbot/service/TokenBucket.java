@@ -0,0 +1,80 @@
+package com.example.languageteacherbot.service;
+
+import java.util.concurrent.TimeUnit;
+
+public class TokenBucket {
+
+    private final double ratePerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefill;
+    private long pausedUntil;
+    private boolean paused;
+
+    public TokenBucket(double ratePerSecond, double capacity) {
+        this.ratePerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    public synchronized long nanosUntilAvailable() {
+        refill();
+        long pause = pauseRemaining();
+        if (pause > 0) return pause;
+        if (tokens >= 1) return 0;
+        return (long) Math.ceil((1 - tokens) / ratePerNano);
+    }
+
+    public synchronized long tryAcquire() {
+        refill();
+        long pause = pauseRemaining();
+        if (pause > 0) return pause;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / ratePerNano);
+    }
+
+    public synchronized void consume() {
+        refill();
+        tokens -= 1;
+    }
+
+    public void acquire() throws InterruptedException {
+        long wait;
+        while ((wait = tryAcquire()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * Hands out no tokens for the given time, e.g. while Telegram's retry_after runs. Overlapping
+     * pauses keep the later end.
+     */
+    public synchronized void pause(long nanos) {
+        long until = System.nanoTime() + nanos;
+        if (!paused || until - pausedUntil > 0) pausedUntil = until;
+        paused = true;
+    }
+
+    public synchronized boolean isFull() {
+        refill();
+        return tokens >= capacity;
+    }
+
+    private long pauseRemaining() {
+        if (!paused) return 0;
+        long remaining = pausedUntil - System.nanoTime();
+        if (remaining > 0) return remaining;
+        paused = false;
+        return 0;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerNano);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,308 @@
+package com.example.languageteacherbot.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+@ConditionalOnProperty(name = "telegram.bot.engine", havingValue = "imperative", matchIfMissing = true)
+// Destroyed before the write buffer, so inserts made while draining are still flushed.
+@DependsOn("userWordWriteBuffer")
+public class UpdateDispatcher implements StatsSource {
+
+    @Value("${telegram.dispatcher.shards:8}")
+    private int shardCount;
+
+    @Value("${telegram.dispatcher.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${telegram.dispatcher.mode:platform}")
+    private String mode;
+
+    @Value("${telegram.dispatcher.virtual.max-queued:80000}")
+    private int virtualMaxQueued;
+
+    private Shard[] shards;
+    private VirtualLanes lanes;
+
+    @PostConstruct
+    public void start() {
+        if (isVirtual()) {
+            lanes = new VirtualLanes(virtualMaxQueued);
+            System.out.println("Update dispatcher started with virtual-thread lanes");
+            return;
+        }
+        shards = new Shard[Math.max(1, shardCount)];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(i, queueCapacity);
+            shards[i].worker.start();
+        }
+        System.out.println("Update dispatcher started with " + shards.length + " shards");
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (lanes != null) {
+            lanes.stop();
+            return;
+        }
+        for (Shard shard : shards) {
+            shard.running = false;
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.worker.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    public void dispatch(long chatId, Runnable task) {
+        if (lanes != null) {
+            lanes.dispatch(chatId, task);
+            return;
+        }
+        Shard shard = shards[shardIndex(chatId)];
+        try {
+            shard.queue.put(new Job(task, System.nanoTime()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean tryDispatch(long chatId, Runnable task) {
+        if (lanes != null) return lanes.tryDispatch(chatId, task);
+        return shards[shardIndex(chatId)].queue.offer(new Job(task, System.nanoTime()));
+    }
+
+    public int queuedTotal() {
+        if (lanes != null) return lanes.queued();
+        int total = 0;
+        for (Shard shard : shards) {
+            total += shard.queue.size();
+        }
+        return total;
+    }
+
+    public boolean isVirtual() {
+        return "virtual".equalsIgnoreCase(mode);
+    }
+
+    private int shardIndex(long chatId) {
+        int h = Long.hashCode(chatId);
+        h ^= (h >>> 16);
+        return Math.floorMod(h * 0x9E3779B9, shards.length);
+    }
+
+    @Override
+    public String statsName() {
+        return "dispatcher";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        if (lanes != null) return lanes.stats();
+        long now = System.nanoTime();
+        List<Map<String, Object>> perShard = new ArrayList<>();
+        for (Shard shard : shards) {
+            Job head = shard.queue.peek();
+            Map<String, Object> s = new LinkedHashMap<>();
+            s.put("shard", shard.index);
+            s.put("queued", shard.queue.size());
+            s.put("oldestWaitMs", head == null ? 0 : TimeUnit.NANOSECONDS.toMillis(now - head.enqueuedAt));
+            s.put("lastLagMs", shard.lastLagMillis);
+            s.put("maxLagMs", shard.maxLagMillis.get());
+            s.put("processed", shard.processed.get());
+            s.put("failed", shard.failed.get());
+            perShard.add(s);
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", "platform");
+        stats.put("shards", shards.length);
+        stats.put("queuedTotal", queuedTotal());
+        stats.put("perShard", perShard);
+        return stats;
+    }
+
+    private record Job(Runnable task, long enqueuedAt) {}
+
+    private static final class Shard implements Runnable {
+        private final int index;
+        private final BlockingQueue<Job> queue;
+        private final Thread worker;
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong maxLagMillis = new AtomicLong();
+        private volatile long lastLagMillis;
+        private volatile boolean running = true;
+
+        Shard(int index, int capacity) {
+            this.index = index;
+            this.queue = new LinkedBlockingQueue<>(capacity);
+            this.worker = new Thread(this, "update-shard-" + index);
+        }
+
+        @Override
+        public void run() {
+            while (running || !queue.isEmpty()) {
+                Job job;
+                try {
+                    job = queue.poll(500, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (job == null) continue;
+
+                long lag = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - job.enqueuedAt);
+                lastLagMillis = lag;
+                maxLagMillis.accumulateAndGet(lag, Math::max);
+                try {
+                    job.task.run();
+                    processed.incrementAndGet();
+                } catch (Throwable e) {
+                    // Errors too: once this thread dies, dispatch() blocks on the full queue forever.
+                    failed.incrementAndGet();
+                    System.err.println("Error processing update on shard " + index + ": " + e);
+                }
+            }
+        }
+    }
+
+    /**
+     * One lane per chat with pending updates; each lane drains on its own virtual thread,
+     * so updates for a chat stay ordered while blocking I/O only parks the virtual thread.
+     */
+    private static final class VirtualLanes {
+        private final Map<Long, Lane> lanes = new ConcurrentHashMap<>();
+        private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("update-lane-", 0).factory());
+        private final Semaphore capacity;
+        private final int maxQueued;
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong maxLagMillis = new AtomicLong();
+        private volatile long lastLagMillis;
+
+        VirtualLanes(int maxQueued) {
+            this.maxQueued = Math.max(1, maxQueued);
+            this.capacity = new Semaphore(this.maxQueued);
+        }
+
+        void dispatch(long chatId, Runnable task) {
+            try {
+                capacity.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            enqueue(chatId, new Job(task, System.nanoTime()));
+        }
+
+        boolean tryDispatch(long chatId, Runnable task) {
+            if (!capacity.tryAcquire()) return false;
+            enqueue(chatId, new Job(task, System.nanoTime()));
+            return true;
+        }
+
+        private void enqueue(long chatId, Job job) {
+            while (true) {
+                Lane lane = lanes.computeIfAbsent(chatId, Lane::new);
+                synchronized (lane) {
+                    if (lane.retired) continue;
+                    lane.jobs.add(job);
+                    if (!lane.running) {
+                        lane.running = true;
+                        executor.execute(lane);
+                    }
+                    return;
+                }
+            }
+        }
+
+        int queued() {
+            return maxQueued - capacity.availablePermits();
+        }
+
+        void stop() {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        Map<String, Object> stats() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("mode", "virtual");
+            stats.put("activeLanes", lanes.size());
+            stats.put("queuedTotal", queued());
+            stats.put("lastLagMs", lastLagMillis);
+            stats.put("maxLagMs", maxLagMillis.get());
+            stats.put("processed", processed.get());
+            stats.put("failed", failed.get());
+            return stats;
+        }
+
+        private final class Lane implements Runnable {
+            private final long chatId;
+            private final ArrayDeque<Job> jobs = new ArrayDeque<>();
+            private boolean running;
+            private boolean retired;
+
+            Lane(long chatId) {
+                this.chatId = chatId;
+            }
+
+            @Override
+            public void run() {
+                while (true) {
+                    Job job;
+                    synchronized (this) {
+                        job = jobs.poll();
+                        if (job == null) {
+                            running = false;
+                            retired = true;
+                            lanes.remove(chatId, this);
+                            return;
+                        }
+                    }
+
+                    long lag = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - job.enqueuedAt);
+                    lastLagMillis = lag;
+                    maxLagMillis.accumulateAndGet(lag, Math::max);
+                    try {
+                        job.task.run();
+                        processed.incrementAndGet();
+                    } catch (Throwable e) {
+                        // Errors too: a lane that dies while marked running is never drained again.
+                        failed.incrementAndGet();
+                        System.err.println("Error processing update for chat " + chatId + ": " + e);
+                    } finally {
+                        capacity.release();
+                    }
+                }
+            }
+        }
+    }
+}
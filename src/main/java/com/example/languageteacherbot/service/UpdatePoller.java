@@ -0,0 +1,147 @@
+package com.example.languageteacherbot.service;
+
+import com.example.languageteacherbot.telegram.TelegramApiException;
+import com.example.languageteacherbot.telegram.TelegramUpdate;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+@ConditionalOnExpression("'${telegram.bot.mode:polling}' == 'polling' && '${telegram.bot.engine:imperative}' == 'imperative'")
+public class UpdatePoller implements StatsSource, Runnable {
+
+    private static final int MAX_LIMIT = 100;
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    @Autowired
+    private TelegramService telegramService;
+
+    @Autowired
+    private UpdateDispatcher updateDispatcher;
+
+    @Autowired
+    private SessionSnapshotter snapshotter;
+
+    @Value("${telegram.polling.timeout-seconds:30}")
+    private int timeoutSeconds;
+
+    @Value("${telegram.polling.min-limit:10}")
+    private int minLimit;
+
+    @Value("${telegram.polling.backlog-high-watermark:2000}")
+    private int backlogHighWatermark;
+
+    private final AtomicLong lastUpdateId = new AtomicLong(0L);
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong updatesReceived = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private volatile int limit;
+    private volatile int lastBatchSize;
+    private volatile long lastFetchMillis;
+    private volatile boolean running;
+    private Thread thread;
+
+    @PostConstruct
+    public void start() {
+        limit = Math.max(1, Math.min(minLimit, MAX_LIMIT));
+        lastUpdateId.set(snapshotter.restoredUpdateId());
+        running = true;
+        thread = new Thread(this, "update-poller");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        thread.interrupt();
+    }
+
+    @Override
+    public void run() {
+        long backoff = 1000;
+        while (running) {
+            if (!telegramService.isPollingActive()) {
+                if (!sleep(200)) return;
+                continue;
+            }
+            try {
+                long started = System.currentTimeMillis();
+                List<TelegramUpdate> updates = telegramService.fetchUpdates(
+                        lastUpdateId.get() + 1, limit, timeoutSeconds);
+                lastFetchMillis = System.currentTimeMillis() - started;
+
+                for (TelegramUpdate update : updates) {
+                    telegramService.enqueueUpdate(update);
+                    lastUpdateId.set(update.updateId());
+                }
+
+                batches.incrementAndGet();
+                updatesReceived.addAndGet(updates.size());
+                lastBatchSize = updates.size();
+                tuneLimit(updates.size());
+                backoff = 1000;
+            } catch (Exception e) {
+                errors.incrementAndGet();
+                System.err.println("Error polling updates: " + e.getMessage());
+
+                if (e instanceof TelegramApiException apiError && apiError.getStatusCode() == 409) {
+                    telegramService.onPollingConflict();
+                }
+                if (!sleep(backoff)) return;
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+            }
+        }
+    }
+
+    private void tuneLimit(int batchSize) {
+        int backlog = updateDispatcher.queuedTotal();
+        if (backlog > backlogHighWatermark) {
+            limit = Math.max(1, limit / 2);
+        } else if (batchSize >= limit) {
+            limit = Math.min(MAX_LIMIT, limit * 2);
+        } else if (batchSize < limit / 4 && limit > minLimit) {
+            limit = Math.max(minLimit, limit / 2);
+        }
+    }
+
+    private boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public long getLastUpdateId() {
+        return lastUpdateId.get();
+    }
+
+    @Override
+    public String statsName() {
+        return "poller";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("lastUpdateId", lastUpdateId.get());
+        stats.put("limit", limit);
+        stats.put("batches", batches.get());
+        stats.put("updatesReceived", updatesReceived.get());
+        stats.put("lastBatchSize", lastBatchSize);
+        stats.put("lastFetchMs", lastFetchMillis);
+        stats.put("errors", errors.get());
+        return stats;
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.languageteacherbot.service;
+
+import com.example.languageteacherbot.entity.User;
+import com.example.languageteacherbot.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Front of {@link UserRepository} for profile lookups. Inside {@link #inScope} every lookup of a
+ * chat returns the same instance, so one update loads its user at most once; across updates a
+ * bounded LRU keeps copies for {@code telegram.users.cache-ttl-seconds}. {@link #save} writes
+ * through to the database and refreshes both levels.
+ */
+@Component
+public class UserProfileCache implements StatsSource {
+
+    private static final ThreadLocal<Map<Long, Optional<User>>> SCOPE = new ThreadLocal<>();
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${telegram.users.cache-size:10000}")
+    private int maxEntries;
+
+    @Value("${telegram.users.cache-ttl-seconds:60}")
+    private long ttlSeconds;
+
+    private final Map<Long, Entry> near = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            if (size() > Math.max(1, maxEntries)) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+    private final AtomicLong scopeHits = new AtomicLong();
+    private final AtomicLong nearHits = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+
+    /**
+     * Runs the task with a per-update scope on the current thread. Nested calls reuse the outer scope.
+     */
+    public void inScope(Runnable task) {
+        if (SCOPE.get() != null) {
+            task.run();
+            return;
+        }
+        SCOPE.set(new HashMap<>());
+        try {
+            task.run();
+        } finally {
+            SCOPE.remove();
+        }
+    }
+
+    public Optional<User> findByChatId(Long chatId) {
+        Map<Long, Optional<User>> scope = SCOPE.get();
+        if (scope != null) {
+            Optional<User> scoped = scope.get(chatId);
+            if (scoped != null) {
+                scopeHits.incrementAndGet();
+                return scoped;
+            }
+        }
+
+        Optional<User> user = fromNearCache(chatId);
+        if (user == null) {
+            loads.incrementAndGet();
+            user = userRepository.findByChatId(chatId);
+            user.ifPresent(this::remember);
+        }
+        if (scope != null) {
+            scope.put(chatId, user);
+        }
+        return user;
+    }
+
+    public User save(User user) {
+        User saved = userRepository.save(user);
+        writes.incrementAndGet();
+        remember(saved);
+        Map<Long, Optional<User>> scope = SCOPE.get();
+        if (scope != null) {
+            scope.put(saved.getChatId(), Optional.of(saved));
+        }
+        return saved;
+    }
+
+    public void evict(Long chatId) {
+        synchronized (near) {
+            near.remove(chatId);
+        }
+        Map<Long, Optional<User>> scope = SCOPE.get();
+        if (scope != null) {
+            scope.remove(chatId);
+        }
+    }
+
+    private Optional<User> fromNearCache(Long chatId) {
+        synchronized (near) {
+            Entry entry = near.get(chatId);
+            if (entry == null) return null;
+            if (entry.expiresAt() < System.currentTimeMillis()) {
+                near.remove(chatId);
+                expired.incrementAndGet();
+                return null;
+            }
+            nearHits.incrementAndGet();
+            return Optional.of(copy(entry.user()));
+        }
+    }
+
+    private void remember(User user) {
+        Entry entry = new Entry(copy(user), System.currentTimeMillis() + ttlSeconds * 1000);
+        synchronized (near) {
+            near.put(user.getChatId(), entry);
+        }
+    }
+
+    // Callers mutate the user before saving it; the cached copy only changes through save().
+    private static User copy(User user) {
+        return new User(user.getChatId(), user.getFirstName(), user.getLastName(), user.getNativeLanguage(),
+                user.getTargetLanguage(), user.getLevel(), user.getRegisteredAt(), user.getLastActivityAt(),
+                user.getSentenceGameAmount());
+    }
+
+    @Override
+    public String statsName() {
+        return "userProfiles";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        long hits = scopeHits.get() + nearHits.get();
+        long total = hits + loads.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (near) {
+            stats.put("size", near.size());
+        }
+        stats.put("capacity", maxEntries);
+        stats.put("scopeHits", scopeHits.get());
+        stats.put("nearHits", nearHits.get());
+        stats.put("loads", loads.get());
+        stats.put("hitRatePercent", total == 0 ? 100 : hits * 100 / total);
+        stats.put("writes", writes.get());
+        stats.put("evictions", evictions.get());
+        stats.put("expired", expired.get());
+        return stats;
+    }
+
+    private record Entry(User user, long expiresAt) {}
+}
@@ -0,0 +1,301 @@
+package com.example.languageteacherbot.service;
+
+import com.example.languageteacherbot.entity.UserFavoriteWord;
+import com.example.languageteacherbot.entity.UserWord;
+import com.example.languageteacherbot.entity.Word;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind buffer for "don't know" and favorite word inserts. Additions are collected in
+ * memory and written as JDBC batches of {@code INSERT ... ON CONFLICT DO NOTHING}, either when
+ * {@code telegram.words.batch-size} entries are pending or every
+ * {@code telegram.words.flush-interval-ms}. Readers merge {@link #pendingUnknown} /
+ * {@link #pendingFavorites} into what they load, and removals cancel pending inserts first.
+ * At most {@code telegram.words.max-pending} entries are held; beyond that inserts are written
+ * directly. A batch the database rejects is split until the offending row is found and dropped.
+ */
+@Component
+public class UserWordWriteBuffer implements StatsSource {
+
+    private static final String INSERT_UNKNOWN = "INSERT INTO user_words (user_chat_id, word_id, marked_as_unknown) "
+            + "VALUES (?, ?, true) ON CONFLICT (user_chat_id, word_id) DO NOTHING";
+    private static final String INSERT_FAVORITE = "INSERT INTO user_favorite_words (user_chat_id, word_id) "
+            + "VALUES (?, ?) ON CONFLICT (user_chat_id, word_id) DO NOTHING";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${telegram.words.batch-size:200}")
+    private int batchSize;
+
+    @Value("${telegram.words.max-pending:50000}")
+    private int maxPending;
+
+    // Pending inserts per chat, word id -> word. Guarded by "this".
+    private final Map<Long, Map<Long, Word>> unknown = new HashMap<>();
+    private final Map<Long, Map<Long, Word>> favorites = new HashMap<>();
+    private int pendingCount;
+
+    // Held for a whole flush so that a removal never races with an insert that is being written.
+    private final Object flushLock = new Object();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final AtomicLong buffered = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private ExecutorService flusher;
+    private volatile boolean closed;
+
+    @PostConstruct
+    public void init() {
+        flusher = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "user-word-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Final flush at shutdown. The update dispatcher is destroyed first, so this runs after it has
+     * drained; anything added after that is written directly instead of being buffered.
+     */
+    @PreDestroy
+    public void close() {
+        closed = true;
+        flusher.shutdown();
+        flush();
+    }
+
+    public void addUnknown(Long chatId, Word word) {
+        add(unknown, INSERT_UNKNOWN, chatId, word);
+    }
+
+    public void addFavorite(Long chatId, Word word) {
+        add(favorites, INSERT_FAVORITE, chatId, word);
+    }
+
+    public List<UserWord> pendingUnknown(Long chatId) {
+        List<UserWord> result = new ArrayList<>();
+        synchronized (this) {
+            Map<Long, Word> words = unknown.get(chatId);
+            if (words == null) return result;
+            for (Word word : words.values()) {
+                UserWord userWord = new UserWord();
+                userWord.setUserChatId(chatId);
+                userWord.setWord(word);
+                result.add(userWord);
+            }
+        }
+        return result;
+    }
+
+    public List<UserFavoriteWord> pendingFavorites(Long chatId) {
+        List<UserFavoriteWord> result = new ArrayList<>();
+        synchronized (this) {
+            Map<Long, Word> words = favorites.get(chatId);
+            if (words == null) return result;
+            for (Word word : words.values()) {
+                UserFavoriteWord favorite = new UserFavoriteWord();
+                favorite.setUserChatId(chatId);
+                favorite.setWord(word);
+                result.add(favorite);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drops a pending insert. Returns true if there was one, i.e. the row is not in the database yet.
+     */
+    public boolean cancelUnknown(Long chatId, Long wordId) {
+        return cancel(unknown, chatId, wordId);
+    }
+
+    public boolean cancelFavorite(Long chatId, Long wordId) {
+        return cancel(favorites, chatId, wordId);
+    }
+
+    public void cancelAllUnknown(Long chatId) {
+        cancel(unknown, chatId, null);
+    }
+
+    public void cancelAllFavorites(Long chatId) {
+        cancel(favorites, chatId, null);
+    }
+
+    @Scheduled(fixedDelayString = "${telegram.words.flush-interval-ms:1000}")
+    public void flush() {
+        synchronized (flushLock) {
+            flushRequested.set(false);
+            List<Object[]> unknownRows;
+            List<Object[]> favoriteRows;
+            synchronized (this) {
+                if (pendingCount == 0) return;
+                unknownRows = rows(unknown);
+                favoriteRows = rows(favorites);
+            }
+            // Rows that were written or dropped; whatever is left stays pending for the next flush.
+            List<Object[]> unknownDone = new ArrayList<>();
+            List<Object[]> favoriteDone = new ArrayList<>();
+            try {
+                write(INSERT_UNKNOWN, unknownRows, unknownDone);
+                write(INSERT_FAVORITE, favoriteRows, favoriteDone);
+            } catch (Exception e) {
+                failures.incrementAndGet();
+                System.err.println("Failed to flush " + (unknownRows.size() + favoriteRows.size()
+                        - unknownDone.size() - favoriteDone.size()) + " user words, will retry: " + e.getMessage());
+            }
+            synchronized (this) {
+                remove(unknown, unknownDone);
+                remove(favorites, favoriteDone);
+            }
+        }
+    }
+
+    private void add(Map<Long, Map<Long, Word>> pending, String sql, Long chatId, Word word) {
+        boolean full;
+        boolean overflow = false;
+        synchronized (this) {
+            Map<Long, Word> words = pending.get(chatId);
+            if (words != null && words.containsKey(word.getId())) return;
+            if (closed || pendingCount >= maxPending) {
+                overflow = true;
+            } else {
+                pending.computeIfAbsent(chatId, k -> new LinkedHashMap<>()).put(word.getId(), word);
+                pendingCount++;
+            }
+            full = pendingCount >= batchSize;
+        }
+        if (overflow) {
+            writeThrough(sql, chatId, word.getId());
+        } else {
+            buffered.incrementAndGet();
+        }
+        if (full && !closed && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flush);
+        }
+    }
+
+    // The buffer is closed, or full because flushes have been failing for a while: write this row on its own.
+    private void writeThrough(String sql, Long chatId, Long wordId) {
+        synchronized (flushLock) {
+            try {
+                jdbcTemplate.update(sql, chatId, wordId);
+                written.incrementAndGet();
+            } catch (Exception e) {
+                dropped.incrementAndGet();
+                System.err.println("User word buffer " + (closed ? "closed" : "full") + ", dropping word " + wordId
+                        + " for chat " + chatId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private boolean cancel(Map<Long, Map<Long, Word>> pending, Long chatId, Long wordId) {
+        synchronized (flushLock) {
+            synchronized (this) {
+                Map<Long, Word> words = pending.get(chatId);
+                if (words == null) return false;
+                int removed;
+                if (wordId == null) {
+                    removed = words.size();
+                    pending.remove(chatId);
+                } else {
+                    removed = words.remove(wordId) != null ? 1 : 0;
+                    if (words.isEmpty()) pending.remove(chatId);
+                }
+                pendingCount -= removed;
+                cancelled.addAndGet(removed);
+                return removed > 0;
+            }
+        }
+    }
+
+    private void write(String sql, List<Object[]> rows, List<Object[]> done) {
+        for (int from = 0; from < rows.size(); from += Math.max(1, batchSize)) {
+            writeBatch(sql, rows.subList(from, Math.min(from + Math.max(1, batchSize), rows.size())), done);
+        }
+    }
+
+    // A constraint violation is about the rows, not the database, so halve the batch until the
+    // offending row is isolated and drop it. Rows already inserted are skipped by ON CONFLICT.
+    private void writeBatch(String sql, List<Object[]> batch, List<Object[]> done) {
+        try {
+            jdbcTemplate.batchUpdate(sql, batch);
+        } catch (DataIntegrityViolationException e) {
+            if (batch.size() == 1) {
+                Object[] row = batch.get(0);
+                dropped.incrementAndGet();
+                done.add(row);
+                System.err.println("Dropping user word " + row[1] + " for chat " + row[0] + ": " + e.getMessage());
+                return;
+            }
+            int half = batch.size() / 2;
+            writeBatch(sql, batch.subList(0, half), done);
+            writeBatch(sql, batch.subList(half, batch.size()), done);
+            return;
+        }
+        batches.incrementAndGet();
+        written.addAndGet(batch.size());
+        done.addAll(batch);
+    }
+
+    private static List<Object[]> rows(Map<Long, Map<Long, Word>> pending) {
+        List<Object[]> rows = new ArrayList<>();
+        pending.forEach((chatId, words) -> {
+            for (Long wordId : words.keySet()) {
+                rows.add(new Object[]{chatId, wordId});
+            }
+        });
+        return rows;
+    }
+
+    // Only rows that were written or dropped; entries added during the flush stay pending.
+    private void remove(Map<Long, Map<Long, Word>> pending, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            Map<Long, Word> words = pending.get((Long) row[0]);
+            if (words != null && words.remove((Long) row[1]) != null) {
+                pendingCount--;
+                if (words.isEmpty()) pending.remove((Long) row[0]);
+            }
+        }
+    }
+
+    @Override
+    public String statsName() {
+        return "userWordWrites";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("pending", pendingCount);
+        }
+        stats.put("buffered", buffered.get());
+        stats.put("written", written.get());
+        stats.put("cancelled", cancelled.get());
+        stats.put("batches", batches.get());
+        stats.put("failures", failures.get());
+        stats.put("dropped", dropped.get());
+        return stats;
+    }
+}
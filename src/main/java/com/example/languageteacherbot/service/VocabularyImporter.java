@@ -0,0 +1,303 @@
+package com.example.languageteacherbot.service;
+
+import com.example.languageteacherbot.entity.CefrLevel;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Seeds the words and sentence tables from the bundled CSV files (or any file given through
+ * {@code telegram.import.words-path} / {@code sentences-path}) on startup, before the catalogs
+ * load. Files are streamed record by record and written as JDBC batches of upserts; a file whose
+ * SHA-256 matches the last successful import is skipped without being parsed.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class VocabularyImporter implements StatsSource {
+
+    private static final String CREATE_IMPORTS = "CREATE TABLE IF NOT EXISTS vocabulary_import ("
+            + "source VARCHAR(255) PRIMARY KEY, checksum VARCHAR(64) NOT NULL, row_count BIGINT NOT NULL, "
+            + "imported_at TIMESTAMP NOT NULL)";
+    private static final String SELECT_CHECKSUM = "SELECT checksum FROM vocabulary_import WHERE source = ?";
+    private static final String RECORD_IMPORT = "INSERT INTO vocabulary_import (source, checksum, row_count, imported_at) "
+            + "VALUES (?, ?, ?, CURRENT_TIMESTAMP) ON CONFLICT (source) DO UPDATE SET checksum = EXCLUDED.checksum, "
+            + "row_count = EXCLUDED.row_count, imported_at = EXCLUDED.imported_at";
+
+    private static final String UPSERT_WORD = "INSERT INTO words (word, translation, transcription, level, lang, level_rank) "
+            + "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (word, lang) DO UPDATE SET translation = EXCLUDED.translation, "
+            + "transcription = EXCLUDED.transcription, level = EXCLUDED.level, level_rank = EXCLUDED.level_rank";
+    // Same name as the constraint on Sentence, so this is a no-op where Hibernate already created it.
+    private static final String CREATE_SENTENCE_KEY = "CREATE UNIQUE INDEX IF NOT EXISTS uk_sentence_language_correct_sentence "
+            + "ON sentence (language, correct_sentence)";
+    private static final String UPSERT_SENTENCE = "INSERT INTO sentence (words, correct_sentence, level, language, level_rank) "
+            + "VALUES (?, ?, ?, ?, ?) ON CONFLICT (language, correct_sentence) DO UPDATE SET words = EXCLUDED.words, "
+            + "level = EXCLUDED.level, level_rank = EXCLUDED.level_rank";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Value("${telegram.import.enabled:true}")
+    private boolean enabled;
+
+    @Value("${telegram.import.words-path:classpath:word.csv}")
+    private String wordsPath;
+
+    @Value("${telegram.import.sentences-path:classpath:sentence.csv}")
+    private String sentencesPath;
+
+    @Value("${telegram.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${telegram.import.progress-every:100000}")
+    private long progressEvery;
+
+    private final Map<String, Map<String, Object>> lastRuns = new LinkedHashMap<>();
+    private final Map<String, String> checkedStamps = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        importAll();
+    }
+
+    /**
+     * Imports every configured file that changed since its last import. Returns true if anything
+     * was written, i.e. the catalogs are worth reloading.
+     */
+    public synchronized boolean importAll() {
+        if (!enabled) return false;
+        try {
+            jdbcTemplate.execute(CREATE_IMPORTS);
+        } catch (Exception e) {
+            System.err.println("Vocabulary import disabled, cannot create vocabulary_import: " + e.getMessage());
+            return false;
+        }
+        boolean words = importFile("words", wordsPath, new WordRows());
+        boolean sentences = false;
+        try {
+            jdbcTemplate.execute(CREATE_SENTENCE_KEY);
+            sentences = importFile("sentences", sentencesPath, new SentenceRows());
+        } catch (Exception e) {
+            // Typically duplicate (language, correct_sentence) rows left from before the key existed.
+            System.err.println("Sentence import skipped, cannot create the (language, correct_sentence) key: " + e.getMessage());
+        }
+        return words || sentences;
+    }
+
+    boolean importFile(String source, String path, RowWriter rows) {
+        Resource resource = resourceLoader.getResource(path);
+        if (!resource.exists()) {
+            System.out.println("Vocabulary import: " + path + " not found, skipping " + source);
+            return false;
+        }
+        long started = System.currentTimeMillis();
+        String stamp = stamp(resource);
+        if (stamp != null && stamp.equals(checkedStamps.get(source))) return false;
+        try {
+            String checksum = checksum(resource);
+            List<String> previous = jdbcTemplate.queryForList(SELECT_CHECKSUM, String.class, source);
+            if (!previous.isEmpty() && checksum.equals(previous.get(0))) {
+                if (!checkedStamps.containsKey(source)) {
+                    System.out.println("Vocabulary import: " + path + " unchanged since last import, skipping");
+                }
+                checkedStamps.put(source, stamp);
+                recordRun(source, "unchanged", 0, 0, started);
+                return false;
+            }
+
+            long[] counts = stream(source, resource, rows);
+            jdbcTemplate.update(RECORD_IMPORT, source, checksum, counts[0]);
+            checkedStamps.put(source, stamp);
+            recordRun(source, "imported", counts[0], counts[1], started);
+            long elapsed = Math.max(1, System.currentTimeMillis() - started);
+            System.out.println("Vocabulary import: " + counts[0] + " " + source + " from " + path + " in "
+                    + elapsed + " ms (" + counts[0] * 1000 / elapsed + " rows/s, " + counts[1] + " rejected)");
+            return true;
+        } catch (Exception e) {
+            recordRun(source, "failed", 0, 0, started);
+            System.err.println("Vocabulary import of " + path + " failed, will retry: " + e.getMessage());
+            // Batches written before the failure are already visible.
+            return true;
+        }
+    }
+
+    private long[] stream(String source, Resource resource, RowWriter rows) throws IOException {
+        long imported = 0;
+        long rejected = 0;
+        long started = System.currentTimeMillis();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            CsvRecordReader csv = new CsvRecordReader(reader);
+            List<String> header = csv.next();
+            if (header == null) return new long[]{0, 0};
+            Map<String, Integer> columns = new LinkedHashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).replace("\uFEFF", "").trim().toLowerCase(), i);
+            }
+            rows.bind(columns);
+
+            List<String> record;
+            while ((record = csv.next()) != null) {
+                if (record.size() == 1 && record.get(0).isBlank()) continue;
+                if (!rows.add(record)) {
+                    rejected++;
+                    continue;
+                }
+                imported++;
+                if (rows.pending() >= Math.max(1, batchSize)) rows.flush(jdbcTemplate);
+                if (progressEvery > 0 && imported % progressEvery == 0) {
+                    long elapsed = Math.max(1, System.currentTimeMillis() - started);
+                    System.out.println("Vocabulary import: " + imported + " " + source + " so far, "
+                            + imported * 1000 / elapsed + " rows/s");
+                }
+            }
+            rows.flush(jdbcTemplate);
+        }
+        return new long[]{imported, rejected};
+    }
+
+    // Size and modification time, so periodic checks only hash files that were touched.
+    private static String stamp(Resource resource) {
+        try {
+            return resource.contentLength() + "@" + resource.lastModified();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String checksum(Resource resource) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream in = new DigestInputStream(resource.getInputStream(), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private synchronized void recordRun(String source, String outcome, long imported, long rejected, long started) {
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("outcome", outcome);
+        run.put("rows", imported);
+        run.put("rejected", rejected);
+        run.put("durationMs", System.currentTimeMillis() - started);
+        lastRuns.put(source, run);
+    }
+
+    @Override
+    public String statsName() {
+        return "vocabularyImport";
+    }
+
+    @Override
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.putAll(lastRuns);
+        return stats;
+    }
+
+    /**
+     * Maps CSV records of one file onto batched upserts. Rows are buffered up to the batch size only.
+     */
+    abstract static class RowWriter {
+        private Map<String, Integer> columns;
+
+        void bind(Map<String, Integer> columns) {
+            this.columns = columns;
+        }
+
+        String column(List<String> record, String name) {
+            Integer index = columns.get(name);
+            if (index == null || index >= record.size()) return null;
+            String value = record.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        abstract boolean add(List<String> record);
+
+        abstract int pending();
+
+        abstract void flush(JdbcTemplate jdbcTemplate);
+    }
+
+    static final class WordRows extends RowWriter {
+        private final List<Object[]> upserts = new ArrayList<>();
+
+        @Override
+        boolean add(List<String> record) {
+            String word = column(record, "word");
+            String translation = column(record, "translation");
+            String level = column(record, "level");
+            String lang = column(record, "lang");
+            if (word == null || translation == null || level == null || lang == null) return false;
+            upserts.add(new Object[]{word, translation, column(record, "transcription"), level, lang,
+                    CefrLevel.rankOf(level)});
+            return true;
+        }
+
+        @Override
+        int pending() {
+            return upserts.size();
+        }
+
+        @Override
+        void flush(JdbcTemplate jdbcTemplate) {
+            if (upserts.isEmpty()) return;
+            jdbcTemplate.batchUpdate(UPSERT_WORD, upserts);
+            upserts.clear();
+        }
+    }
+
+    static final class SentenceRows extends RowWriter {
+        private final List<Object[]> upserts = new ArrayList<>();
+
+        @Override
+        boolean add(List<String> record) {
+            String words = column(record, "words");
+            String sentence = column(record, "correct_sentence");
+            String level = column(record, "level");
+            String language = column(record, "language");
+            if (words == null || sentence == null || level == null || language == null) return false;
+            upserts.add(new Object[]{words, sentence, level, language, CefrLevel.rankOf(level)});
+            return true;
+        }
+
+        @Override
+        int pending() {
+            return upserts.size();
+        }
+
+        @Override
+        void flush(JdbcTemplate jdbcTemplate) {
+            if (upserts.isEmpty()) return;
+            jdbcTemplate.batchUpdate(UPSERT_SENTENCE, upserts);
+            upserts.clear();
+        }
+    }
+}
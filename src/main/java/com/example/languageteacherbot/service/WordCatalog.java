@@ -0,0 +1,406 @@
+package com.example.languageteacherbot.service;
+
+import com.example.languageteacherbot.entity.CefrLevel;
+import com.example.languageteacherbot.entity.Word;
+import com.example.languageteacherbot.repository.WordRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-only view of the word list. All words are loaded into an array sorted by id; per
+ * (language, level) slices are int index arrays into it, so lookups never touch the database
+ * and return lists without copying. {@link #load()} builds a complete new {@link Snapshot} and
+ * publishes it with a single reference swap, so readers see either the old or the new version,
+ * and anything holding on to a snapshot keeps resolving against it.
+ *
+ * With {@code telegram.dictionary.source=mapped} the word texts are not loaded at all: the
+ * snapshot keeps only ids and record ordinals into a memory-mapped file exported from the words
+ * table (see {@link DictionaryCompiler}), and words are decoded when they are read. Every
+ * {@link #load()} re-exports the file, so imported or edited rows show up on the next reload.
+ * On startup the file is mapped as it is when its stamp matches the last words import, which
+ * skips the table scan; rows edited directly in the database need a forced reload to reach it.
+ */
+@Component
+@DependsOn("vocabularyImporter")
+public class WordCatalog implements StatsSource {
+
+    public static final String ALL_LEVELS = "ALL";
+
+    static final String SELECT_STAMP = "SELECT checksum FROM vocabulary_import WHERE source = 'words'";
+    static final String SELECT_EXPORT = "SELECT id, word, translation, transcription, level, lang FROM words";
+
+    @Autowired
+    private WordRepository wordRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${telegram.dictionary.source:database}")
+    private String source;
+
+    @Value("${telegram.dictionary.mapped-path:data/dictionary.bin}")
+    private String mappedPath;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong databaseFallbacks = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        load(false);
+    }
+
+    /**
+     * Builds and publishes a new snapshot from the database.
+     */
+    public void load() {
+        load(true);
+    }
+
+    private synchronized void load(boolean export) {
+        long started = System.currentTimeMillis();
+        int backfilled = wordRepository.backfillLevelRanks();
+        if (backfilled > 0) System.out.println("Backfilled level_rank for " + backfilled + " words");
+        MappedDictionary dictionary = "mapped".equalsIgnoreCase(source) ? openDictionary(export) : null;
+        Snapshot next = dictionary != null
+                ? Snapshot.build(dictionary, snapshot.version + 1)
+                : Snapshot.build(wordRepository.findAll(), snapshot.version + 1);
+        snapshot = next;
+        System.out.println("Word catalog version " + next.version + " loaded: " + next.ids.length + " words in "
+                + (System.currentTimeMillis() - started) + " ms"
+                + (dictionary != null ? " (mapped " + dictionary.path() + ")" : ""));
+    }
+
+    private MappedDictionary openDictionary(boolean export) {
+        Path path = Path.of(mappedPath);
+        try {
+            String stamp = stamp();
+            if (!export && stamp != null && Files.exists(path)) {
+                try {
+                    MappedDictionary existing = MappedDictionary.open(path);
+                    if (stamp.equals(existing.stamp())) return existing;
+                } catch (IOException e) {
+                    System.err.println("Dictionary " + path + " unreadable, exporting it again: " + e.getMessage());
+                }
+            }
+            List<DictionaryCompiler.Entry> rows = jdbcTemplate.query(SELECT_EXPORT, (rs, i) -> new DictionaryCompiler.Entry(
+                    rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5), rs.getString(6)));
+            // A file without a stamp never matches, so without import bookkeeping every start exports.
+            DictionaryCompiler.compile(rows, stamp == null ? "" : stamp, path);
+            return MappedDictionary.open(path);
+        } catch (Exception e) {
+            System.err.println("Cannot map dictionary " + path + ", loading words from the database: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Checksum of the last words import; null if the importer never ran against this database.
+    private String stamp() {
+        try {
+            List<String> stamps = jdbcTemplate.queryForList(SELECT_STAMP, String.class);
+            return stamps.isEmpty() ? null : stamps.get(0);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Changes every time the catalog is (re)loaded; caches derived from the catalog key on it.
+     */
+    public long version() {
+        return snapshot.version;
+    }
+
+    /**
+     * The currently published snapshot. Callers that must see one consistent version across
+     * several lookups, e.g. a running game, keep this instead of going through the catalog.
+     */
+    Snapshot current() {
+        return snapshot;
+    }
+
+    public List<Word> byLevel(String lang, String level) {
+        return byLevel(snapshot, lang, level);
+    }
+
+    List<Word> byLevel(Snapshot current, String lang, String level) {
+        if (ALL_LEVELS.equals(level)) return view(current, current.allByLang.get(lang));
+        return view(current, current.index(lang, level, current.byLevel));
+    }
+
+    public List<Word> all(String lang) {
+        Snapshot current = snapshot;
+        return view(current, current.allByLang.get(lang));
+    }
+
+    /**
+     * Words of the given level and every level below it, e.g. A1 + A2 for "A2".
+     */
+    public List<Word> upToLevel(String lang, String level) {
+        if (ALL_LEVELS.equals(level)) return all(lang);
+        Snapshot current = snapshot;
+        return view(current, current.index(lang, level, current.upToLevel));
+    }
+
+    public int count(String lang, String level) {
+        return byLevel(lang, level).size();
+    }
+
+    public Optional<Word> findById(Long id) {
+        if (id == null) return Optional.empty();
+        Optional<Word> word = snapshot.find(id);
+        if (word.isPresent()) {
+            hits.incrementAndGet();
+            return word;
+        }
+        misses.incrementAndGet();
+        databaseFallbacks.incrementAndGet();
+        return wordRepository.findById(id);
+    }
+
+    private List<Word> view(Snapshot current, int[] indexes) {
+        if (indexes == null) {
+            misses.incrementAndGet();
+            return Collections.emptyList();
+        }
+        hits.incrementAndGet();
+        return new WordSlice(current, indexes);
+    }
+
+    @Override
+    public String statsName() {
+        return "wordCatalog";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Snapshot current = snapshot;
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("version", current.version);
+        stats.put("source", current.dictionary != null ? "mapped" : "database");
+        stats.put("words", current.ids.length);
+        stats.put("slices", current.sliceCount());
+        stats.put("hits", hitCount);
+        stats.put("misses", misses.get());
+        stats.put("hitRatePercent", total == 0 ? 100 : hitCount * 100 / total);
+        stats.put("databaseFallbacks", databaseFallbacks.get());
+        stats.put("indexBytes", current.indexBytes);
+        stats.put("estimatedBytes", current.estimatedBytes);
+        if (current.dictionary != null) stats.put("mappedBytes", current.dictionary.mappedBytes());
+        return stats;
+    }
+
+    static final class Snapshot {
+        private static final Snapshot EMPTY = build(Collections.emptyList(), 0);
+
+        private final long version;
+        private final long[] ids;
+        // Database mode: the entities, aligned with ids.
+        private final Word[] words;
+        // Mapped mode: per id the record ordinal in the file.
+        private final MappedDictionary dictionary;
+        private final int[] ordinals;
+        private final Map<String, Map<String, int[]>> byLevel = new HashMap<>();
+        private final Map<String, Map<String, int[]>> upToLevel = new HashMap<>();
+        private final Map<String, int[]> allByLang = new HashMap<>();
+        private long indexBytes;
+        private long estimatedBytes;
+
+        private Snapshot(long version, long[] ids, Word[] words, MappedDictionary dictionary, int[] ordinals) {
+            this.version = version;
+            this.ids = ids;
+            this.words = words;
+            this.dictionary = dictionary;
+            this.ordinals = ordinals;
+        }
+
+        static Snapshot build(List<Word> source, long version) {
+            Word[] words = source.toArray(new Word[0]);
+            Arrays.sort(words, Comparator.comparing(Word::getId));
+            long[] ids = new long[words.length];
+            for (int i = 0; i < words.length; i++) {
+                ids[i] = words[i].getId();
+            }
+            Snapshot snapshot = new Snapshot(version, ids, words, null, null);
+            snapshot.index();
+            snapshot.estimatedBytes = entityBytes(words) + words.length * 4L + snapshot.indexBytes;
+            return snapshot;
+        }
+
+        /**
+         * Mapped snapshot: ids come from the file, which is exported in id order; only the id and
+         * ordinal arrays and the slices live on the heap.
+         */
+        static Snapshot build(MappedDictionary dictionary, long version) {
+            int count = dictionary.size();
+            long[] ids = new long[count];
+            int[] ordinals = new int[count];
+            boolean sorted = true;
+            for (int ordinal = 0; ordinal < count; ordinal++) {
+                ids[ordinal] = dictionary.id(ordinal);
+                ordinals[ordinal] = ordinal;
+                if (ordinal > 0 && ids[ordinal] < ids[ordinal - 1]) sorted = false;
+            }
+            if (!sorted) {
+                Integer[] order = new Integer[count];
+                for (int i = 0; i < count; i++) order[i] = i;
+                Arrays.sort(order, Comparator.comparingLong(dictionary::id));
+                for (int i = 0; i < count; i++) {
+                    ordinals[i] = order[i];
+                    ids[i] = dictionary.id(order[i]);
+                }
+            }
+            Snapshot snapshot = new Snapshot(version, ids, null, dictionary, ordinals);
+            snapshot.index();
+            snapshot.estimatedBytes = count * 4L + snapshot.indexBytes;
+            return snapshot;
+        }
+
+        private void index() {
+            Map<String, Map<String, List<Integer>>> levelPositions = new HashMap<>();
+            Map<String, List<Integer>> langPositions = new HashMap<>();
+            for (int i = 0; i < ids.length; i++) {
+                String lang = lang(i);
+                levelPositions.computeIfAbsent(lang, k -> new HashMap<>())
+                        .computeIfAbsent(level(i), k -> new ArrayList<>()).add(i);
+                langPositions.computeIfAbsent(lang, k -> new ArrayList<>()).add(i);
+            }
+            levelPositions.forEach((lang, levels) -> {
+                Map<String, int[]> slices = new HashMap<>();
+                levels.forEach((level, positions) -> slices.put(level, toArray(positions)));
+                byLevel.put(lang, slices);
+            });
+            langPositions.forEach((lang, positions) -> allByLang.put(lang, toArray(positions)));
+
+            for (Map.Entry<String, Map<String, int[]>> entry : byLevel.entrySet()) {
+                Map<String, int[]> slices = new HashMap<>();
+                List<Integer> cumulative = new ArrayList<>();
+                for (CefrLevel cefr : CefrLevel.values()) {
+                    String level = cefr.name();
+                    int[] positions = entry.getValue().get(level);
+                    if (positions != null) {
+                        for (int position : positions) cumulative.add(position);
+                    }
+                    if (!cumulative.isEmpty()) {
+                        Collections.sort(cumulative);
+                        slices.put(level, toArray(cumulative));
+                    }
+                }
+                upToLevel.put(entry.getKey(), slices);
+            }
+
+            long sliceBytes = indexBytes(allByLang);
+            for (Map<String, int[]> slices : byLevel.values()) sliceBytes += indexBytes(slices);
+            for (Map<String, int[]> slices : upToLevel.values()) sliceBytes += indexBytes(slices);
+            indexBytes = ids.length * 8L + sliceBytes;
+        }
+
+        long version() {
+            return version;
+        }
+
+        Optional<Word> find(long id) {
+            int position = Arrays.binarySearch(ids, id);
+            return position >= 0 ? Optional.of(word(position)) : Optional.empty();
+        }
+
+        Word word(int position) {
+            if (words != null) return words[position];
+            return dictionary.toWord(ordinals[position], ids[position]);
+        }
+
+        private String lang(int position) {
+            if (words != null) return words[position].getLang();
+            return dictionary.lang(ordinals[position]);
+        }
+
+        private String level(int position) {
+            if (words != null) return words[position].getLevel();
+            return dictionary.level(ordinals[position]);
+        }
+
+        int[] index(String lang, String level, Map<String, Map<String, int[]>> slices) {
+            Map<String, int[]> byLang = slices.get(lang);
+            return byLang == null ? null : byLang.get(level);
+        }
+
+        int sliceCount() {
+            int count = allByLang.size();
+            for (Map<String, int[]> slices : byLevel.values()) count += slices.size();
+            for (Map<String, int[]> slices : upToLevel.values()) count += slices.size();
+            return count;
+        }
+
+        private static int[] toArray(List<Integer> positions) {
+            int[] array = new int[positions.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = positions.get(i);
+            }
+            return array;
+        }
+
+        private static long indexBytes(Map<String, int[]> slices) {
+            long bytes = 0;
+            for (int[] slice : slices.values()) {
+                bytes += 16 + slice.length * 4L;
+            }
+            return bytes;
+        }
+
+        private static long entityBytes(Word[] words) {
+            long bytes = 0;
+            for (Word word : words) {
+                bytes += 48 + 24 + stringBytes(word.getWord()) + stringBytes(word.getTranslation())
+                        + stringBytes(word.getTranscription()) + stringBytes(word.getLevel()) + stringBytes(word.getLang());
+            }
+            return bytes;
+        }
+
+        private static long stringBytes(String value) {
+            return value == null ? 0 : 40 + value.length() * 2L;
+        }
+    }
+
+    private static final class WordSlice extends AbstractList<Word> implements RandomAccess {
+        private final Snapshot snapshot;
+        private final int[] indexes;
+
+        WordSlice(Snapshot snapshot, int[] indexes) {
+            this.snapshot = snapshot;
+            this.indexes = indexes;
+        }
+
+        @Override
+        public Word get(int index) {
+            return snapshot.word(indexes[index]);
+        }
+
+        @Override
+        public int size() {
+            return indexes.length;
+        }
+    }
+}
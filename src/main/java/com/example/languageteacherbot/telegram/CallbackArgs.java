@@ -0,0 +1,70 @@
+package com.example.languageteacherbot.telegram;
+
+/**
+ * Arguments of a callback such as {@code dict_next:2:A1}, parsed once by {@link CallbackRouter}
+ * according to the types the handler registered.
+ */
+public final class CallbackArgs {
+
+    public enum Type { INT, LONG, STRING }
+
+    static final CallbackArgs NONE = new CallbackArgs(new long[0], new String[0]);
+
+    private final long[] numbers;
+    private final String[] strings;
+
+    CallbackArgs(long[] numbers, String[] strings) {
+        this.numbers = numbers;
+        this.strings = strings;
+    }
+
+    public int size() {
+        return numbers.length;
+    }
+
+    public int intArg(int index) {
+        return (int) numbers[index];
+    }
+
+    public long longArg(int index) {
+        return numbers[index];
+    }
+
+    public String stringArg(int index) {
+        return strings[index];
+    }
+
+    static CallbackArgs parse(String data, int from, Type[] types) {
+        if (types.length == 0) {
+            return from == data.length() ? NONE : null;
+        }
+        if (from >= data.length() || data.charAt(from) != ':') return null;
+
+        long[] numbers = new long[types.length];
+        String[] strings = new String[types.length];
+        int start = from + 1;
+        for (int i = 0; i < types.length; i++) {
+            int end = i == types.length - 1 ? data.length() : data.indexOf(':', start);
+            if (end < 0 || end == start) return null;
+
+            if (types[i] == Type.STRING) {
+                strings[i] = data.substring(start, end);
+            } else {
+                long value = 0;
+                boolean negative = data.charAt(start) == '-';
+                int pos = negative ? start + 1 : start;
+                if (pos == end || end - pos > 18) return null;
+                for (; pos < end; pos++) {
+                    int digit = data.charAt(pos) - '0';
+                    if (digit < 0 || digit > 9) return null;
+                    value = value * 10 + digit;
+                }
+                value = negative ? -value : value;
+                if (types[i] == Type.INT && (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)) return null;
+                numbers[i] = value;
+            }
+            start = end + 1;
+        }
+        return new CallbackArgs(numbers, strings);
+    }
+}
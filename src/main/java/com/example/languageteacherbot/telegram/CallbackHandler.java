@@ -0,0 +1,7 @@
+package com.example.languageteacherbot.telegram;
+
+@FunctionalInterface
+public interface CallbackHandler {
+
+    void handle(Long chatId, Integer messageId, CallbackArgs args);
+}
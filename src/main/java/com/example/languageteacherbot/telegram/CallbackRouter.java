@@ -0,0 +1,138 @@
+package com.example.languageteacherbot.telegram;
+
+import com.example.languageteacherbot.service.StatsSource;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Routes callback data of the form {@code command[:arg...]} to registered handlers. Commands are
+ * resolved by walking a character trie, so lookup cost depends on the command length rather than
+ * on the number of registered routes.
+ */
+@Component
+public class CallbackRouter implements StatsSource {
+
+    private final Node root = new Node();
+    private final Map<String, Route> routes = new LinkedHashMap<>();
+    private final AtomicLong unknown = new AtomicLong();
+    private final AtomicLong stale = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public synchronized void register(String command, CallbackHandler handler, CallbackArgs.Type... args) {
+        if (routes.containsKey(command)) {
+            throw new IllegalStateException("Callback '" + command + "' is already registered");
+        }
+        Route route = new Route(command, args, handler);
+        Node node = root;
+        for (int i = 0; i < command.length(); i++) {
+            char c = command.charAt(i);
+            if (c == ':') throw new IllegalArgumentException("Callback command must not contain ':'");
+            node = node.childOrCreate(c);
+        }
+        node.route = route;
+        routes.put(command, route);
+    }
+
+    /**
+     * @return false if the callback was unknown or its arguments did not match the registered route
+     */
+    public boolean route(Long chatId, Integer messageId, String data) {
+        Node node = root;
+        int i = 0;
+        int length = data.length();
+        while (i < length && data.charAt(i) != ':') {
+            node = node.child(data.charAt(i));
+            if (node == null) break;
+            i++;
+        }
+
+        Route route = node == null ? null : node.route;
+        if (route == null) {
+            unknown.incrementAndGet();
+            System.err.println("Unknown callback from chat " + chatId + ": " + data);
+            return false;
+        }
+
+        CallbackArgs args = CallbackArgs.parse(data, i, route.types);
+        if (args == null) {
+            stale.incrementAndGet();
+            System.err.println("Stale callback from chat " + chatId + ": " + data);
+            return false;
+        }
+
+        route.hits.incrementAndGet();
+        try {
+            route.handler.handle(chatId, messageId, args);
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            throw e;
+        }
+        return true;
+    }
+
+    @Override
+    public String statsName() {
+        return "callbacks";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> hits = new LinkedHashMap<>();
+        synchronized (this) {
+            for (Route route : routes.values()) {
+                hits.put(route.command, route.hits.get());
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("routes", hits.size());
+        stats.put("hits", hits);
+        stats.put("unknown", unknown.get());
+        stats.put("stale", stale.get());
+        stats.put("failed", failed.get());
+        return stats;
+    }
+
+    private static final class Route {
+        private final String command;
+        private final CallbackArgs.Type[] types;
+        private final CallbackHandler handler;
+        private final AtomicLong hits = new AtomicLong();
+
+        Route(String command, CallbackArgs.Type[] types, CallbackHandler handler) {
+            this.command = command;
+            this.types = types.clone();
+            this.handler = handler;
+        }
+    }
+
+    private static final class Node {
+        private char[] labels = new char[0];
+        private Node[] children = new Node[0];
+        private volatile Route route;
+
+        Node child(char c) {
+            char[] l = labels;
+            for (int i = 0; i < l.length; i++) {
+                if (l[i] == c) return children[i];
+            }
+            return null;
+        }
+
+        Node childOrCreate(char c) {
+            Node existing = child(c);
+            if (existing != null) return existing;
+            Node created = new Node();
+            Node[] grownChildren = Arrays.copyOf(children, children.length + 1);
+            grownChildren[children.length] = created;
+            char[] grownLabels = Arrays.copyOf(labels, labels.length + 1);
+            grownLabels[labels.length] = c;
+            children = grownChildren;
+            labels = grownLabels;
+            return created;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.languageteacherbot.telegram;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+
+/**
+ * Already serialized JSON that is written into a request payload verbatim, e.g. a cached
+ * reply_markup.
+ */
+public final class RawJson extends JsonSerializable.Base {
+
+    private final String json;
+
+    public RawJson(String json) {
+        this.json = json;
+    }
+
+    public String json() {
+        return json;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeRawValue(json);
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer) throws IOException {
+        serialize(gen, serializers);
+    }
+
+    @Override
+    public String toString() {
+        return json;
+    }
+}
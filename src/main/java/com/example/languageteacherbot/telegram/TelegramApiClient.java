@@ -0,0 +1,167 @@
+package com.example.languageteacherbot.telegram;
+
+import com.example.languageteacherbot.service.StatsSource;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Asynchronous Bot API client on one shared {@link HttpClient}. The JDK client reads its pool
+ * settings once per JVM, so they are passed as flags at launch rather than configured here:
+ * {@code -Djdk.httpclient.keepalive.timeout=300 -Djdk.httpclient.connectionPoolSize=64}.
+ */
+@Component
+public class TelegramApiClient implements StatsSource {
+
+    private static final String API_URL = "https://api.telegram.org/bot";
+    private static final TypeReference<Map<String, Object>> RESPONSE_TYPE = new TypeReference<>() {};
+
+    @Value("${telegram.bot.token}")
+    private String botToken;
+
+    @Value("${telegram.http.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    @Value("${telegram.http.read-timeout-ms:15000}")
+    private long readTimeoutMs;
+
+    @Value("${telegram.http.threads:4}")
+    private int threads;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong latencyNanosTotal = new AtomicLong();
+    private ExecutorService executor;
+    private HttpClient httpClient;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread thread = new Thread(r, "telegram-http-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .executor(executor)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public CompletableFuture<Map<String, Object>> call(String method, Object payload) {
+        return call(method, payload, Duration.ofMillis(readTimeoutMs));
+    }
+
+    public CompletableFuture<Map<String, Object>> call(String method, Object payload, Duration timeout) {
+        return send(method, payload, timeout, this::parse);
+    }
+
+    public CompletableFuture<List<TelegramUpdate>> getUpdates(Object payload, Duration timeout) {
+        return send("getUpdates", payload, timeout, response -> {
+            try {
+                return TelegramUpdateDecoder.readUpdates(response.statusCode(), response.body());
+            } catch (IOException e) {
+                throw new TelegramApiException(response.statusCode(), "unreadable response", 0);
+            }
+        });
+    }
+
+    private <T> CompletableFuture<T> send(String method, Object payload, Duration timeout,
+                                          Function<HttpResponse<byte[]>, T> parser) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(payload);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(API_URL + botToken + "/" + method))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+
+        long started = System.nanoTime();
+        inFlight.incrementAndGet();
+        calls.incrementAndGet();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(parser)
+                .whenComplete((result, error) -> {
+                    inFlight.decrementAndGet();
+                    latencyNanosTotal.addAndGet(System.nanoTime() - started);
+                    if (error != null) failures.incrementAndGet();
+                });
+    }
+
+    public Duration readTimeout() {
+        return Duration.ofMillis(readTimeoutMs);
+    }
+
+    private Map<String, Object> parse(HttpResponse<byte[]> response) {
+        Map<String, Object> body;
+        try {
+            body = objectMapper.readValue(response.body(), RESPONSE_TYPE);
+        } catch (IOException e) {
+            throw new TelegramApiException(response.statusCode(), "unreadable response", 0);
+        }
+
+        if (response.statusCode() == 200 && Boolean.TRUE.equals(body.get("ok"))) {
+            return body;
+        }
+
+        int retryAfter = 0;
+        Object parameters = body.get("parameters");
+        if (parameters instanceof Map<?, ?> params && params.get("retry_after") instanceof Number n) {
+            retryAfter = n.intValue();
+        }
+        Object description = body.get("description");
+        throw new TelegramApiException(response.statusCode(), description == null ? "" : description.toString(), retryAfter);
+    }
+
+    public static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    @Override
+    public String statsName() {
+        return "telegramHttp";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        long count = calls.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("inFlight", inFlight.get());
+        stats.put("calls", count);
+        stats.put("failures", failures.get());
+        stats.put("avgLatencyMs", count == 0 ? 0 : latencyNanosTotal.get() / count / 1_000_000);
+        return stats;
+    }
+}
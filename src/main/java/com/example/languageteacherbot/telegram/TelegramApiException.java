@@ -0,0 +1,22 @@
+package com.example.languageteacherbot.telegram;
+
+public class TelegramApiException extends RuntimeException {
+
+    private final int statusCode;
+    private final String description;
+    private final int retryAfterSeconds;
+
+    public TelegramApiException(int statusCode, String description, int retryAfterSeconds) {
+        super("Telegram API error " + statusCode + ": " + description);
+        this.statusCode = statusCode;
+        this.description = description;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getStatusCode() { return statusCode; }
+    public String getDescription() { return description; }
+    public int getRetryAfterSeconds() { return retryAfterSeconds; }
+
+    public boolean isRateLimited() { return statusCode == 429; }
+    public boolean isServerError() { return statusCode >= 500; }
+}
@@ -0,0 +1,18 @@
+package com.example.languageteacherbot.telegram;
+
+public record TelegramUpdate(long updateId,
+                             long chatId,
+                             Integer messageId,
+                             String text,
+                             String firstName,
+                             String lastName,
+                             String callbackData) {
+
+    public boolean isCallback() {
+        return callbackData != null;
+    }
+
+    public boolean hasChat() {
+        return chatId != 0L;
+    }
+}
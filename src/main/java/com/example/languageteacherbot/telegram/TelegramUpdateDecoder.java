@@ -0,0 +1,191 @@
+package com.example.languageteacherbot.telegram;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Streams updates straight into {@link TelegramUpdate} records. Only the fields the bot reads are
+ * bound; everything else (entities, dates, photos, language codes...) is skipped without building
+ * intermediate maps.
+ */
+public final class TelegramUpdateDecoder {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private TelegramUpdateDecoder() {
+    }
+
+    public static List<TelegramUpdate> readUpdates(int statusCode, byte[] body) throws IOException {
+        try (JsonParser parser = JSON.createParser(body)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+
+            boolean ok = false;
+            List<TelegramUpdate> result = Collections.emptyList();
+            String description = null;
+            int retryAfter = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "ok" -> ok = value == JsonToken.VALUE_TRUE;
+                    case "result" -> result = readUpdateArray(parser);
+                    case "description" -> description = parser.getValueAsString();
+                    case "parameters" -> retryAfter = readRetryAfter(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+
+            if (statusCode != 200 || !ok) {
+                throw new TelegramApiException(statusCode, description == null ? "" : description, retryAfter);
+            }
+            return result;
+        }
+    }
+
+    public static TelegramUpdate readUpdate(byte[] body) throws IOException {
+        try (JsonParser parser = JSON.createParser(body)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            return readUpdate(parser);
+        }
+    }
+
+    private static List<TelegramUpdate> readUpdateArray(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return Collections.emptyList();
+        }
+        List<TelegramUpdate> updates = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            updates.add(readUpdate(parser));
+        }
+        return updates;
+    }
+
+    private static TelegramUpdate readUpdate(JsonParser parser) throws IOException {
+        Fields fields = new Fields();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "update_id" -> fields.updateId = parser.getLongValue();
+                case "message" -> readMessage(parser, fields, true);
+                case "callback_query" -> readCallbackQuery(parser, fields);
+                default -> parser.skipChildren();
+            }
+        }
+        return new TelegramUpdate(fields.updateId, fields.chatId, fields.messageId, fields.text,
+                fields.firstName, fields.lastName, fields.callbackData);
+    }
+
+    private static void readCallbackQuery(JsonParser parser, Fields fields) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "data" -> fields.callbackData = parser.getValueAsString();
+                case "message" -> readMessage(parser, fields, false);
+                default -> parser.skipChildren();
+            }
+        }
+        if (fields.callbackData == null) fields.callbackData = "";
+    }
+
+    private static void readMessage(JsonParser parser, Fields fields, boolean readSender) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "message_id" -> fields.messageId = parser.getIntValue();
+                case "text" -> fields.text = readSender ? parser.getValueAsString() : null;
+                case "chat" -> fields.chatId = readId(parser);
+                case "from" -> {
+                    if (readSender) readSender(parser, fields);
+                    else parser.skipChildren();
+                }
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private static void readSender(JsonParser parser, Fields fields) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "first_name" -> fields.firstName = parser.getValueAsString();
+                case "last_name" -> fields.lastName = parser.getValueAsString();
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private static long readId(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return 0L;
+        }
+        long id = 0L;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (field.equals("id")) {
+                id = parser.getLongValue();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return id;
+    }
+
+    private static int readRetryAfter(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return 0;
+        }
+        int retryAfter = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (field.equals("retry_after")) {
+                retryAfter = parser.getIntValue();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return retryAfter;
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Expected " + expected + " but got " + actual);
+        }
+    }
+
+    private static final class Fields {
+        private long updateId;
+        private long chatId;
+        private Integer messageId;
+        private String text;
+        private String firstName;
+        private String lastName;
+        private String callbackData;
+    }
+}
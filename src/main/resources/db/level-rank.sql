@@ -0,0 +1,6 @@
+-- Columns and indexes added with level_rank, for databases whose schema is not managed by
+-- ddl-auto=update. Safe to run on every start; existing rows are backfilled by the application.
+ALTER TABLE IF EXISTS words ADD COLUMN IF NOT EXISTS level_rank INTEGER;
+ALTER TABLE IF EXISTS sentence ADD COLUMN IF NOT EXISTS level_rank INTEGER;
+CREATE INDEX IF NOT EXISTS idx_words_lang_level_rank ON words (lang, level_rank);
+CREATE INDEX IF NOT EXISTS idx_sentence_language_level_rank ON sentence (language, level_rank);
@@ -0,0 +1,116 @@
+package com.example.languageteacherbot.bench;
+
+import com.example.languageteacherbot.service.ChatContext;
+import com.example.languageteacherbot.service.ChatSessionStore;
+import com.example.languageteacherbot.service.ConversationState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-update state access with 100k active chats: read the conversation state, the dictionary
+ * level and page, then store the next page. Compares the former layout of one
+ * {@code ConcurrentHashMap<Long, ?>} per field with the single primitive-keyed context table.
+ * Run with -prof gc (added by main) to compare allocation per operation.
+ *
+ * Run with: ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.example.languageteacherbot.bench.ChatContextBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class ChatContextBenchmark {
+
+    @Param({"100000"})
+    private int chats;
+
+    private long[] chatIds;
+
+    private final Map<Long, ConversationState> states = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> pages = new ConcurrentHashMap<>();
+    private final Map<Long, String> levels = new ConcurrentHashMap<>();
+    private final Map<Long, String> sections = new ConcurrentHashMap<>();
+
+    private ChatSessionStore store;
+    private ChatSessionStore.Slot<ConversationState> stateSlot;
+    private ChatSessionStore.Slot<Integer> pageSlot;
+    private ChatSessionStore.Slot<String> levelSlot;
+    private ChatSessionStore.Slot<String> sectionSlot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = new ChatSessionStore();
+        ReflectionTestUtils.setField(store, "idleTtlMinutes", 60L);
+        ReflectionTestUtils.setField(store, "maxSessions", chats * 2);
+        ReflectionTestUtils.setField(store, "maxWeight", chats * 10L);
+        stateSlot = store.slot(ChatContext::state, ChatContext::state);
+        pageSlot = store.slot(ChatContext::dictionaryPage, ChatContext::dictionaryPage);
+        levelSlot = store.slot(ChatContext::dictionaryLevel, ChatContext::dictionaryLevel);
+        sectionSlot = store.slot(ChatContext::myWordsSection, ChatContext::myWordsSection);
+
+        Random random = new Random(7);
+        chatIds = new long[chats];
+        for (int i = 0; i < chats; i++) {
+            long chatId = 100_000_000L + (random.nextLong() & 0xFFFFFFFFL);
+            chatIds[i] = chatId;
+            states.put(chatId, ConversationState.IN_DICTIONARY);
+            pages.put(chatId, i % 20);
+            levels.put(chatId, "A1");
+            sections.put(chatId, "unknown");
+            stateSlot.put(chatId, ConversationState.IN_DICTIONARY);
+            pageSlot.put(chatId, i % 20);
+            levelSlot.put(chatId, "A1");
+            sectionSlot.put(chatId, "unknown");
+        }
+    }
+
+    @Benchmark
+    public void separateMaps(Blackhole blackhole) {
+        Long chatId = chatIds[ThreadLocalRandom.current().nextInt(chats)];
+        blackhole.consume(states.getOrDefault(chatId, ConversationState.START));
+        blackhole.consume(levels.getOrDefault(chatId, "A1"));
+        int page = pages.getOrDefault(chatId, 0);
+        pages.put(chatId, (page + 1) % 20);
+    }
+
+    @Benchmark
+    public void contextTable(Blackhole blackhole) {
+        long chatId = chatIds[ThreadLocalRandom.current().nextInt(chats)];
+        blackhole.consume(stateSlot.getOrDefault(chatId, ConversationState.START));
+        blackhole.consume(levelSlot.getOrDefault(chatId, "A1"));
+        int page = pageSlot.getOrDefault(chatId, 0);
+        pageSlot.put(chatId, (page + 1) % 20);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(ChatContextBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.languageteacherbot.bench;
+
+import com.example.languageteacherbot.entity.Word;
+import com.example.languageteacherbot.service.DictionaryCompiler;
+import com.example.languageteacherbot.service.MappedDictionary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold catalog start from a compiled dictionary: materializing every word as an entity, the way
+ * the database-backed catalog holds them, against mapping the file and only building the
+ * (language, level) index arrays.
+ *
+ * Run with: ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.example.languageteacherbot.bench.DictionaryStartupBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DictionaryStartupBenchmark {
+
+    private static final String[] LEVELS = {"A1", "A2", "B1", "B2", "C1", "C2"};
+
+    @Param({"10000", "1000000"})
+    private int words;
+
+    private Path dir;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("dictionary-bench");
+        Path csv = dir.resolve("word.csv");
+        try (BufferedWriter out = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            out.write("word,translation,transcription,level,lang\n");
+            for (int i = 0; i < words; i++) {
+                out.write("词" + i + ",\"перевод " + i + "; значение\",cí" + i + "," + LEVELS[i % LEVELS.length] + ","
+                        + (i % 3 == 0 ? "en" : "zh") + "\n");
+            }
+        }
+        file = dir.resolve("dictionary.bin");
+        DictionaryCompiler.compile(csv, file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(dir.resolve("word.csv"));
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public Word[] materializeEntities() throws IOException {
+        MappedDictionary dictionary = MappedDictionary.open(file);
+        Word[] all = new Word[dictionary.size()];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = dictionary.toWord(i, (long) i + 1);
+        }
+        return all;
+    }
+
+    @Benchmark
+    public int[][] mapAndIndex() throws IOException {
+        MappedDictionary dictionary = MappedDictionary.open(file);
+        int[][] slices = new int[dictionary.sliceCount()][];
+        for (int slice = 0; slice < slices.length; slice++) {
+            slices[slice] = new int[dictionary.sliceLength(slice)];
+            for (int i = 0; i < slices[slice].length; i++) {
+                slices[slice][i] = dictionary.sliceOrdinal(slice, i);
+            }
+        }
+        return slices;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(DictionaryStartupBenchmark.class.getSimpleName()).build()).run();
+    }
+}
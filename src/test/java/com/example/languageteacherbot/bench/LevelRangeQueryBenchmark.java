@@ -0,0 +1,147 @@
+package com.example.languageteacherbot.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * "Sentences up to level X" over a 100k-sentence corpus: the old CASE-over-level-strings query
+ * against a range on the indexed level_rank column. Uses in-memory H2 by default; point
+ * -Dbench.jdbc.url (plus .user / .password) at a Postgres database to measure the real planner.
+ *
+ * Run with: ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.example.languageteacherbot.bench.LevelRangeQueryBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LevelRangeQueryBenchmark {
+
+    private static final String[] LEVELS = {"A1", "A2", "B1", "B2", "C1", "C2"};
+    private static final String[] LANGUAGES = {"zh", "ru", "en", "de"};
+
+    private static final String CASE_QUERY = "SELECT id, words, correct_sentence FROM sentence_bench "
+            + "WHERE language = ? AND CASE WHEN ? = 'A1' THEN level = 'A1' "
+            + "WHEN ? = 'A2' THEN level IN ('A1', 'A2') "
+            + "WHEN ? = 'B1' THEN level IN ('A1', 'A2', 'B1') "
+            + "WHEN ? = 'B2' THEN level IN ('A1', 'A2', 'B1', 'B2') "
+            + "WHEN ? = 'C1' THEN level IN ('A1', 'A2', 'B1', 'B2', 'C1') "
+            + "WHEN ? = 'C2' THEN level IN ('A1', 'A2', 'B1', 'B2', 'C1', 'C2') "
+            + "ELSE level = 'A1' END";
+
+    private static final String RANGE_QUERY = "SELECT id, words, correct_sentence FROM sentence_bench "
+            + "WHERE language = ? AND level_rank BETWEEN 1 AND ?";
+
+    @Param({"A1", "B1", "C2"})
+    private String level;
+
+    @Param({"100000"})
+    private int sentences;
+
+    private int rank;
+    private Connection connection;
+    private PreparedStatement caseQuery;
+    private PreparedStatement rangeQuery;
+
+    @Setup
+    public void setUp() throws SQLException {
+        rank = Arrays.asList(LEVELS).indexOf(level) + 1;
+        connection = DriverManager.getConnection(
+                System.getProperty("bench.jdbc.url", "jdbc:h2:mem:levels;MODE=PostgreSQL;DB_CLOSE_DELAY=-1"),
+                System.getProperty("bench.jdbc.user", "sa"),
+                System.getProperty("bench.jdbc.password", ""));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS sentence_bench");
+            statement.execute("CREATE TABLE sentence_bench (id BIGINT PRIMARY KEY, words TEXT, "
+                    + "correct_sentence TEXT, level VARCHAR(2), language VARCHAR(8), level_rank INT)");
+            statement.execute("CREATE INDEX idx_sentence_bench_language_level_rank ON sentence_bench (language, level_rank)");
+        }
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO sentence_bench (id, words, correct_sentence, level, language, level_rank) VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < sentences; i++) {
+                int levelIndex = i % LEVELS.length;
+                insert.setLong(1, i + 1);
+                insert.setString(2, "word" + i + ", other" + i + ", third" + i);
+                insert.setString(3, "word" + i + " other" + i + " third" + i + ".");
+                insert.setString(4, LEVELS[levelIndex]);
+                insert.setString(5, LANGUAGES[(i / LEVELS.length) % LANGUAGES.length]);
+                insert.setInt(6, levelIndex + 1);
+                insert.addBatch();
+                if (i % 1_000 == 999) insert.executeBatch();
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE");
+        } catch (SQLException ignored) {
+            // not every database understands a bare ANALYZE
+        }
+        caseQuery = connection.prepareStatement(CASE_QUERY);
+        rangeQuery = connection.prepareStatement(RANGE_QUERY);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE sentence_bench");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public int caseOverLevelStrings() throws SQLException {
+        caseQuery.setString(1, "zh");
+        for (int i = 2; i <= 7; i++) caseQuery.setString(i, level);
+        return drain(caseQuery);
+    }
+
+    @Benchmark
+    public int levelRankRange() throws SQLException {
+        rangeQuery.setString(1, "zh");
+        rangeQuery.setInt(2, rank);
+        return drain(rangeQuery);
+    }
+
+    private static int drain(PreparedStatement query) throws SQLException {
+        int rows = 0;
+        try (ResultSet resultSet = query.executeQuery()) {
+            while (resultSet.next()) {
+                resultSet.getLong(1);
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(LevelRangeQueryBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
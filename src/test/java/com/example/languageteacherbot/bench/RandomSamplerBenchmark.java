@@ -0,0 +1,74 @@
+package com.example.languageteacherbot.bench;
+
+import com.example.languageteacherbot.service.RandomSampler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picks a game's worth of ids out of levels of growing size: copy + shuffle + subList, the way
+ * games used to start, against the partial Fisher–Yates sampler.
+ *
+ * Run with: ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.example.languageteacherbot.bench.RandomSamplerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RandomSamplerBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int catalogSize;
+
+    @Param({"10", "90"})
+    private int picks;
+
+    private List<Long> ids;
+    private long[] idArray;
+
+    @Setup
+    public void setUp() {
+        ids = new ArrayList<>(catalogSize);
+        idArray = new long[catalogSize];
+        for (int i = 0; i < catalogSize; i++) {
+            ids.add((long) i + 1);
+            idArray[i] = i + 1;
+        }
+    }
+
+    @Benchmark
+    public List<Long> shuffleWholeList() {
+        List<Long> copy = new ArrayList<>(ids);
+        Collections.shuffle(copy);
+        return copy.subList(0, picks);
+    }
+
+    @Benchmark
+    public long[] partialFisherYates() {
+        return RandomSampler.sample(idArray, picks, null);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(RandomSamplerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
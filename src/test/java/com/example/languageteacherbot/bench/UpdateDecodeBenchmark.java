@@ -0,0 +1,109 @@
+package com.example.languageteacherbot.bench;
+
+import com.example.languageteacherbot.telegram.TelegramUpdate;
+import com.example.languageteacherbot.telegram.TelegramUpdateDecoder;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes a 100-update getUpdates response (messages and callback queries with the usual extra
+ * fields) into the values processUpdate reads. Compares the generic Map tree with the streaming
+ * typed decoder. Scores are per update; run via main() to add the GC profiler for allocation
+ * (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UpdateDecodeBenchmark {
+
+    private static final int UPDATES = 100;
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] response;
+
+    @Setup
+    public void setUp() {
+        StringBuilder json = new StringBuilder("{\"ok\":true,\"result\":[");
+        for (int i = 0; i < UPDATES; i++) {
+            if (i > 0) json.append(',');
+            if (i % 3 == 0) {
+                json.append("{\"update_id\":").append(1000 + i).append(",\"callback_query\":{\"id\":\"").append(i)
+                        .append("\",\"from\":{\"id\":").append(i).append(",\"is_bot\":false,\"first_name\":\"Ivan\",\"language_code\":\"ru\"},")
+                        .append("\"message\":{\"message_id\":").append(i).append(",\"from\":{\"id\":1,\"is_bot\":true,\"first_name\":\"Bot\"},")
+                        .append("\"chat\":{\"id\":").append(i).append(",\"first_name\":\"Ivan\",\"type\":\"private\"},\"date\":1700000000,")
+                        .append("\"text\":\"📚 Словарь (A1)\\nСтраница 1 из 20\",\"reply_markup\":{\"inline_keyboard\":[")
+                        .append("[{\"text\":\"⬅️\",\"callback_data\":\"dict_prev:0:A1\"},{\"text\":\"➡️\",\"callback_data\":\"dict_next:2:A1\"}]]}},")
+                        .append("\"chat_instance\":\"-1234567890\",\"data\":\"dict_next:2:A1\"}}");
+            } else {
+                json.append("{\"update_id\":").append(1000 + i).append(",\"message\":{\"message_id\":").append(i)
+                        .append(",\"from\":{\"id\":").append(i).append(",\"is_bot\":false,\"first_name\":\"Ivan\",\"last_name\":\"Petrov\",")
+                        .append("\"username\":\"ivan\",\"language_code\":\"ru\"},\"chat\":{\"id\":").append(i)
+                        .append(",\"first_name\":\"Ivan\",\"last_name\":\"Petrov\",\"username\":\"ivan\",\"type\":\"private\"},")
+                        .append("\"date\":1700000000,\"text\":\"🎮 Игры\"}}");
+            }
+        }
+        response = json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(UPDATES)
+    @SuppressWarnings("unchecked")
+    public void mapTree(Blackhole bh) throws Exception {
+        Map<String, Object> body = objectMapper.readValue(response, MAP_TYPE);
+        for (Map<String, Object> update : (List<Map<String, Object>>) body.get("result")) {
+            if (update.containsKey("callback_query")) {
+                Map<String, Object> callbackQuery = (Map<String, Object>) update.get("callback_query");
+                Map<String, Object> message = (Map<String, Object>) callbackQuery.get("message");
+                bh.consume(((Number) ((Map<String, Object>) message.get("chat")).get("id")).longValue());
+                bh.consume(((Number) message.get("message_id")).intValue());
+                bh.consume(callbackQuery.get("data"));
+            } else {
+                Map<String, Object> message = (Map<String, Object>) update.get("message");
+                Map<String, Object> from = (Map<String, Object>) message.get("from");
+                bh.consume(((Number) ((Map<String, Object>) message.get("chat")).get("id")).longValue());
+                bh.consume(message.get("text"));
+                bh.consume(from.get("first_name"));
+                bh.consume(from.get("last_name"));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(UPDATES)
+    public void typedStream(Blackhole bh) throws Exception {
+        for (TelegramUpdate update : TelegramUpdateDecoder.readUpdates(200, response)) {
+            bh.consume(update);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(UpdateDecodeBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
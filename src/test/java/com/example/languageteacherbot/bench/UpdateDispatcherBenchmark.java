@@ -0,0 +1,92 @@
+package com.example.languageteacherbot.bench;
+
+import com.example.languageteacherbot.service.UpdateDispatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains a burst of updates spread over many chats, each handler blocking for a few
+ * milliseconds the way a JPA query or Bot API call would. Compares shard threads with
+ * virtual-thread lanes.
+ *
+ * Run with: ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.example.languageteacherbot.bench.UpdateDispatcherBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class UpdateDispatcherBenchmark {
+
+    @Param({"platform", "virtual"})
+    private String mode;
+
+    @Param({"1000", "5000"})
+    private int chats;
+
+    @Param({"4"})
+    private int updatesPerChat;
+
+    @Param({"5"})
+    private int blockingMillis;
+
+    private UpdateDispatcher dispatcher;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        dispatcher = new UpdateDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "mode", mode);
+        ReflectionTestUtils.setField(dispatcher, "shardCount", 8);
+        ReflectionTestUtils.setField(dispatcher, "queueCapacity", 100_000);
+        ReflectionTestUtils.setField(dispatcher, "virtualMaxQueued", 100_000);
+        dispatcher.start();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        dispatcher.stop();
+    }
+
+    @Benchmark
+    public void drainBurst() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(chats * updatesPerChat);
+        for (int i = 0; i < updatesPerChat; i++) {
+            for (long chatId = 0; chatId < chats; chatId++) {
+                dispatcher.dispatch(chatId, () -> {
+                    try {
+                        Thread.sleep(blockingMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    done.countDown();
+                });
+            }
+        }
+        done.await();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(UpdateDispatcherBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.languageteacherbot.controller;
+
+import com.example.languageteacherbot.service.CatalogReloader;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = CatalogController.class, properties = "telegram.internal.token=test-token")
+class CatalogControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private CatalogReloader catalogReloader;
+
+    @Test
+    void queuesAnUnforcedReloadByDefault() throws Exception {
+        mockMvc.perform(post("/internal/catalog/reload").header("X-Internal-Token", "test-token"))
+                .andExpect(status().isAccepted());
+
+        verify(catalogReloader).requestReload(false);
+    }
+
+    @Test
+    void forcesAReloadWhenAsked() throws Exception {
+        mockMvc.perform(post("/internal/catalog/reload").param("force", "true").header("X-Internal-Token", "test-token"))
+                .andExpect(status().isAccepted());
+
+        verify(catalogReloader).requestReload(true);
+    }
+
+    @Test
+    void rejectsRequestsWithoutTheToken() throws Exception {
+        mockMvc.perform(post("/internal/catalog/reload"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/internal/catalog/reload").header("X-Internal-Token", "wrong"))
+                .andExpect(status().isUnauthorized());
+
+        verify(catalogReloader, never()).requestReload(anyBoolean());
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.languageteacherbot.controller;
+
+import com.example.languageteacherbot.service.TelegramService;
+import com.example.languageteacherbot.telegram.TelegramUpdate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = WebhookController.class, properties = {
+        "telegram.bot.mode=webhook",
+        "telegram.webhook.secret=test-secret"
+})
+class WebhookControllerTests {
+
+    private static final String UPDATE = "{\"update_id\":1,\"message\":{\"message_id\":5,"
+            + "\"chat\":{\"id\":42},\"from\":{\"first_name\":\"Test\"},\"text\":\"/start\"}}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private TelegramService telegramService;
+
+    @Test
+    void acceptsUpdateWithValidSecret() throws Exception {
+        when(telegramService.offerUpdate(any(TelegramUpdate.class))).thenReturn(true);
+
+        mockMvc.perform(post("/telegram/webhook")
+                        .header("X-Telegram-Bot-Api-Secret-Token", "test-secret")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(UPDATE))
+                .andExpect(status().isOk());
+
+        verify(telegramService).offerUpdate(any(TelegramUpdate.class));
+    }
+
+    @Test
+    void rejectsUpdateWithWrongSecret() throws Exception {
+        mockMvc.perform(post("/telegram/webhook")
+                        .header("X-Telegram-Bot-Api-Secret-Token", "wrong")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(UPDATE))
+                .andExpect(status().isUnauthorized());
+
+        verify(telegramService, never()).offerUpdate(any(TelegramUpdate.class));
+    }
+
+    @Test
+    void asksTelegramToRetryWhenQueueIsFull() throws Exception {
+        when(telegramService.offerUpdate(any(TelegramUpdate.class))).thenReturn(false);
+
+        mockMvc.perform(post("/telegram/webhook")
+                        .header("X-Telegram-Bot-Api-Secret-Token", "test-secret")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(UPDATE))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    void rejectsMalformedUpdate() throws Exception {
+        mockMvc.perform(post("/telegram/webhook")
+                        .header("X-Telegram-Bot-Api-Secret-Token", "test-secret")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("not json"))
+                .andExpect(status().isBadRequest());
+
+        verify(telegramService, never()).offerUpdate(any(TelegramUpdate.class));
+    }
+}
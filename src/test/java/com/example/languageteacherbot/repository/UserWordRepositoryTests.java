@@ -0,0 +1,166 @@
+package com.example.languageteacherbot.repository;
+
+import com.example.languageteacherbot.entity.UserFavoriteWord;
+import com.example.languageteacherbot.entity.UserWord;
+import com.example.languageteacherbot.entity.Word;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Runs the bulk list queries against H2 in PostgreSQL mode, which accepts the same
+ * {@code INSERT ... SELECT ... ON CONFLICT DO NOTHING}.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:user-words;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class UserWordRepositoryTests {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserWordRepository userWordRepository;
+
+    @Autowired
+    private UserFavoriteWordRepository userFavoriteWordRepository;
+
+    private Word love;
+    private Word eight;
+    private Word cup;
+    private Word read;
+
+    @BeforeEach
+    void words() {
+        love = entityManager.persist(word("爱", "A1"));
+        eight = entityManager.persist(word("八", "A1"));
+        cup = entityManager.persist(word("杯子", "A1"));
+        read = entityManager.persist(word("读", "A2"));
+    }
+
+    @Test
+    void moveToFavoritesCopiesAndDeletesInTwoStatements() {
+        unknown(1L, love, eight, cup);
+        favorite(1L, eight);
+        unknown(2L, love);
+        Statistics statistics = reset();
+
+        int moved = userWordRepository.moveToFavorites(1L, List.of(love.getId(), eight.getId()));
+
+        assertThat(moved).isEqualTo(2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        entityManager.clear();
+        assertThat(unknownIds(1L)).containsExactly(cup.getId());
+        // Already a favorite: kept once, not duplicated.
+        assertThat(favoriteIds(1L)).containsExactlyInAnyOrder(love.getId(), eight.getId());
+        assertThat(unknownIds(2L)).containsExactly(love.getId());
+    }
+
+    @Test
+    void moveToUnknownCountsOnlyTheFavoritesThatLeft() {
+        favorite(1L, love, eight);
+        unknown(1L, love);
+        Statistics statistics = reset();
+
+        int moved = userFavoriteWordRepository.moveToUnknown(1L, List.of(love.getId(), eight.getId(), read.getId()));
+
+        assertThat(moved).isEqualTo(2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        entityManager.clear();
+        assertThat(favoriteIds(1L)).isEmpty();
+        assertThat(userWordRepository.findByUserChatId(1L))
+                .extracting(uw -> uw.getWord().getId(), UserWord::isMarkedAsUnknown)
+                .containsExactlyInAnyOrder(tuple(love.getId(), true), tuple(eight.getId(), true));
+    }
+
+    @Test
+    void movingNothingRunsNoStatement() {
+        Statistics statistics = reset();
+
+        assertThat(userWordRepository.moveToFavorites(1L, List.of())).isZero();
+        assertThat(userFavoriteWordRepository.moveToUnknown(1L, List.of())).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void deleteByUserAndLevelRemovesOneLevelOfOneUserInOneStatement() {
+        unknown(1L, love, eight, read);
+        favorite(1L, cup, read);
+        unknown(2L, love);
+        Statistics statistics = reset();
+
+        int unknownDeleted = userWordRepository.deleteByUserAndLevel(1L, "A1");
+        int favoritesDeleted = userFavoriteWordRepository.deleteByUserAndLevel(1L, "A1");
+
+        assertThat(unknownDeleted).isEqualTo(2);
+        assertThat(favoritesDeleted).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        entityManager.clear();
+        assertThat(unknownIds(1L)).containsExactly(read.getId());
+        assertThat(favoriteIds(1L)).containsExactly(read.getId());
+        assertThat(unknownIds(2L)).containsExactly(love.getId());
+    }
+
+    private Statistics reset() {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    private void unknown(Long chatId, Word... words) {
+        for (Word word : words) {
+            UserWord userWord = new UserWord();
+            userWord.setUserChatId(chatId);
+            userWord.setWord(word);
+            entityManager.persist(userWord);
+        }
+    }
+
+    private void favorite(Long chatId, Word... words) {
+        for (Word word : words) {
+            UserFavoriteWord favorite = new UserFavoriteWord();
+            favorite.setUserChatId(chatId);
+            favorite.setWord(word);
+            entityManager.persist(favorite);
+        }
+    }
+
+    private List<Long> unknownIds(Long chatId) {
+        return userWordRepository.findByUserChatId(chatId).stream().map(uw -> uw.getWord().getId()).toList();
+    }
+
+    private List<Long> favoriteIds(Long chatId) {
+        return userFavoriteWordRepository.findByUserChatId(chatId).stream().map(fw -> fw.getWord().getId()).toList();
+    }
+
+    private static Word word(String text, String level) {
+        Word word = new Word();
+        word.setWord(text);
+        word.setTranslation("-");
+        word.setLevel(level);
+        word.setLang("zh");
+        return word;
+    }
+}
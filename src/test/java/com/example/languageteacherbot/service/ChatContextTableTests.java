@@ -0,0 +1,38 @@
+package com.example.languageteacherbot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatContextTableTests {
+
+    @Test
+    void behavesLikeAMapUnderRandomPutsAndRemoves() {
+        ChatContextTable table = new ChatContextTable();
+        Map<Long, ChatContext> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            long chatId = random.nextInt(5_000) - 2_500L;
+            if (random.nextInt(3) == 0) {
+                assertThat(table.remove(chatId)).isSameAs(expected.remove(chatId));
+            } else {
+                ChatContext context = new ChatContext();
+                assertThat(table.put(chatId, context)).isSameAs(expected.put(chatId, context));
+            }
+        }
+
+        assertThat(table.size()).isEqualTo(expected.size());
+        expected.forEach((chatId, context) -> assertThat(table.get(chatId)).isSameAs(context));
+        int[] visited = new int[1];
+        table.forEach((chatId, context) -> {
+            assertThat(expected.get(chatId)).isSameAs(context);
+            visited[0]++;
+        });
+        assertThat(visited[0]).isEqualTo(expected.size());
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.languageteacherbot.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatSessionStoreTests {
+
+    private final ChatSessionStore store = new ChatSessionStore();
+    private final ChatSessionStore.Slot<String> state;
+    private final ChatSessionStore.Slot<Integer> page;
+
+    ChatSessionStoreTests() {
+        ReflectionTestUtils.setField(store, "idleTtlMinutes", 60L);
+        ReflectionTestUtils.setField(store, "maxSessions", 100);
+        ReflectionTestUtils.setField(store, "maxWeight", 1_000L);
+        state = store.slot(ChatContext::myWordsSection, ChatContext::myWordsSection);
+        page = store.slot(ChatContext::dictionaryPage, ChatContext::dictionaryPage);
+    }
+
+    @Test
+    void dropsSessionWhenLastSlotIsRemoved() {
+        state.put(1L, "IN_MENU");
+        page.put(1L, 3);
+        state.remove(1L);
+
+        assertThat(store.liveSessions()).isEqualTo(1);
+        assertThat(page.getOrDefault(1L, 0)).isEqualTo(3);
+
+        page.remove(1L);
+        assertThat(store.liveSessions()).isZero();
+    }
+
+    @Test
+    void evictsIdleSessions() {
+        state.put(1L, "IN_MENU");
+        ReflectionTestUtils.setField(store, "idleTtlMinutes", 0L);
+
+        store.evictIdle();
+
+        assertThat(state.containsKey(1L)).isFalse();
+        assertThat(store.stats()).containsEntry("expired", 1L);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondMaxSessions() {
+        for (long chatId = 0; chatId < 101; chatId++) {
+            state.put(chatId, "IN_MENU");
+        }
+
+        assertThat(store.liveSessions()).isLessThanOrEqualTo(100);
+        assertThat(state.containsKey(100L)).isTrue();
+        assertThat(state.containsKey(0L)).isFalse();
+    }
+
+    @Test
+    void evictsByWeight() {
+        ChatSessionStore.Slot<Object> games = store.slot(ChatContext::game, ChatContext::game);
+        games.put(1L, (ChatSessionStore.Weighted) () -> 600);
+        games.put(2L, (ChatSessionStore.Weighted) () -> 600);
+
+        Map<String, Object> stats = store.stats();
+        assertThat((Long) stats.get("weight")).isLessThanOrEqualTo(1_000L);
+        assertThat(games.containsKey(2L)).isTrue();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.languageteacherbot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConversationStateMachineTests {
+
+    private final ConversationStateMachine machine = new ConversationStateMachine();
+    private final List<String> ran = new ArrayList<>();
+
+    @Test
+    void aLabelDeclaredTwiceIsReportedAsShadowedAndTheFirstCommandWins() {
+        machine.in(ConversationState.IN_MENU)
+                .on("dictionary", "📖 Словарь", "📖 词典", (chatId, text) -> ran.add("dictionary"))
+                .on("words", "📖 Словарь", "📚 我的单词", (chatId, text) -> ran.add("words"));
+        machine.in(ConversationState.IN_SETTINGS)
+                .on("back", "📖 Словарь", "📖 词典", (chatId, text) -> ran.add("back"));
+        machine.compile();
+
+        assertThat(machine.dispatch(ConversationState.IN_MENU, "ru", 1L, "📖 Словарь")).isTrue();
+        assertThat(machine.dispatch(ConversationState.IN_MENU, "zh", 1L, "📚 我的单词")).isTrue();
+
+        assertThat(ran).containsExactly("dictionary", "words");
+        // Only the duplicate within one state and locale is unreachable.
+        assertThat(list("shadowed")).containsExactly(
+                "IN_MENU/ru '📖 Словарь': words is shadowed by dictionary");
+    }
+
+    @Test
+    void commandsThatNeverFiredAreListedAsNeverUsed() {
+        machine.in(ConversationState.IN_MENU)
+                .on("dictionary", "📖 Словарь", "📖 词典", (chatId, text) -> ran.add("dictionary"))
+                .onAny("menu", (chatId, text) -> ran.add("menu"), "/menu", "/start")
+                .otherwise((chatId, text) -> ran.add("otherwise"));
+        machine.in(ConversationState.IN_SETTINGS)
+                .on("back", "⬅️ Назад", "⬅️ 返回", (chatId, text) -> ran.add("back"));
+        machine.compile();
+
+        machine.dispatch(ConversationState.IN_MENU, "zh", 1L, "/start");
+        machine.dispatch(ConversationState.IN_MENU, "ru", 1L, "hello");
+
+        assertThat(ran).containsExactly("menu", "otherwise");
+        assertThat(list("neverUsed")).containsExactlyInAnyOrder("IN_MENU/dictionary", "IN_SETTINGS/back");
+        assertThat(list("shadowed")).isEmpty();
+        assertThat(machine.stats()).containsEntry("unmatched", 1L);
+    }
+
+    @Test
+    void aStateWithoutMatchOrFallbackIsNotHandled() {
+        machine.in(ConversationState.IN_MENU)
+                .on("dictionary", "📖 Словарь", "📖 词典", (chatId, text) -> ran.add("dictionary"));
+        machine.compile();
+
+        assertThat(machine.dispatch(ConversationState.IN_MENU, "ru", 1L, "📖 词典")).isFalse();
+        assertThat(machine.dispatch(ConversationState.IN_DICTIONARY, "ru", 1L, "📖 Словарь")).isFalse();
+        assertThat(ran).isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> list(String stat) {
+        return (List<String>) machine.stats().get(stat);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.languageteacherbot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvRecordReaderTests {
+
+    @Test
+    void parsesQuotedMultiValueFields() throws IOException {
+        List<List<String>> records = readAll("""
+                "word","translation","transcription","level","lang"
+                爱,"любовь; любить; любимый",ài,A1,zh
+                "爱,不,你,我,在","我爱你。",A1,zh
+                """);
+
+        assertThat(records).containsExactly(
+                List.of("word", "translation", "transcription", "level", "lang"),
+                List.of("爱", "любовь; любить; любимый", "ài", "A1", "zh"),
+                List.of("爱,不,你,我,在", "我爱你。", "A1", "zh"));
+    }
+
+    @Test
+    void handlesEscapedQuotesLineBreaksAndCrLf() throws IOException {
+        List<List<String>> records = readAll("a,\"say \"\"hi\"\"\",\"two\r\nlines\"\r\n,,\r\nlast");
+
+        assertThat(records).containsExactly(
+                List.of("a", "say \"hi\"", "two\r\nlines"),
+                List.of("", "", ""),
+                List.of("last"));
+    }
+
+    @Test
+    void rejectsUnterminatedQuote() {
+        assertThatThrownBy(() -> readAll("a,\"open\nnever closed"))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("unterminated");
+    }
+
+    private static List<List<String>> readAll(String csv) throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader(csv));
+        List<List<String>> records = new ArrayList<>();
+        List<String> record;
+        while ((record = reader.next()) != null) {
+            records.add(new ArrayList<>(record));
+        }
+        return records;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.languageteacherbot.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DelayedTaskSchedulerTests {
+
+    private final UpdateDispatcher dispatcher = new UpdateDispatcher();
+    private final DelayedTaskScheduler scheduler = new DelayedTaskScheduler();
+
+    @SuppressWarnings("unchecked")
+    DelayedTaskSchedulerTests() {
+        ReflectionTestUtils.setField(dispatcher, "mode", "platform");
+        ReflectionTestUtils.setField(dispatcher, "shardCount", 2);
+        ReflectionTestUtils.setField(dispatcher, "queueCapacity", 1000);
+        dispatcher.start();
+        ObjectProvider<UpdateDispatcher> dispatchers = mock(ObjectProvider.class);
+        when(dispatchers.getObject()).thenReturn(dispatcher);
+        ReflectionTestUtils.setField(scheduler, "updateDispatcher", dispatchers);
+        ReflectionTestUtils.setField(scheduler, "reactivePipeline", mock(ObjectProvider.class));
+        ReflectionTestUtils.setField(scheduler, "tickMillis", 10L);
+        ReflectionTestUtils.setField(scheduler, "wheelSize", 16);
+        ReflectionTestUtils.setField(scheduler, "maxPending", 1000);
+        scheduler.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.stop();
+        dispatcher.stop();
+    }
+
+    @Test
+    void runsChatTasksOnTheDispatcherAfterTheDelay() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        String[] thread = new String[1];
+        long started = System.nanoTime();
+
+        // Longer than one turn of the wheel (16 x 10 ms).
+        scheduler.schedule(7L, 250, () -> {
+            thread[0] = Thread.currentThread().getName();
+            done.countDown();
+        });
+
+        assertThat(done.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isGreaterThanOrEqualTo(250);
+        assertThat(thread[0]).isNotEqualTo("timer-wheel");
+    }
+
+    @Test
+    void cancelsAllPendingTasksOfAChat() throws InterruptedException {
+        AtomicInteger ran = new AtomicInteger();
+        CountDownLatch other = new CountDownLatch(1);
+        scheduler.schedule(1L, 100, ran::incrementAndGet);
+        scheduler.schedule(1L, 120, ran::incrementAndGet);
+        scheduler.schedule(2L, 150, other::countDown);
+
+        assertThat(scheduler.cancel(1L)).isEqualTo(2);
+
+        assertThat(other.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(ran.get()).isZero();
+        assertThat(scheduler.stats()).containsEntry("pending", 0);
+    }
+}
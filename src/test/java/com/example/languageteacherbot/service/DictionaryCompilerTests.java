@@ -0,0 +1,111 @@
+package com.example.languageteacherbot.service;
+
+import com.example.languageteacherbot.entity.Word;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DictionaryCompilerTests {
+
+    private static final Path BUNDLED = Path.of("src/main/resources/word.csv");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void bundledWordListRoundTripsThroughTheMappedFile() throws Exception {
+        Map<String, List<String>> expected = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(BUNDLED, StandardCharsets.UTF_8)) {
+            CsvRecordReader csv = new CsvRecordReader(reader);
+            csv.next();
+            List<String> record;
+            while ((record = csv.next()) != null) {
+                if (record.size() < 5 || record.get(0).isBlank()) continue;
+                expected.put(record.get(4).trim() + "/" + record.get(0).trim(),
+                        record.stream().map(String::trim).toList());
+            }
+        }
+
+        Path file = dir.resolve("dictionary.bin");
+        int compiled = DictionaryCompiler.compile(BUNDLED, file);
+        MappedDictionary dictionary = MappedDictionary.open(file);
+
+        assertThat(compiled).isEqualTo(expected.size()).isEqualTo(dictionary.size());
+        for (List<String> row : expected.values()) {
+            int ordinal = dictionary.ordinalOf(row.get(0), row.get(4));
+            assertThat(ordinal).as(row.get(0)).isNotNegative();
+            Word word = dictionary.toWord(ordinal, 7L);
+            assertThat(word.getId()).isEqualTo(7L);
+            assertThat(word.getWord()).isEqualTo(row.get(0));
+            assertThat(word.getTranslation()).isEqualTo(row.get(1));
+            assertThat(word.getTranscription()).isEqualTo(row.get(2).isEmpty() ? null : row.get(2));
+            assertThat(word.getLevel()).isEqualTo(row.get(3));
+            assertThat(word.getLang()).isEqualTo(row.get(4));
+        }
+
+        Set<Integer> sliced = new HashSet<>();
+        for (int slice = 0; slice < dictionary.sliceCount(); slice++) {
+            for (int i = 0; i < dictionary.sliceLength(slice); i++) {
+                int ordinal = dictionary.sliceOrdinal(slice, i);
+                assertThat(dictionary.lang(ordinal)).isEqualTo(dictionary.sliceLang(slice));
+                assertThat(dictionary.level(ordinal)).isEqualTo(dictionary.sliceLevel(slice));
+                sliced.add(ordinal);
+            }
+        }
+        assertThat(sliced).hasSize(dictionary.size());
+    }
+
+    @Test
+    void duplicatesKeepTheLastRowAndIncompleteRowsAreSkipped() throws Exception {
+        Path csv = dir.resolve("words.csv");
+        Files.writeString(csv, "\uFEFFword,translation,transcription,level,lang\n"
+                + "爱,\"любовь, любить\",ài,A1,zh\n"
+                + "book,книга,,A1,en\n"
+                + "八,восемь,bā,,zh\n"
+                + "爱,любовь,ài,A2,zh\n", StandardCharsets.UTF_8);
+
+        Path file = dir.resolve("dictionary.bin");
+        assertThat(DictionaryCompiler.compile(csv, file)).isEqualTo(2);
+        MappedDictionary dictionary = MappedDictionary.open(file);
+
+        int love = dictionary.ordinalOf("爱", "zh");
+        assertThat(dictionary.translation(love)).isEqualTo("любовь");
+        assertThat(dictionary.level(love)).isEqualTo("A2");
+        assertThat(dictionary.transcription(dictionary.ordinalOf("book", "en"))).isNull();
+        assertThat(dictionary.ordinalOf("八", "zh")).isNegative();
+        assertThat(dictionary.ordinalOf("book", "zh")).isNegative();
+        assertThat(dictionary.ordinalOf("爱", "de")).isNegative();
+    }
+
+    @Test
+    void exportedRowsKeepTheirIdsInIdOrderAndTheStamp() throws Exception {
+        Path file = dir.resolve("dictionary.bin");
+        DictionaryCompiler.compile(List.of(
+                new DictionaryCompiler.Entry(42L, "杯子", "чашка", "bēizi", "A2", "zh"),
+                new DictionaryCompiler.Entry(7L, "book", "книга", null, "A1", "en")), "import-1", file);
+        MappedDictionary dictionary = MappedDictionary.open(file);
+
+        assertThat(dictionary.stamp()).isEqualTo("import-1");
+        assertThat(dictionary.id(0)).isEqualTo(7L);
+        assertThat(dictionary.id(1)).isEqualTo(42L);
+        assertThat(dictionary.toWord(dictionary.ordinalOf("杯子", "zh")).getId()).isEqualTo(42L);
+        assertThat(MappedDictionary.open(bundled()).stamp()).isNull();
+    }
+
+    private Path bundled() throws Exception {
+        Path file = dir.resolve("bundled.bin");
+        DictionaryCompiler.compile(BUNDLED, file);
+        return file;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.languageteacherbot.service;
+
+import com.example.languageteacherbot.entity.Word;
+import com.example.languageteacherbot.repository.WordRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+class DictionaryPageCacheTests {
+
+    private final WordRepository wordRepository = mock(WordRepository.class);
+    private final WordCatalog catalog = new WordCatalog();
+    private final DictionaryPageCache cache = new DictionaryPageCache();
+
+    DictionaryPageCacheTests() {
+        ReflectionTestUtils.setField(catalog, "wordRepository", wordRepository);
+        ReflectionTestUtils.setField(cache, "wordCatalog", catalog);
+        ReflectionTestUtils.setField(cache, "maxPages", 16);
+    }
+
+    @Test
+    void pagesAreKeyedByCatalogVersion() {
+        when(wordRepository.findAll())
+                .thenReturn(List.of(word(1L, "爱", "любовь")))
+                .thenReturn(List.of(word(1L, "爱", "любовь, нежность")));
+        catalog.load();
+
+        DictionaryPageCache.RenderedPage first = cache.page("zh", "ru", "A1", 0, true);
+        assertThat(cache.page("zh", "ru", "A1", 0, true)).isSameAs(first);
+
+        catalog.load();
+        DictionaryPageCache.RenderedPage reloaded = cache.page("zh", "ru", "A1", 0, true);
+
+        assertThat(reloaded).isNotSameAs(first);
+        assertThat(first.text()).contains("любовь\n");
+        assertThat(reloaded.text()).contains("любовь, нежность");
+        assertThat(cache.stats()).containsEntry("hits", 1L).containsEntry("misses", 2L);
+    }
+
+    @Test
+    void aPageRenderedFromAnOlderVersionIsNotCached() {
+        // Once armed, reading the translation while rendering triggers a reload, i.e. the render races it.
+        AtomicBoolean armed = new AtomicBoolean();
+        Word racing = spy(word(1L, "爱", "любовь"));
+        doAnswer(invocation -> {
+            if (armed.compareAndSet(true, false)) catalog.load();
+            return invocation.callRealMethod();
+        }).when(racing).getTranslation();
+        when(wordRepository.findAll())
+                .thenReturn(List.of(racing))
+                .thenReturn(List.of(word(1L, "爱", "любовь, нежность")));
+        catalog.load();
+        armed.set(true);
+
+        DictionaryPageCache.RenderedPage stale = cache.page("zh", "ru", "A1", 0, true);
+        DictionaryPageCache.RenderedPage current = cache.page("zh", "ru", "A1", 0, true);
+
+        assertThat(stale.text()).contains("любовь\n");
+        assertThat(current.text()).contains("любовь, нежность");
+        assertThat(cache.page("zh", "ru", "A1", 0, true)).isSameAs(current);
+        assertThat(cache.stats())
+                .containsEntry("size", 1)
+                .containsEntry("staleRenders", 1L)
+                .containsEntry("misses", 2L);
+    }
+
+    private static Word word(Long id, String text, String translation) {
+        Word word = new Word();
+        word.setId(id);
+        word.setWord(text);
+        word.setTranslation(translation);
+        word.setLevel("A1");
+        word.setLang("zh");
+        return word;
+    }
+}
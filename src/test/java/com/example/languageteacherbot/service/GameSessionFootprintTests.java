@@ -0,0 +1,73 @@
+package com.example.languageteacherbot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GameSessionFootprintTests {
+
+    private static final int SESSIONS = 50_000;
+    private static final int MAX_FLASHCARDS = 90;
+    private static final int MAX_SENTENCES = 40;
+
+    @Test
+    void sessionsOnlyHoldPrimitivesAndSharedReferences() {
+        for (Class<?> type : new Class<?>[] {FlashcardGameSession.class, SentenceGameSession.class}) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) continue;
+                assertThat(field.getType().isPrimitive() || field.getType() == long[].class
+                        || field.getType() == Long.class || field.getType() == String.class
+                        || field.getType() == WordCatalog.Snapshot.class || field.getType() == SentenceCatalog.Snapshot.class)
+                        .as(type.getSimpleName() + "." + field.getName())
+                        .isTrue();
+            }
+        }
+    }
+
+    @Test
+    void fiftyThousandChatsInTheLargestGamesFitInFiftyMegabytes() {
+        // Computed from the field layout with uncompressed 8 byte references and 16 byte headers,
+        // an upper bound for any HotSpot configuration. Snapshots and strings are shared; the boxed
+        // chat id and the id array are the only per-game allocations besides the session itself.
+        // Games are sized for the largest amounts the menus offer, and a chat runs one game at a time.
+        long flashcard = shallowSize(FlashcardGameSession.class) + boxedLongSize() + longArraySize(MAX_FLASHCARDS);
+        long sentence = shallowSize(SentenceGameSession.class) + boxedLongSize() + longArraySize(MAX_SENTENCES);
+
+        assertThat(flashcard).isLessThanOrEqualTo(1024);
+        assertThat(sentence).isLessThanOrEqualTo(1024);
+        assertThat(Math.max(flashcard, sentence) * SESSIONS).isLessThan(50L * 1024 * 1024);
+    }
+
+    private static long shallowSize(Class<?> type) {
+        long size = 16;
+        for (Field field : type.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers())) continue;
+            Class<?> fieldType = field.getType();
+            if (fieldType == long.class || fieldType == double.class || !fieldType.isPrimitive()) {
+                size += 8;
+            } else if (fieldType == int.class || fieldType == float.class) {
+                size += 4;
+            } else if (fieldType == short.class || fieldType == char.class) {
+                size += 2;
+            } else {
+                size += 1;
+            }
+        }
+        return align(size);
+    }
+
+    private static long boxedLongSize() {
+        return align(16 + 8);
+    }
+
+    private static long longArraySize(int length) {
+        return align(16 + 8L * length);
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
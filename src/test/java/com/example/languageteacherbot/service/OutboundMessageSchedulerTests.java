@@ -0,0 +1,102 @@
+package com.example.languageteacherbot.service;
+
+import com.example.languageteacherbot.telegram.TelegramApiClient;
+import com.example.languageteacherbot.telegram.TelegramApiException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboundMessageSchedulerTests {
+
+    private static final Map<String, Object> OK = Map.of("ok", true);
+
+    private final TelegramApiClient client = mock(TelegramApiClient.class);
+    private final OutboundMessageScheduler scheduler = new OutboundMessageScheduler();
+
+    OutboundMessageSchedulerTests() {
+        ReflectionTestUtils.setField(scheduler, "telegramApiClient", client);
+        ReflectionTestUtils.setField(scheduler, "globalRate", 1000.0);
+        ReflectionTestUtils.setField(scheduler, "perChatRate", 1000.0);
+        ReflectionTestUtils.setField(scheduler, "perChatBurst", 10);
+        ReflectionTestUtils.setField(scheduler, "maxAttempts", 2);
+        ReflectionTestUtils.setField(scheduler, "maxQueuedPerChat", 10);
+        ReflectionTestUtils.setField(scheduler, "maxInFlight", 4);
+        scheduler.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.stop();
+    }
+
+    @Test
+    void retriesServerErrorsAndDelivers() throws Exception {
+        when(client.call(eq("sendMessage"), any()))
+                .thenReturn(CompletableFuture.failedFuture(new TelegramApiException(502, "Bad Gateway", 0)))
+                .thenReturn(CompletableFuture.completedFuture(OK));
+
+        assertThat(scheduler.submit(1L, "sendMessage", Map.of("chat_id", 1L)).get(5, TimeUnit.SECONDS)).isEqualTo(OK);
+
+        verify(client, times(2)).call(eq("sendMessage"), any());
+        assertThat(scheduler.stats()).containsEntry("retries", 1L).containsEntry("sent", 1L);
+        assertThat(scheduler.queuedTotal()).isZero();
+    }
+
+    @Test
+    void dropsAfterTheLastAttempt() {
+        when(client.call(eq("sendMessage"), any()))
+                .thenReturn(CompletableFuture.failedFuture(new TelegramApiException(500, "Internal", 0)));
+
+        CompletableFuture<Map<String, Object>> result = scheduler.submit(1L, "sendMessage", Map.of("chat_id", 1L));
+
+        assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(TelegramApiException.class);
+        verify(client, times(2)).call(eq("sendMessage"), any());
+        assertThat(scheduler.queuedTotal()).isZero();
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        when(client.call(eq("sendMessage"), any()))
+                .thenReturn(CompletableFuture.failedFuture(new TelegramApiException(400, "Bad Request", 0)));
+
+        CompletableFuture<Map<String, Object>> result = scheduler.submit(1L, "sendMessage", Map.of("chat_id", 1L));
+
+        assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+        verify(client, times(1)).call(eq("sendMessage"), any());
+        assertThat(scheduler.queuedTotal()).isZero();
+    }
+
+    @Test
+    void rateLimitOnOneChatPausesEveryChat() throws Exception {
+        when(client.call(eq("sendMessage"), any()))
+                .thenReturn(CompletableFuture.failedFuture(new TelegramApiException(429, "Too Many Requests", 1)))
+                .thenReturn(CompletableFuture.completedFuture(OK));
+        CompletableFuture<Map<String, Object>> limited = scheduler.submit(1L, "sendMessage", Map.of("chat_id", 1L));
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!Long.valueOf(1L).equals(scheduler.stats().get("rateLimited")) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        long limitedAt = System.nanoTime();
+
+        CompletableFuture<Map<String, Object>> other = scheduler.submit(2L, "sendMessage", Map.of("chat_id", 2L));
+
+        assertThat(other.get(5, TimeUnit.SECONDS)).isEqualTo(OK);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - limitedAt)).isGreaterThanOrEqualTo(800);
+        assertThat(limited.get(5, TimeUnit.SECONDS)).isEqualTo(OK);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.languageteacherbot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RandomSamplerTests {
+
+    @Test
+    void drawsDistinctPositionsInRange() {
+        for (int n : new int[] {1, 7, 40, 100_000}) {
+            for (int k : new int[] {1, 5, 30, 90}) {
+                int[] picked = RandomSampler.samplePositions(n, k, null);
+                assertThat(picked).hasSize(Math.min(n, k));
+                assertThat(Arrays.stream(picked).distinct().count()).isEqualTo(picked.length);
+                assertThat(Arrays.stream(picked)).allMatch(p -> p >= 0 && p < n);
+            }
+        }
+    }
+
+    @Test
+    void skipsExcludedIds() {
+        long[] ids = IntStream.rangeClosed(1, 1_000).asLongStream().toArray();
+
+        long[] sampled = RandomSampler.sample(ids, 20, id -> id % 2 == 0);
+
+        assertThat(sampled).hasSize(20);
+        assertThat(Arrays.stream(sampled)).allMatch(id -> id % 2 == 1);
+    }
+
+    @Test
+    void returnsWhatIsLeftWhenExclusionsExhaustThePool() {
+        List<String> words = List.of("a", "b", "c", "d");
+
+        List<String> sampled = RandomSampler.sample(words, 3, word -> !word.equals("c"));
+
+        assertThat(sampled).containsExactly("c");
+    }
+
+    @Test
+    void everyPositionIsEquallyLikely() {
+        int[] hits = new int[10];
+        for (int round = 0; round < 50_000; round++) {
+            for (int p : RandomSampler.samplePositions(10, 2, null)) hits[p]++;
+        }
+        assertThat(Arrays.stream(hits)).allMatch(count -> count > 9_000 && count < 11_000);
+
+        int[] sparseHits = new int[100];
+        for (int round = 0; round < 50_000; round++) {
+            for (int p : RandomSampler.samplePositions(100, 5, null)) sparseHits[p]++;
+        }
+        assertThat(Arrays.stream(sparseHits)).allMatch(count -> count > 2_200 && count < 2_800);
+    }
+}
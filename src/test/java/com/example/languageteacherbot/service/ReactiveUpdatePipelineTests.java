@@ -0,0 +1,122 @@
+package com.example.languageteacherbot.service;
+
+import com.example.languageteacherbot.telegram.TelegramUpdate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReactiveUpdatePipelineTests {
+
+    private final TelegramService telegramService = mock(TelegramService.class);
+    private final OutboundMessageScheduler outboundScheduler = mock(OutboundMessageScheduler.class);
+    private final SessionSnapshotter snapshotter = mock(SessionSnapshotter.class);
+    private final ReactiveUpdatePipeline pipeline = new ReactiveUpdatePipeline();
+    private final AtomicBoolean served = new AtomicBoolean();
+
+    ReactiveUpdatePipelineTests() {
+        ReflectionTestUtils.setField(pipeline, "telegramService", telegramService);
+        ReflectionTestUtils.setField(pipeline, "outboundScheduler", outboundScheduler);
+        ReflectionTestUtils.setField(pipeline, "snapshotter", snapshotter);
+        ReflectionTestUtils.setField(pipeline, "timeoutSeconds", 0);
+        ReflectionTestUtils.setField(pipeline, "shardCount", 2);
+        ReflectionTestUtils.setField(pipeline, "intakeBuffer", 256);
+        ReflectionTestUtils.setField(pipeline, "stageBuffer", 32);
+        ReflectionTestUtils.setField(pipeline, "outboundHighWatermark", 1000);
+        when(snapshotter.restoredUpdateId()).thenReturn(10L);
+        when(telegramService.isPollingActive()).thenReturn(true);
+        // Chats 1 and 2 land on different shards.
+        when(telegramService.fetchUpdates(anyLong(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            if (served.compareAndSet(false, true)) {
+                return List.of(update(11, 1), update(12, 2), update(13, 1));
+            }
+            Thread.sleep(20);
+            return List.of();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.stop();
+    }
+
+    @Test
+    void offsetOnlyPassesUpdatesWhoseHandlerFinished() throws Exception {
+        when(outboundScheduler.whenQueuedAtMost(anyInt())).thenReturn(CompletableFuture.completedFuture(null));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch otherChat = new CountDownLatch(1);
+        CountDownLatch sameChat = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            TelegramUpdate update = invocation.getArgument(0);
+            if (update.updateId() == 11) release.await(5, TimeUnit.SECONDS);
+            if (update.updateId() == 12) otherChat.countDown();
+            if (update.updateId() == 13) sameChat.countDown();
+            return null;
+        }).when(telegramService).processUpdate(any());
+
+        pipeline.start();
+
+        assertThat(otherChat.await(2, TimeUnit.SECONDS)).isTrue();
+        verify(telegramService, timeout(2000)).fetchUpdates(eq(14L), anyInt(), anyInt());
+        assertThat(sameChat.getCount()).isEqualTo(1);
+        assertThat(pipeline.getLastUpdateId()).isEqualTo(10L);
+
+        release.countDown();
+        assertThat(sameChat.await(2, TimeUnit.SECONDS)).isTrue();
+        long deadline = System.currentTimeMillis() + 2000;
+        while (pipeline.getLastUpdateId() != 13L && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(pipeline.getLastUpdateId()).isEqualTo(13L);
+    }
+
+    @Test
+    void anErrorFromAHandlerDoesNotStopThePipeline() throws Exception {
+        when(outboundScheduler.whenQueuedAtMost(anyInt())).thenReturn(CompletableFuture.completedFuture(null));
+        CountDownLatch sameChat = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            TelegramUpdate update = invocation.getArgument(0);
+            if (update.updateId() == 11) throw new AssertionError("handler bug");
+            if (update.updateId() == 13) sameChat.countDown();
+            return null;
+        }).when(telegramService).processUpdate(any());
+
+        pipeline.start();
+
+        assertThat(sameChat.await(2, TimeUnit.SECONDS)).isTrue();
+        verify(telegramService, timeout(2000)).fetchUpdates(eq(14L), anyInt(), anyInt());
+    }
+
+    @Test
+    void intakeWaitsForTheOutboundQueueToDrain() {
+        CompletableFuture<Void> capacity = new CompletableFuture<>();
+        when(outboundScheduler.whenQueuedAtMost(1000)).thenReturn(capacity);
+
+        pipeline.start();
+
+        verify(telegramService, after(300).never()).fetchUpdates(anyLong(), anyInt(), anyInt());
+        capacity.complete(null);
+        verify(telegramService, timeout(2000)).fetchUpdates(eq(11L), anyInt(), anyInt());
+    }
+
+    private static TelegramUpdate update(long updateId, long chatId) {
+        return new TelegramUpdate(updateId, chatId, 1, "text", "Name", null, null);
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.languageteacherbot.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SessionSnapshotterTests {
+
+    @TempDir
+    Path dir;
+
+    private final UpdatePoller poller = mock(UpdatePoller.class);
+    private ChatSessionStore store;
+    private SessionSnapshotter snapshotter;
+    private Path file;
+
+    @BeforeEach
+    void setUp() {
+        file = dir.resolve("sessions.snapshot");
+        store = store();
+        snapshotter = snapshotter(store);
+    }
+
+    @Test
+    void restoresStatePagingGamesAndTheUpdateOffset() {
+        state(store).put(1L, ConversationState.IN_DICTIONARY);
+        page(store).put(1L, 3);
+        level(store).put(1L, "A2");
+        section(store).put(1L, "favorites");
+        FlashcardGameSession flashcards = new FlashcardGameSession(2L, "zh", null, new long[]{5, 8, 13}, 0, true, "B1");
+        flashcards.advanceCorrect();
+        flashcards.advanceDontKnow();
+        game(store).put(2L, flashcards);
+        SentenceGameSession sentences = new SentenceGameSession(3L, null, new long[]{21, 34}, 0, 0, 0, 1_000L);
+        sentences.advanceIncorrect();
+        game(store).put(3L, sentences);
+        when(poller.getLastUpdateId()).thenReturn(42L);
+
+        snapshotter.snapshot();
+
+        ChatSessionStore restoredStore = store();
+        SessionSnapshotter restored = snapshotter(restoredStore);
+        restored.restore();
+
+        assertThat(restored.restoredUpdateId()).isEqualTo(42L);
+        // The next-sentence timer is not snapshotted; the bot shows the current sentence again.
+        assertThat(restored.restoredSentenceGames()).containsExactly(3L);
+        assertThat(restoredStore.liveSessions()).isEqualTo(3);
+        assertThat(state(restoredStore).get(1L)).isEqualTo(ConversationState.IN_DICTIONARY);
+        assertThat(page(restoredStore).get(1L)).isEqualTo(3);
+        assertThat(level(restoredStore).get(1L)).isEqualTo("A2");
+        assertThat(section(restoredStore).get(1L)).isEqualTo("favorites");
+
+        FlashcardGameSession game = (FlashcardGameSession) game(restoredStore).get(2L);
+        assertThat(game.getGameType()).isEqualTo("zh");
+        assertThat(game.getGameLevel()).isEqualTo("B1");
+        assertThat(game.isUseMyWordsOnly()).isTrue();
+        assertThat(game.getCurrentIndex()).isEqualTo(2);
+        assertThat(game.getCorrectCount()).isEqualTo(1);
+        assertThat(game.getDontKnowCount()).isEqualTo(1);
+        assertThat(game.getStartTime()).isEqualTo(flashcards.getStartTime());
+        assertThat(game.currentWordId()).isEqualTo(13L);
+
+        SentenceGameSession sentenceGame = (SentenceGameSession) game(restoredStore).get(3L);
+        assertThat(sentenceGame.getCurrentRound()).isEqualTo(1);
+        assertThat(sentenceGame.getIncorrectCount()).isEqualTo(1);
+        assertThat(sentenceGame.getStartTime()).isEqualTo(1_000L);
+        assertThat(sentenceGame.currentSentenceId()).isEqualTo(34L);
+    }
+
+    @Test
+    void rejectsACorruptedSnapshot() throws Exception {
+        state(store).put(1L, ConversationState.IN_MENU);
+        when(poller.getLastUpdateId()).thenReturn(42L);
+        snapshotter.snapshot();
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(file, bytes);
+
+        assertNothingRestored();
+    }
+
+    @Test
+    void rejectsATruncatedSnapshot() throws Exception {
+        state(store).put(1L, ConversationState.IN_MENU);
+        when(poller.getLastUpdateId()).thenReturn(42L);
+        snapshotter.snapshot();
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertNothingRestored();
+    }
+
+    @Test
+    void onlyReencodesContextsChangedSinceTheLastSnapshot() {
+        ChatSessionStore.Slot<ConversationState> state = state(store);
+        state.put(1L, ConversationState.IN_MENU);
+        state.put(2L, ConversationState.IN_SETTINGS);
+        snapshotter.snapshot();
+        assertThat(snapshotter.stats()).containsEntry("snapshots", 1L).containsEntry("lastReencoded", 2L);
+
+        snapshotter.snapshot();
+        assertThat(snapshotter.stats()).containsEntry("snapshots", 1L);
+
+        state.put(2L, ConversationState.IN_MENU);
+        snapshotter.snapshot();
+        assertThat(snapshotter.stats()).containsEntry("snapshots", 2L).containsEntry("lastReencoded", 1L);
+
+        SessionSnapshotter restored = snapshotter(store());
+        restored.restore();
+        assertThat(restored.stats()).containsEntry("restoredChats", 2);
+    }
+
+    private void assertNothingRestored() {
+        ChatSessionStore restoredStore = store();
+        SessionSnapshotter restored = snapshotter(restoredStore);
+        restored.restore();
+
+        assertThat(restored.restoredUpdateId()).isZero();
+        assertThat(restoredStore.liveSessions()).isZero();
+        assertThat(restored.stats()).containsEntry("failures", 1L);
+    }
+
+    private static ChatSessionStore.Slot<ConversationState> state(ChatSessionStore store) {
+        return store.slot(ChatContext::state, ChatContext::state);
+    }
+
+    private static ChatSessionStore.Slot<Integer> page(ChatSessionStore store) {
+        return store.slot(ChatContext::dictionaryPage, ChatContext::dictionaryPage);
+    }
+
+    private static ChatSessionStore.Slot<String> level(ChatSessionStore store) {
+        return store.slot(ChatContext::dictionaryLevel, ChatContext::dictionaryLevel);
+    }
+
+    private static ChatSessionStore.Slot<String> section(ChatSessionStore store) {
+        return store.slot(ChatContext::myWordsSection, ChatContext::myWordsSection);
+    }
+
+    private static ChatSessionStore.Slot<Object> game(ChatSessionStore store) {
+        return store.slot(ChatContext::game, ChatContext::game);
+    }
+
+    private static ChatSessionStore store() {
+        ChatSessionStore store = new ChatSessionStore();
+        ReflectionTestUtils.setField(store, "idleTtlMinutes", 60L);
+        ReflectionTestUtils.setField(store, "maxSessions", 100);
+        ReflectionTestUtils.setField(store, "maxWeight", 1_000L);
+        return store;
+    }
+
+    @SuppressWarnings("unchecked")
+    private SessionSnapshotter snapshotter(ChatSessionStore sessions) {
+        ObjectProvider<UpdatePoller> pollers = mock(ObjectProvider.class);
+        when(pollers.getIfAvailable()).thenReturn(poller);
+        SessionSnapshotter target = new SessionSnapshotter();
+        ReflectionTestUtils.setField(target, "sessions", sessions);
+        ReflectionTestUtils.setField(target, "wordCatalog", mock(WordCatalog.class));
+        ReflectionTestUtils.setField(target, "sentenceCatalog", mock(SentenceCatalog.class));
+        ReflectionTestUtils.setField(target, "poller", pollers);
+        ReflectionTestUtils.setField(target, "reactivePipeline", mock(ObjectProvider.class));
+        ReflectionTestUtils.setField(target, "enabled", true);
+        ReflectionTestUtils.setField(target, "path", file.toString());
+        return target;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.languageteacherbot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTests {
+
+    @Test
+    void startsFullAndRefillsAtTheConfiguredRate() {
+        TokenBucket bucket = new TokenBucket(10, 2);
+
+        assertThat(bucket.tryAcquire()).isZero();
+        assertThat(bucket.tryAcquire()).isZero();
+        long wait = bucket.tryAcquire();
+
+        assertThat(wait).isPositive().isLessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(bucket.isFull()).isFalse();
+    }
+
+    @Test
+    void handsOutNothingWhilePaused() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1000, 5);
+
+        bucket.pause(TimeUnit.MILLISECONDS.toNanos(200));
+        bucket.pause(TimeUnit.MILLISECONDS.toNanos(50));
+
+        assertThat(bucket.tryAcquire()).isGreaterThan(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(bucket.nanosUntilAvailable()).isGreaterThan(TimeUnit.MILLISECONDS.toNanos(100));
+        Thread.sleep(250);
+        assertThat(bucket.tryAcquire()).isZero();
+    }
+}
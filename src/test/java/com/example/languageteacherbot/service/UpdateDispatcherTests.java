@@ -0,0 +1,134 @@
+package com.example.languageteacherbot.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UpdateDispatcherTests {
+
+    private static final int CHATS = 3;
+    private static final int UPDATES_PER_CHAT = 50;
+
+    private final UpdateDispatcher dispatcher = new UpdateDispatcher();
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.stop();
+    }
+
+    @Test
+    void platformShardsKeepPerChatOrderAndRunChatsInParallel() throws InterruptedException {
+        start("platform");
+        assertInterleavedUpdates(chatsOnDistinctShards());
+    }
+
+    @Test
+    void virtualLanesKeepPerChatOrderAndRunChatsInParallel() throws InterruptedException {
+        start("virtual");
+        assertInterleavedUpdates(List.of(101L, 102L, 103L));
+    }
+
+    @Test
+    void aShardKeepsDrainingAfterAHandlerThrowsAnError() throws InterruptedException {
+        start("platform");
+        assertKeepsDrainingAfterAnError(7L);
+    }
+
+    @Test
+    void aVirtualLaneKeepsDrainingAfterAHandlerThrowsAnError() throws InterruptedException {
+        start("virtual");
+        assertKeepsDrainingAfterAnError(7L);
+        assertThat(dispatcher.stats()).containsEntry("failed", 1L);
+    }
+
+    private void assertKeepsDrainingAfterAnError(long chatId) throws InterruptedException {
+        CountDownLatch next = new CountDownLatch(1);
+        dispatcher.dispatch(chatId, () -> {
+            throw new AssertionError("handler bug");
+        });
+        dispatcher.dispatch(chatId, next::countDown);
+
+        assertThat(next.await(2, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private void start(String mode) {
+        ReflectionTestUtils.setField(dispatcher, "mode", mode);
+        ReflectionTestUtils.setField(dispatcher, "shardCount", 4);
+        ReflectionTestUtils.setField(dispatcher, "queueCapacity", 1000);
+        ReflectionTestUtils.setField(dispatcher, "virtualMaxQueued", 1000);
+        dispatcher.start();
+    }
+
+    private List<Long> chatsOnDistinctShards() {
+        List<Long> chats = new ArrayList<>();
+        Set<Integer> shards = new HashSet<>();
+        for (long chatId = 1; chats.size() < CHATS; chatId++) {
+            Integer shard = ReflectionTestUtils.invokeMethod(dispatcher, "shardIndex", chatId);
+            if (shards.add(shard)) chats.add(chatId);
+        }
+        return chats;
+    }
+
+    private void assertInterleavedUpdates(List<Long> chats) throws InterruptedException {
+        Map<Long, List<Integer>> seen = new ConcurrentHashMap<>();
+        Map<Long, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        // The first update of every chat waits until all chats have started one: only possible
+        // when different chats are handled at the same time.
+        CountDownLatch allChatsStarted = new CountDownLatch(chats.size());
+        AtomicBoolean concurrent = new AtomicBoolean(true);
+        CountDownLatch done = new CountDownLatch(chats.size() * UPDATES_PER_CHAT);
+
+        for (long chatId : chats) {
+            seen.put(chatId, new ArrayList<>());
+            inFlight.put(chatId, new AtomicInteger());
+        }
+        for (int seq = 0; seq < UPDATES_PER_CHAT; seq++) {
+            for (long chatId : chats) {
+                int update = seq;
+                dispatcher.dispatch(chatId, () -> {
+                    if (inFlight.get(chatId).incrementAndGet() > 1) overlapped.set(true);
+                    try {
+                        if (update == 0) {
+                            allChatsStarted.countDown();
+                            if (!allChatsStarted.await(2, TimeUnit.SECONDS)) concurrent.set(false);
+                        }
+                        List<Integer> chatSeen = seen.get(chatId);
+                        synchronized (chatSeen) {
+                            chatSeen.add(update);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        inFlight.get(chatId).decrementAndGet();
+                        done.countDown();
+                    }
+                });
+            }
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(concurrent).isTrue();
+        assertThat(overlapped).isFalse();
+        List<Integer> expected = new ArrayList<>();
+        for (int seq = 0; seq < UPDATES_PER_CHAT; seq++) {
+            expected.add(seq);
+        }
+        for (long chatId : chats) {
+            assertThat(seen.get(chatId)).as("chat %d", chatId).containsExactlyElementsOf(expected);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.languageteacherbot.service;
+
+import com.example.languageteacherbot.entity.User;
+import com.example.languageteacherbot.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserProfileCacheTests {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserProfileCache cache = new UserProfileCache();
+
+    UserProfileCacheTests() {
+        ReflectionTestUtils.setField(cache, "userRepository", userRepository);
+        ReflectionTestUtils.setField(cache, "maxEntries", 10);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 60L);
+        when(userRepository.findByChatId(42L)).thenReturn(Optional.of(user("A1")));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void loadsUserOncePerScopeAndReusesInstance() {
+        cache.inScope(() -> {
+            User first = cache.findByChatId(42L).orElseThrow();
+            User second = cache.findByChatId(42L).orElseThrow();
+            assertThat(second).isSameAs(first);
+        });
+        cache.inScope(() -> cache.findByChatId(42L));
+
+        verify(userRepository, times(1)).findByChatId(42L);
+    }
+
+    @Test
+    void unsavedChangesDoNotLeakIntoNearCache() {
+        cache.inScope(() -> cache.findByChatId(42L).orElseThrow().setLevel("C2"));
+
+        assertThat(cache.findByChatId(42L).orElseThrow().getLevel()).isEqualTo("A1");
+    }
+
+    @Test
+    void saveWritesThrough() {
+        cache.inScope(() -> {
+            User user = cache.findByChatId(42L).orElseThrow();
+            user.setLevel("B2");
+            cache.save(user);
+        });
+
+        assertThat(cache.findByChatId(42L).orElseThrow().getLevel()).isEqualTo("B2");
+        verify(userRepository, times(1)).findByChatId(42L);
+        verify(userRepository).save(any(User.class));
+    }
+
+    private static User user(String level) {
+        User user = new User();
+        user.setChatId(42L);
+        user.setNativeLanguage("ru");
+        user.setTargetLanguage("zh");
+        user.setLevel(level);
+        return user;
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.languageteacherbot.service;
+
+import com.example.languageteacherbot.entity.UserWord;
+import com.example.languageteacherbot.entity.Word;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserWordWriteBufferTests {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final UserWordWriteBuffer buffer = new UserWordWriteBuffer();
+
+    UserWordWriteBufferTests() {
+        ReflectionTestUtils.setField(buffer, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(buffer, "batchSize", 100);
+        ReflectionTestUtils.setField(buffer, "maxPending", 1000);
+        buffer.init();
+    }
+
+    @Test
+    void pendingInsertsAreVisibleToReadsUntilTheyAreFlushed() {
+        buffer.addUnknown(1L, word(10));
+        buffer.addUnknown(1L, word(11));
+        buffer.addFavorite(1L, word(12));
+
+        assertThat(buffer.pendingUnknown(1L)).extracting(uw -> uw.getWord().getId()).containsExactly(10L, 11L);
+        assertThat(buffer.pendingUnknown(1L)).extracting(UserWord::getUserChatId).containsOnly(1L);
+        assertThat(buffer.pendingFavorites(1L)).extracting(fw -> fw.getWord().getId()).containsExactly(12L);
+        assertThat(buffer.pendingUnknown(2L)).isEmpty();
+
+        buffer.flush();
+
+        verify(jdbcTemplate).batchUpdate(contains("user_words"), anyList());
+        verify(jdbcTemplate).batchUpdate(contains("user_favorite_words"), anyList());
+        assertThat(buffer.pendingUnknown(1L)).isEmpty();
+        assertThat(buffer.pendingFavorites(1L)).isEmpty();
+        assertThat(buffer.stats()).containsEntry("pending", 0).containsEntry("written", 3L);
+    }
+
+    @Test
+    void aCancelledInsertIsNeverWritten() {
+        buffer.addUnknown(1L, word(10));
+
+        assertThat(buffer.cancelUnknown(1L, 10L)).isTrue();
+        buffer.flush();
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        assertThat(buffer.stats()).containsEntry("cancelled", 1L);
+    }
+
+    @Test
+    void aCancelDuringAFlushWaitsForTheInsertSoTheDeleteComesAfterIt() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await(2, TimeUnit.SECONDS);
+            return new int[]{1};
+        });
+        buffer.addUnknown(1L, word(10));
+
+        CompletableFuture<Void> flush = CompletableFuture.runAsync(buffer::flush);
+        assertThat(writing.await(2, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Boolean> cancel = CompletableFuture.supplyAsync(() -> buffer.cancelUnknown(1L, 10L));
+
+        Thread.sleep(100);
+        assertThat(cancel).isNotDone();
+        release.countDown();
+
+        flush.get(2, TimeUnit.SECONDS);
+        // Not pending any more: the caller deletes the row that the flush has just written.
+        assertThat(cancel.get(2, TimeUnit.SECONDS)).isFalse();
+        assertThat(buffer.pendingUnknown(1L)).isEmpty();
+    }
+
+    @Test
+    void aRejectedRowIsDroppedAndTheRestOfTheBatchIsWritten() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            for (Object[] row : rows) {
+                if (row[1].equals(11L)) throw new DataIntegrityViolationException("word 11 was removed");
+            }
+            return new int[rows.size()];
+        });
+        buffer.addUnknown(1L, word(10));
+        buffer.addUnknown(1L, word(11));
+        buffer.addUnknown(1L, word(12));
+        buffer.addUnknown(2L, word(13));
+
+        buffer.flush();
+
+        assertThat(buffer.pendingUnknown(1L)).isEmpty();
+        assertThat(buffer.pendingUnknown(2L)).isEmpty();
+        assertThat(buffer.stats())
+                .containsEntry("pending", 0)
+                .containsEntry("written", 3L)
+                .containsEntry("dropped", 1L);
+    }
+
+    @Test
+    void whileTheDatabaseIsDownThePendingInsertsAreBounded() {
+        ReflectionTestUtils.setField(buffer, "maxPending", 2);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+        when(jdbcTemplate.update(anyString(), eq(1L), eq(12L)))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+        buffer.addUnknown(1L, word(10));
+        buffer.addUnknown(1L, word(11));
+
+        buffer.flush();
+        buffer.addUnknown(1L, word(12));
+
+        // Kept for the next flush, not dropped row by row.
+        assertThat(buffer.pendingUnknown(1L)).extracting(uw -> uw.getWord().getId()).containsExactly(10L, 11L);
+        assertThat(buffer.stats())
+                .containsEntry("pending", 2)
+                .containsEntry("failures", 1L)
+                .containsEntry("dropped", 1L);
+    }
+
+    @Test
+    void closeFlushesWhatIsPendingAndLaterInsertsAreWrittenDirectly() {
+        buffer.addUnknown(1L, word(10));
+
+        buffer.close();
+        buffer.addFavorite(1L, word(11));
+
+        verify(jdbcTemplate).batchUpdate(contains("user_words"), anyList());
+        verify(jdbcTemplate).update(contains("user_favorite_words"), eq(1L), eq(11L));
+        assertThat(buffer.pendingFavorites(1L)).isEmpty();
+        assertThat(buffer.stats()).containsEntry("pending", 0).containsEntry("written", 2L);
+    }
+
+    private static Word word(long id) {
+        Word word = new Word();
+        word.setId(id);
+        return word;
+    }
+}
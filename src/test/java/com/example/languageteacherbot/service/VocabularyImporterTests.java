@@ -0,0 +1,99 @@
+package com.example.languageteacherbot.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class VocabularyImporterTests {
+
+    private static final String WORDS = """
+            "word","translation","transcription","level","lang"
+            爱,"любовь; любить; любимый",ài,A1,zh
+            八,"восемь; восьмой",bā,A1,zh
+            ,missing word,,A1,zh
+            杯子,"чашка, кружка, стакан",bēizi,A1,zh
+            """;
+
+    @TempDir
+    Path dir;
+
+    private JdbcTemplate jdbcTemplate;
+    private VocabularyImporter importer;
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        importer = new VocabularyImporter();
+        ReflectionTestUtils.setField(importer, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(importer, "resourceLoader", new DefaultResourceLoader());
+        ReflectionTestUtils.setField(importer, "batchSize", 2);
+        file = dir.resolve("word.csv");
+        Files.writeString(file, WORDS, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void streamsRowsInBatchesAndRecordsTheChecksum() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("words"))).thenReturn(List.of());
+
+        importer.importFile("words", file.toUri().toString(), new VocabularyImporter.WordRows());
+
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+        verify(jdbcTemplate).update(anyString(), eq("words"), eq(sha256(WORDS)), eq(3L));
+    }
+
+    @Test
+    void skipsAFileThatMatchesTheLastImport() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("words"))).thenReturn(List.of(sha256(WORDS)));
+
+        importer.importFile("words", file.toUri().toString(), new VocabularyImporter.WordRows());
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void upsertsSentencesOnTheirNaturalKeyInOneStatementPerBatch() throws Exception {
+        Path sentences = dir.resolve("sentence.csv");
+        Files.writeString(sentences, """
+                words,correct_sentence,level,language
+                "爱,不,你,我,在","我爱你。",A1,zh
+                "学生,是,我,今天","我是学生。",A1,zh
+                "я,книга","Я читаю книгу.",,ru
+                """, StandardCharsets.UTF_8);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("sentences"))).thenReturn(List.of());
+
+        importer.importFile("sentences", sentences.toUri().toString(), new VocabularyImporter.SentenceRows());
+
+        verify(jdbcTemplate, times(1)).batchUpdate(
+                contains("ON CONFLICT (language, correct_sentence) DO UPDATE"), anyList());
+        verify(jdbcTemplate).update(anyString(), eq("sentences"), anyString(), eq(2L));
+    }
+
+    private static String sha256(String content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.languageteacherbot.service;
+
+import com.example.languageteacherbot.entity.Word;
+import com.example.languageteacherbot.repository.WordRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WordCatalogTests {
+
+    private final WordRepository wordRepository = mock(WordRepository.class);
+    private final WordCatalog catalog = new WordCatalog();
+
+    WordCatalogTests() {
+        ReflectionTestUtils.setField(catalog, "wordRepository", wordRepository);
+    }
+
+    @Test
+    void reloadPublishesANewVersionWhileOldSnapshotsKeepResolving() {
+        when(wordRepository.findAll()).thenReturn(List.of(word(1L, "爱", "A1"), word(2L, "八", "A1")));
+        catalog.load();
+        WordCatalog.Snapshot started = catalog.current();
+
+        when(wordRepository.findAll()).thenReturn(List.of(word(1L, "爱", "A1"), word(3L, "杯子", "A2")));
+        catalog.load();
+
+        assertThat(catalog.version()).isEqualTo(started.version() + 1);
+        assertThat(started.find(2L)).isPresent();
+        assertThat(catalog.current().find(2L)).isEmpty();
+        assertThat(catalog.byLevel(started, "zh", "A1")).extracting(Word::getId).containsExactly(1L, 2L);
+        assertThat(catalog.upToLevel("zh", "A2")).extracting(Word::getId).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void mappedReloadExportsRowsChangedAfterTheFileWasWritten(@TempDir Path dir) {
+        JdbcTemplate jdbcTemplate = mappedSource(catalog, dir);
+        when(jdbcTemplate.queryForList(WordCatalog.SELECT_STAMP, String.class)).thenReturn(List.of("import-1"));
+        when(jdbcTemplate.query(eq(WordCatalog.SELECT_EXPORT), any(RowMapper.class))).thenReturn(List.of(
+                entry(5L, "杯子", "чашка", "A2"), entry(2L, "爱", "любовь", "A1")));
+        catalog.init();
+        WordCatalog.Snapshot started = catalog.current();
+
+        // The importer upserted a new translation and level for an existing (word, lang).
+        when(jdbcTemplate.query(eq(WordCatalog.SELECT_EXPORT), any(RowMapper.class))).thenReturn(List.of(
+                entry(5L, "杯子", "чашка, кружка", "A1"), entry(2L, "爱", "любовь", "A1"), entry(9L, "八", "восемь", "A1")));
+        catalog.load();
+
+        assertThat(catalog.findById(5L)).get().extracting(Word::getTranslation).isEqualTo("чашка, кружка");
+        assertThat(catalog.byLevel("zh", "A1")).extracting(Word::getId).containsExactly(2L, 5L, 9L);
+        assertThat(catalog.byLevel("zh", "A2")).isEmpty();
+        assertThat(started.find(5L)).get().extracting(Word::getTranslation).isEqualTo("чашка");
+    }
+
+    @Test
+    void mappedStartupReusesAFileThatMatchesTheLastImport(@TempDir Path dir) {
+        JdbcTemplate jdbcTemplate = mappedSource(catalog, dir);
+        when(jdbcTemplate.queryForList(WordCatalog.SELECT_STAMP, String.class)).thenReturn(List.of("import-1"));
+        when(jdbcTemplate.query(eq(WordCatalog.SELECT_EXPORT), any(RowMapper.class))).thenReturn(List.of(
+                entry(2L, "爱", "любовь", "A1")));
+        catalog.init();
+
+        WordCatalog restarted = new WordCatalog();
+        ReflectionTestUtils.setField(restarted, "wordRepository", wordRepository);
+        JdbcTemplate restartedJdbc = mappedSource(restarted, dir);
+        when(restartedJdbc.queryForList(WordCatalog.SELECT_STAMP, String.class)).thenReturn(List.of("import-1"));
+        restarted.init();
+
+        verify(restartedJdbc, never()).query(eq(WordCatalog.SELECT_EXPORT), any(RowMapper.class));
+        assertThat(restarted.findById(2L)).get().extracting(Word::getTranslation).isEqualTo("любовь");
+
+        // A newer import no longer matches the file, so the next start exports again.
+        WordCatalog upgraded = new WordCatalog();
+        ReflectionTestUtils.setField(upgraded, "wordRepository", wordRepository);
+        JdbcTemplate upgradedJdbc = mappedSource(upgraded, dir);
+        when(upgradedJdbc.queryForList(WordCatalog.SELECT_STAMP, String.class)).thenReturn(List.of("import-2"));
+        when(upgradedJdbc.query(eq(WordCatalog.SELECT_EXPORT), any(RowMapper.class))).thenReturn(List.of(
+                entry(2L, "爱", "любить", "A1")));
+        upgraded.init();
+
+        assertThat(upgraded.findById(2L)).get().extracting(Word::getTranslation).isEqualTo("любить");
+    }
+
+    private static JdbcTemplate mappedSource(WordCatalog target, Path dir) {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        ReflectionTestUtils.setField(target, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(target, "source", "mapped");
+        ReflectionTestUtils.setField(target, "mappedPath", dir.resolve("dictionary.bin").toString());
+        return jdbcTemplate;
+    }
+
+    private static DictionaryCompiler.Entry entry(long id, String text, String translation, String level) {
+        return new DictionaryCompiler.Entry(id, text, translation, null, level, "zh");
+    }
+
+    private static Word word(Long id, String text, String level) {
+        Word word = new Word();
+        word.setId(id);
+        word.setWord(text);
+        word.setTranslation("-");
+        word.setLevel(level);
+        word.setLang("zh");
+        return word;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.languageteacherbot.telegram;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CallbackRouterTests {
+
+    private final CallbackRouter router = new CallbackRouter();
+    private final List<String> calls = new ArrayList<>();
+
+    CallbackRouterTests() {
+        router.register("dict_next", (chatId, messageId, args) ->
+                calls.add("dict_next " + args.intArg(0) + " " + args.stringArg(1)),
+                CallbackArgs.Type.INT, CallbackArgs.Type.STRING);
+        router.register("dict_favorite", (chatId, messageId, args) ->
+                calls.add("dict_favorite " + args.longArg(0)),
+                CallbackArgs.Type.LONG);
+        router.register("delete_all_unknown", (chatId, messageId, args) -> calls.add("delete_all_unknown"));
+        router.register("delete_all_favorites", (chatId, messageId, args) -> calls.add("delete_all_favorites"));
+    }
+
+    @Test
+    void routesByCommandAndParsesTypedArguments() {
+        assertThat(router.route(1L, 2, "dict_next:3:A1")).isTrue();
+        assertThat(router.route(1L, 2, "dict_favorite:9876543210")).isTrue();
+        assertThat(router.route(1L, 2, "delete_all_favorites")).isTrue();
+
+        assertThat(calls).containsExactly("dict_next 3 A1", "dict_favorite 9876543210", "delete_all_favorites");
+    }
+
+    @Test
+    void countsUnknownAndStaleCallbacks() {
+        assertThat(router.route(1L, 2, "dict")).isFalse();
+        assertThat(router.route(1L, 2, "nope:1")).isFalse();
+        assertThat(router.route(1L, 2, "dict_next:3")).isFalse();
+        assertThat(router.route(1L, 2, "dict_favorite:abc")).isFalse();
+        assertThat(router.route(1L, 2, "delete_all_unknown:1")).isFalse();
+
+        assertThat(calls).isEmpty();
+        assertThat(router.stats()).containsEntry("unknown", 2L).containsEntry("stale", 3L);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.languageteacherbot.telegram;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TelegramUpdateDecoderTests {
+
+    private static final String RESPONSE = "{\"ok\":true,\"result\":["
+            + "{\"update_id\":7,\"message\":{\"message_id\":5,"
+            + "\"from\":{\"id\":1,\"is_bot\":false,\"first_name\":\"Ivan\",\"last_name\":\"Petrov\",\"language_code\":\"ru\"},"
+            + "\"chat\":{\"id\":42,\"type\":\"private\"},\"date\":1700000000,\"text\":\"/start\","
+            + "\"entities\":[{\"offset\":0,\"length\":6,\"type\":\"bot_command\"}]}},"
+            + "{\"update_id\":8,\"callback_query\":{\"id\":\"77\",\"from\":{\"id\":1,\"first_name\":\"Ivan\"},"
+            + "\"message\":{\"message_id\":9,\"from\":{\"id\":2,\"is_bot\":true,\"first_name\":\"Bot\"},"
+            + "\"chat\":{\"id\":42},\"text\":\"Словарь\",\"reply_markup\":{\"inline_keyboard\":[[{\"text\":\"→\",\"callback_data\":\"x\"}]]}},"
+            + "\"chat_instance\":\"1\",\"data\":\"dict_next:2:A1\"}}]}";
+
+    @Test
+    void bindsMessageAndCallbackFields() throws Exception {
+        List<TelegramUpdate> updates = TelegramUpdateDecoder.readUpdates(200, RESPONSE.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(updates).containsExactly(
+                new TelegramUpdate(7, 42, 5, "/start", "Ivan", "Petrov", null),
+                new TelegramUpdate(8, 42, 9, null, null, null, "dict_next:2:A1"));
+    }
+
+    @Test
+    void surfacesRateLimitErrors() {
+        String body = "{\"ok\":false,\"error_code\":429,\"description\":\"Too Many Requests\",\"parameters\":{\"retry_after\":3}}";
+
+        assertThatThrownBy(() -> TelegramUpdateDecoder.readUpdates(429, body.getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOfSatisfying(TelegramApiException.class, e -> {
+                    assertThat(e.isRateLimited()).isTrue();
+                    assertThat(e.getRetryAfterSeconds()).isEqualTo(3);
+                });
+    }
+
+    @Test
+    void leavesUnsupportedUpdatesWithoutChat() throws Exception {
+        String body = "{\"update_id\":9,\"edited_message\":{\"chat\":{\"id\":5},\"text\":\"hi\"}}";
+
+        TelegramUpdate update = TelegramUpdateDecoder.readUpdate(body.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(update.updateId()).isEqualTo(9);
+        assertThat(update.hasChat()).isFalse();
+    }
+}